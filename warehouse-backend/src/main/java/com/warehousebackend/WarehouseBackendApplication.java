@@ -2,8 +2,10 @@ package com.warehousebackend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class WarehouseBackendApplication {
 
     public static void main(String[] args) {
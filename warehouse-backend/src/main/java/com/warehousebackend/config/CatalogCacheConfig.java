@@ -0,0 +1,78 @@
+package com.warehousebackend.config;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Local Caffeine-backed JCache regions for the Hibernate second-level and query cache.
+ *
+ * Each region takes its size and TTL from {@code catalog.cache.<key>.size} and
+ * {@code catalog.cache.<key>.ttl}, falling back to {@code catalog.cache.default.*}. Hibernate's
+ * update-timestamps region is unbounded and never expires, otherwise cached queries could outlive
+ * the changes that invalidate them.
+ */
+@Configuration
+public class CatalogCacheConfig {
+
+    public static final String PRODUCT_REGION = "catalog.product";
+    public static final String WAREHOUSE_REGION = "catalog.warehouse";
+    public static final String SUPPLIER_REGION = "catalog.supplier";
+    public static final String VEHICLE_REGION = "catalog.vehicle";
+    public static final String QUERY_REGION = "catalog.queries";
+
+    private static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+    // Region name to the property key that sizes it
+    private static final Map<String, String> REGIONS = Map.of(
+            PRODUCT_REGION, "product",
+            WAREHOUSE_REGION, "warehouse",
+            SUPPLIER_REGION, "supplier",
+            VEHICLE_REGION, "vehicle",
+            QUERY_REGION, "queries",
+            "default-query-results-region", "default");
+
+    @Bean(destroyMethod = "close")
+    public CacheManager catalogCacheManager(Environment environment) {
+        // A manager of our own rather than the provider default, so test contexts do not share regions
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("warehouse-catalog-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        long defaultSize = environment.getProperty("catalog.cache.default.size", Long.class, 10_000L);
+        Duration defaultTtl = environment.getProperty("catalog.cache.default.ttl", Duration.class, Duration.ofMinutes(10));
+        REGIONS.forEach((region, key) -> {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(
+                    environment.getProperty("catalog.cache." + key + ".size", Long.class, defaultSize)));
+            configuration.setExpireAfterWrite(OptionalLong.of(
+                    environment.getProperty("catalog.cache." + key + ".ttl", Duration.class, defaultTtl).toNanos()));
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+        });
+
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(TIMESTAMPS_REGION, timestamps);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer catalogCacheCustomizer(CacheManager catalogCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, catalogCacheManager);
+    }
+}
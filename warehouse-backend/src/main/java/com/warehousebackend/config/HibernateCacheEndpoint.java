@@ -0,0 +1,83 @@
+package com.warehousebackend.config;
+
+/**
+ * @author MyDuyen
+ */
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Second-level and query cache statistics at {@code /actuator/hibernatecache}. Counters are
+ * cumulative since startup; compare {@code entityLoads} with the cache hits to see how many
+ * catalog reads still reach the database.
+ */
+@Component
+@Endpoint(id = "hibernatecache")
+public class HibernateCacheEndpoint {
+
+    private final Statistics statistics;
+
+    public HibernateCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, Object> cache() {
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("secondLevelHits", statistics.getSecondLevelCacheHitCount());
+        totals.put("secondLevelMisses", statistics.getSecondLevelCacheMissCount());
+        totals.put("secondLevelPuts", statistics.getSecondLevelCachePutCount());
+        totals.put("queryHits", statistics.getQueryCacheHitCount());
+        totals.put("queryMisses", statistics.getQueryCacheMissCount());
+        totals.put("queryPuts", statistics.getQueryCachePutCount());
+        totals.put("entityLoads", statistics.getEntityLoadCount());
+        totals.put("statements", statistics.getPrepareStatementCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        Arrays.stream(statistics.getSecondLevelCacheRegionNames()).sorted()
+                .forEach(name -> regions.put(name, describe(statistics.getCacheRegionStatistics(name))));
+        regions.putIfAbsent(CatalogCacheConfig.QUERY_REGION,
+                describe(statistics.getQueryRegionStatistics(CatalogCacheConfig.QUERY_REGION)));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("totals", totals);
+        result.put("regions", regions);
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> region(@Selector String name) {
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+        if (region == null) {
+            region = statistics.getQueryRegionStatistics(name);
+        }
+        // Actuator answers a null result with 404
+        return region != null ? describe(region) : null;
+    }
+
+    private static Map<String, Object> describe(CacheRegionStatistics region) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (region == null) {
+            return values;
+        }
+        long hits = region.getHitCount();
+        long misses = region.getMissCount();
+        values.put("hits", hits);
+        values.put("misses", misses);
+        values.put("puts", region.getPutCount());
+        values.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        values.put("elements", region.getElementCountInMemory());
+        return values;
+    }
+}
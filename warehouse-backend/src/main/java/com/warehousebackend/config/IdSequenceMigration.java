@@ -0,0 +1,105 @@
+package com.warehousebackend.config;
+
+/**
+ * @author MyDuyen
+ */
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.jpa.autoconfigure.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Moves the high-volume tables from IDENTITY columns to pooled sequences before Hibernate starts.
+ *
+ * Hibernate refuses to boot when a sequence's increment differs from the mapped allocationSize, so
+ * this runs ahead of the EntityManagerFactory. For each table the sequence is created (or its
+ * increment raised) and moved past both the highest existing id and its own last value, then the
+ * identity is dropped and the sequence becomes the column default, so plain SQL inserts still work.
+ * Every step is idempotent and each table is migrated in one transaction holding off writers.
+ */
+@Slf4j
+@Component
+public class IdSequenceMigration implements InitializingBean {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    // Table to the sequence named in its entity mapping
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCES.put("inventory_transactions", "inventory_transactions_ledger_id_seq");
+        SEQUENCES.put("order_items", "order_items_seq");
+        SEQUENCES.put("shipment_tracking", "shipment_tracking_seq");
+        SEQUENCES.put("attendance", "attendance_seq");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public IdSequenceMigration(DataSource dataSource) {
+        // JPA's transaction manager does not exist yet
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCES.forEach((table, sequence) -> transactionTemplate.executeWithoutResult(status -> migrate(table, sequence)));
+    }
+
+    private void migrate(String table, String sequence) {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " INCREMENT BY " + ALLOCATION_SIZE);
+        if (!tableExists(table)) {
+            // Hibernate creates the table on first start
+            return;
+        }
+
+        Integer increment = jdbcTemplate.queryForObject(
+                "SELECT increment_by::int FROM pg_sequences WHERE sequencename = ? AND schemaname = current_schema()",
+                Integer.class, sequence);
+        Map<String, Object> column = jdbcTemplate.queryForMap(
+                "SELECT is_identity, column_default FROM information_schema.columns " +
+                        "WHERE table_schema = current_schema() AND table_name = ? AND column_name = 'id'",
+                table);
+        boolean identity = "YES".equals(column.get("is_identity"));
+        boolean hasDefault = column.get("column_default") != null;
+        if (!identity && hasDefault && increment != null && increment == ALLOCATION_SIZE) {
+            return;
+        }
+
+        // Block inserts while ids move from the identity to the sequence
+        jdbcTemplate.execute("LOCK TABLE " + table + " IN SHARE ROW EXCLUSIVE MODE");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + ALLOCATION_SIZE);
+        // The next block Hibernate reserves starts right after this value
+        Long restart = jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', GREATEST(" +
+                "(SELECT COALESCE(MAX(id), 0) FROM " + table + "), (SELECT last_value FROM " + sequence + "), 1))", Long.class);
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id SET DEFAULT nextval('" + sequence + "')");
+        log.info("Migrated {}.id to pooled sequence {} (allocation {}, ids continue after {})",
+                table, sequence, ALLOCATION_SIZE, restart);
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(current_schema() || '.' || ?) IS NOT NULL", Boolean.class, table));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class EntityManagerFactoryDependency {
+
+        @Bean
+        static EntityManagerFactoryDependsOnPostProcessor idSequenceMigrationDependency() {
+            return new EntityManagerFactoryDependsOnPostProcessor(IdSequenceMigration.class);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.warehousebackend.config;
+
+/**
+ * @author MyDuyen
+ */
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live count of STOMP subscriptions per destination, anonymous sessions included, so publishers
+ * can skip building a payload nobody will receive. Pattern subscriptions such as
+ * {@code /topic/shipments/*} are matched the way the simple broker matches them.
+ */
+@Component
+public class TopicSubscriptions {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Map<String, Integer> counts = new ConcurrentHashMap<>();
+    private final Map<String, Integer> patternCounts = new ConcurrentHashMap<>();
+    // session id -> subscription id -> destination
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    public boolean hasSubscribers(String destination) {
+        if (counts.containsKey(destination)) {
+            return true;
+        }
+        for (String pattern : patternCounts.keySet()) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Destinations with at least one subscriber that start with the given prefix. Pattern
+     * subscriptions are not included.
+     */
+    public Set<String> destinationsStartingWith(String prefix) {
+        Set<String> result = new HashSet<>();
+        for (String destination : counts.keySet()) {
+            if (destination.startsWith(prefix)) {
+                result.add(destination);
+            }
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        String previous = sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), destination);
+        if (previous != null) {
+            decrement(previous);
+        }
+        countsFor(destination).merge(destination, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions != null && accessor.getSubscriptionId() != null) {
+            String destination = subscriptions.remove(accessor.getSubscriptionId());
+            if (destination != null) {
+                decrement(destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    private void decrement(String destination) {
+        countsFor(destination).computeIfPresent(destination,
+                (d, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Map<String, Integer> countsFor(String destination) {
+        return pathMatcher.isPattern(destination) ? patternCounts : counts;
+    }
+}
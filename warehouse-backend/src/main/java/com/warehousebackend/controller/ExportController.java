@@ -0,0 +1,84 @@
+package com.warehousebackend.controller;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+public class ExportController {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ExportService exportService;
+
+    @GetMapping("/inventory")
+    public ResponseEntity<StreamingResponseBody> exportInventory(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        return stream("inventory", exportFormat, gzip, out -> exportService.exportInventory(out, exportFormat));
+    }
+
+    @GetMapping("/orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        return stream("orders", exportFormat, gzip, out -> exportService.exportOrders(out, exportFormat));
+    }
+
+    @GetMapping("/inventory-transactions")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        LocalDateTime start = startDate != null ? startDate : BEGINNING;
+        LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
+        return stream("inventory-transactions", exportFormat, gzip,
+                out -> exportService.exportTransactions(out, exportFormat, start, end));
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, ExportService.Format format, boolean gzip,
+                                                         StreamingResponseBody body) {
+        String extension = format == ExportService.Format.CSV ? "csv" : "ndjson";
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : format == ExportService.Format.CSV
+                ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        StreamingResponseBody response = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                body.writeTo(compressed);
+                compressed.finish();
+            } else {
+                body.writeTo(out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + name + "." + extension + (gzip ? ".gz" : "") + "\"")
+                .contentType(contentType)
+                .body(response);
+    }
+}
@@ -0,0 +1,59 @@
+package com.warehousebackend.controller;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.service.ActiveShipmentView;
+import com.warehousebackend.service.GeoSearchService;
+import com.warehousebackend.service.VehicleLocator;
+import com.warehousebackend.util.SpatialGrid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/geo")
+@RequiredArgsConstructor
+public class GeoController {
+
+    private final GeoSearchService geoSearchService;
+
+    @GetMapping("/shipments/nearby")
+    public ResponseEntity<List<SpatialGrid.Hit<ActiveShipmentView.Position>>> getShipmentsNearby(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "5") double radiusKm) {
+        return ResponseEntity.ok(geoSearchService.shipmentsNear(latitude, longitude, radiusKm));
+    }
+
+    @GetMapping("/shipments/within")
+    public ResponseEntity<List<ActiveShipmentView.Position>> getShipmentsWithin(
+            @RequestParam double south,
+            @RequestParam double west,
+            @RequestParam double north,
+            @RequestParam double east) {
+        return ResponseEntity.ok(geoSearchService.shipmentsIn(south, west, north, east));
+    }
+
+    @GetMapping("/vehicles/nearby")
+    public ResponseEntity<List<SpatialGrid.Hit<VehicleLocator.Position>>> getVehiclesNearby(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @RequestParam(required = false) String status) {
+        return ResponseEntity.ok(geoSearchService.vehiclesNear(latitude, longitude, radiusKm, status));
+    }
+
+    @GetMapping("/vehicles/within")
+    public ResponseEntity<List<VehicleLocator.Position>> getVehiclesWithin(
+            @RequestParam double south,
+            @RequestParam double west,
+            @RequestParam double north,
+            @RequestParam double east,
+            @RequestParam(required = false) String status) {
+        return ResponseEntity.ok(geoSearchService.vehiclesIn(south, west, north, east, status));
+    }
+}
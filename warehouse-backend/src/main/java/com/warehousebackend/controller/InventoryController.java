@@ -4,17 +4,24 @@ package com.warehousebackend.controller;
  * @author MyDuyen
  */
 
+import com.warehousebackend.dto.common.CursorPageResponse;
 import com.warehousebackend.dto.inventory.*;
 import com.warehousebackend.service.InventoryService;
+import com.warehousebackend.service.InventorySnapshotService;
+import com.warehousebackend.service.LedgerPartitionService;
+import com.warehousebackend.service.StockReservationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -23,6 +30,9 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final StockReservationService stockReservationService;
+    private final LedgerPartitionService ledgerPartitionService;
+    private final InventorySnapshotService inventorySnapshotService;
 
     @GetMapping
     public ResponseEntity<Page<InventoryResponse>> getAllInventory(
@@ -33,6 +43,53 @@ public class InventoryController {
         return ResponseEntity.ok(inventory);
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponse<InventoryResponse>> getInventoryPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageResponse<InventoryResponse> inventory = inventoryService.getInventoryPage(after, size);
+        return ResponseEntity.ok(inventory);
+    }
+
+    @GetMapping("/transactions")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<CursorPageResponse<InventoryTransactionResponse>> getTransactionPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPageResponse<InventoryTransactionResponse> transactions = inventoryService.getTransactionPage(after, size);
+        return ResponseEntity.ok(transactions);
+    }
+
+    @GetMapping("/transactions/partitions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<String>> getLedgerPartitions() {
+        return ResponseEntity.ok(ledgerPartitionService.listPartitions());
+    }
+
+    @PostMapping("/transactions/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<String>> archiveLedgerPartitions(@RequestParam String before) {
+        List<String> archived = ledgerPartitionService.archivePartitionsBefore(YearMonth.parse(before));
+        return ResponseEntity.ok(archived);
+    }
+
+    @GetMapping("/warehouse/{warehouseId}/as-of")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<List<StockAsOfResponse>> getStockAsOf(
+            @PathVariable Long warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date,
+            @RequestParam(required = false) Long productId) {
+        List<StockAsOfResponse> stock = inventorySnapshotService.getStockAsOf(warehouseId, date, productId);
+        return ResponseEntity.ok(stock);
+    }
+
+    @PostMapping("/snapshots")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Integer> takeSnapshot(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cutoff) {
+        return ResponseEntity.ok(inventorySnapshotService.takeSnapshot(cutoff));
+    }
+
     @GetMapping("/warehouse/{warehouseId}")
     public ResponseEntity<List<InventoryResponse>> getInventoryByWarehouse(
             @PathVariable Long warehouseId) {
@@ -60,10 +117,47 @@ public class InventoryController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/stock-in/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'WAREHOUSE_STAFF')")
+    public ResponseEntity<List<InventoryResponse>> stockInBulk(@Valid @RequestBody BulkStockDTO dto) {
+        List<InventoryResponse> response = inventoryService.stockInBulk(dto);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/stock-out/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'WAREHOUSE_STAFF')")
+    public ResponseEntity<List<InventoryResponse>> stockOutBulk(@Valid @RequestBody BulkStockDTO dto) {
+        List<InventoryResponse> response = inventoryService.stockOutBulk(dto);
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/transfer")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<String> transferStock(@Valid @RequestBody StockTransferDTO dto) {
         inventoryService.transferStock(dto);
         return ResponseEntity.ok("Stock transferred successfully");
     }
-}
\ No newline at end of file
+
+    @PostMapping("/transfer/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<List<InventoryResponse>> transferStockBulk(@Valid @RequestBody BulkTransferDTO dto) {
+        List<InventoryResponse> response = inventoryService.transferStockBulk(dto);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/{id}/sharding")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<InventoryResponse> enableSharding(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "8") int shards) {
+        InventoryResponse response = stockReservationService.enableSharding(id, shards);
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/{id}/sharding")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<InventoryResponse> disableSharding(@PathVariable Long id) {
+        InventoryResponse response = stockReservationService.disableSharding(id);
+        return ResponseEntity.ok(response);
+    }
+}
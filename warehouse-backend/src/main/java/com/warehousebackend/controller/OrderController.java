@@ -4,6 +4,7 @@ package com.warehousebackend.controller;
  * @author MyDuyen
  */
 
+import com.warehousebackend.dto.common.CursorPageResponse;
 import com.warehousebackend.dto.order.*;
 import com.warehousebackend.entity.OrderStatus;
 import com.warehousebackend.service.OrderService;
@@ -50,6 +51,16 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponse<OrderResponse>> getOrderPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        OrderStatus orderStatus = status != null ? OrderStatus.valueOf(status) : null;
+        CursorPageResponse<OrderResponse> orders = orderService.getOrderPage(orderStatus, after, size);
+        return ResponseEntity.ok(orders);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
         OrderResponse response = orderService.getOrderById(id);
@@ -4,6 +4,7 @@ package com.warehousebackend.controller;
  * @author MyDuyen
  */
 
+import com.warehousebackend.dto.common.CursorPageResponse;
 import com.warehousebackend.dto.product.*;
 import com.warehousebackend.service.ProductService;
 import jakarta.validation.Valid;
@@ -33,6 +34,14 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponse<ProductResponse>> getProductPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageResponse<ProductResponse> products = productService.getProductPage(after, size);
+        return ResponseEntity.ok(products);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
         ProductResponse response = productService.getProductById(id);
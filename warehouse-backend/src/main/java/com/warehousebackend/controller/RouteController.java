@@ -0,0 +1,45 @@
+package com.warehousebackend.controller;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.route.DispatchPlanResponse;
+import com.warehousebackend.dto.route.RoutePlanRequest;
+import com.warehousebackend.dto.route.RouteResponse;
+import com.warehousebackend.service.DispatchPlanningService;
+import com.warehousebackend.service.RoutePlanningService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/routes")
+@RequiredArgsConstructor
+public class RouteController {
+
+    private final RoutePlanningService routePlanningService;
+    private final DispatchPlanningService dispatchPlanningService;
+
+    @PostMapping("/plan")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<RouteResponse> planRoute(@Valid @RequestBody RoutePlanRequest request) {
+        RouteResponse response = routePlanningService.planRoute(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/dispatch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<DispatchPlanResponse> planDispatch(@RequestParam Long warehouseId) {
+        DispatchPlanResponse response = dispatchPlanningService.planDispatch(warehouseId);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<RouteResponse> getRoute(@PathVariable Long id) {
+        RouteResponse response = routePlanningService.getRoute(id);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -5,9 +5,12 @@ package com.warehousebackend.controller;
  */
 
 import com.warehousebackend.dto.shipment.*;
+import com.warehousebackend.service.LocationIngestionService;
 import com.warehousebackend.service.ShipmentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -20,6 +23,7 @@ import java.util.List;
 public class ShipmentController {
 
     private final ShipmentService shipmentService;
+    private final LocationIngestionService locationIngestionService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
@@ -40,13 +44,33 @@ public class ShipmentController {
         return ResponseEntity.ok(shipments);
     }
 
+    @GetMapping("/delayed")
+    public ResponseEntity<List<DelayedShipmentEvent>> getDelayedShipments() {
+        return ResponseEntity.ok(shipmentService.getDelayedShipments());
+    }
+
+    // Pings are queued and written in batches, so the body is the shipment as it stood when the ping
+    // was accepted; subscribers of /topic/shipments/{id} see the result
     @PatchMapping("/{id}/location")
     @PreAuthorize("hasAnyRole('DRIVER', 'ADMIN')")
     public ResponseEntity<ShipmentResponse> updateLocation(
             @PathVariable Long id,
             @Valid @RequestBody LocationUpdateDTO dto) {
-        ShipmentResponse response = shipmentService.updateLocation(id, dto);
-        return ResponseEntity.ok(response);
+        ShipmentResponse response = locationIngestionService.submit(id, dto);
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @PostMapping("/locations")
+    @PreAuthorize("hasAnyRole('DRIVER', 'ADMIN')")
+    public ResponseEntity<LocationIngestionService.IngestResult> updateLocations(
+            @RequestBody List<@Valid LocationPingDTO> pings) {
+        LocationIngestionService.IngestResult result = locationIngestionService.submitAll(pings);
+        if (result.rejected() > 0) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(result);
+        }
+        return ResponseEntity.accepted().body(result);
     }
 
     @PatchMapping("/{id}/status")
@@ -0,0 +1,79 @@
+package com.warehousebackend.controller;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.shipment.LocationUpdateDTO;
+import com.warehousebackend.exception.ErrorResponse;
+import com.warehousebackend.exception.ResourceNotFoundException;
+import com.warehousebackend.exception.ServiceBusyException;
+import com.warehousebackend.exception.UnauthorizedException;
+import com.warehousebackend.service.LocationIngestionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.support.MethodArgumentNotValidException;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * STOMP counterpart of {@code PATCH /api/shipments/{id}/location} for drivers that keep a socket
+ * open: {@code SEND /app/shipments/{id}/location}. The session was authenticated on CONNECT, so a
+ * ping costs a role check and a queue offer. Nothing is sent back on success; failures go to the
+ * sender's {@code /user/queue/errors}.
+ */
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class ShipmentLocationSocketController {
+
+    private static final Set<String> ALLOWED_ROLES = Set.of("ROLE_DRIVER", "ROLE_ADMIN");
+
+    private final LocationIngestionService locationIngestionService;
+
+    @MessageMapping("/shipments/{id}/location")
+    public void updateLocation(@DestinationVariable Long id,
+                               @Valid @Payload LocationUpdateDTO dto,
+                               Principal principal) {
+        if (!(principal instanceof Authentication authentication) || authentication.getAuthorities().stream()
+                .noneMatch(authority -> ALLOWED_ROLES.contains(authority.getAuthority()))) {
+            throw new UnauthorizedException("Only drivers can send location updates");
+        }
+        locationIngestionService.submit(id, dto);
+    }
+
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public ErrorResponse handleException(Exception ex) {
+        HttpStatus status;
+        if (ex instanceof ResourceNotFoundException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (ex instanceof ServiceBusyException) {
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+        } else if (ex instanceof UnauthorizedException) {
+            status = HttpStatus.FORBIDDEN;
+        } else if (ex instanceof MethodArgumentNotValidException) {
+            status = HttpStatus.BAD_REQUEST;
+        } else {
+            log.error("Unexpected error handling STOMP location update", ex);
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        return ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(status == HttpStatus.INTERNAL_SERVER_ERROR ? "An unexpected error occurred" : ex.getMessage())
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.warehousebackend.dto.common;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (seek) listing. {@code nextCursor} is an opaque token built from the sort
+ * key and id of the last row; pass it back as {@code after} to get the following page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private List<T> content;
+    private Integer size;
+    private Boolean hasNext;
+    private String nextCursor;
+
+    public static <E, T> CursorPageResponse<T> from(Slice<E> slice, Function<E, T> mapper,
+                                                    Function<E, String> cursor) {
+        List<E> rows = slice.getContent();
+        String next = slice.hasNext() && !rows.isEmpty() ? cursor.apply(rows.get(rows.size() - 1)) : null;
+        return CursorPageResponse.<T>builder()
+                .content(rows.stream().map(mapper).toList())
+                .size(rows.size())
+                .hasNext(slice.hasNext())
+                .nextCursor(next)
+                .build();
+    }
+
+    /**
+     * First-page request for a keyset listing, rejecting sizes outside 1..{@value #MAX_PAGE_SIZE}.
+     */
+    public static PageRequest pageRequest(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BusinessException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return PageRequest.of(0, size);
+    }
+
+    public static String encodeCursor(Object... parts) {
+        StringBuilder raw = new StringBuilder();
+        for (Object part : parts) {
+            if (!raw.isEmpty()) raw.append('|');
+            raw.append(part);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long cursorLong(String part) {
+        try {
+            return Long.valueOf(part);
+        } catch (NumberFormatException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+
+    public static LocalDateTime cursorDateTime(String part) {
+        try {
+            return LocalDateTime.parse(part);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+
+    public static String[] decodeCursor(String cursor, int expectedParts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != expectedParts) {
+                throw new BusinessException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+}
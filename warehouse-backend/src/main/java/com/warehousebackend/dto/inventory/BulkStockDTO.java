@@ -0,0 +1,18 @@
+package com.warehousebackend.dto.inventory;
+
+/**
+ * @author MyDuyen
+ */
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkStockDTO {
+    @NotEmpty(message = "Bulk request must have at least one line")
+    @Valid
+    private List<StockDTO> items;
+}
@@ -0,0 +1,42 @@
+package com.warehousebackend.dto.inventory;
+
+/**
+ * @author MyDuyen
+ */
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+public class BulkTransferDTO {
+    @NotNull(message = "From warehouse ID is required")
+    private Long fromWarehouseId;
+
+    @NotNull(message = "To warehouse ID is required")
+    private Long toWarehouseId;
+
+    @NotEmpty(message = "Transfer must have at least one line")
+    @Valid
+    private List<TransferLine> items;
+
+    private String notes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TransferLine {
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+
+        @NotNull(message = "Quantity is required")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        private Integer quantity;
+    }
+}
@@ -5,6 +5,8 @@ package com.warehousebackend.dto.inventory;
  */
 
 import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -34,16 +36,23 @@ public class InventoryResponse {
     private LocalDateTime lastUpdated;
 
     public static InventoryResponse from(Inventory inventory) {
+        return from(inventory, inventory.getProduct(), inventory.getWarehouse());
+    }
+
+    // Product and warehouse passed separately so cached copies can stand in for lazy proxies
+    public static InventoryResponse from(Inventory inventory, Product product, Warehouse warehouse) {
+        // Sharded rows hold free escrow units as reserved; report them as available again
+        int escrowAvailable = inventory.getEscrowAvailableQuantity();
         return InventoryResponse.builder()
                 .id(inventory.getId())
-                .productId(inventory.getProduct().getId())
-                .productName(inventory.getProduct().getName())
-                .productSku(inventory.getProduct().getSku())
-                .warehouseId(inventory.getWarehouse().getId())
-                .warehouseName(inventory.getWarehouse().getName())
+                .productId(product.getId())
+                .productName(product.getName())
+                .productSku(product.getSku())
+                .warehouseId(warehouse.getId())
+                .warehouseName(warehouse.getName())
                 .quantity(inventory.getQuantity())
-                .reservedQuantity(inventory.getReservedQuantity())
-                .availableQuantity(inventory.getAvailableQuantity())
+                .reservedQuantity(inventory.getReservedQuantity() - escrowAvailable)
+                .availableQuantity(inventory.getAvailableQuantity() + escrowAvailable)
                 .minThreshold(inventory.getMinThreshold())
                 .maxThreshold(inventory.getMaxThreshold())
                 .location(inventory.getLocation())
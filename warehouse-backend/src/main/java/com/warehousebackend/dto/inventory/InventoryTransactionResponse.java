@@ -0,0 +1,51 @@
+package com.warehousebackend.dto.inventory;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.InventoryTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryTransactionResponse {
+    private Long id;
+    private Long inventoryId;
+    private Long productId;
+    private String productSku;
+    private Long warehouseId;
+    private String type;
+    private Integer quantity;
+    private Integer beforeQuantity;
+    private Integer afterQuantity;
+    private String referenceNumber;
+    private String referenceType;
+    private String notes;
+    private LocalDateTime transactionDate;
+
+    public static InventoryTransactionResponse from(InventoryTransaction transaction) {
+        return InventoryTransactionResponse.builder()
+                .id(transaction.getId())
+                .inventoryId(transaction.getInventory().getId())
+                .productId(transaction.getInventory().getProduct().getId())
+                .productSku(transaction.getInventory().getProduct().getSku())
+                .warehouseId(transaction.getInventory().getWarehouse().getId())
+                .type(transaction.getType().name())
+                .quantity(transaction.getQuantity())
+                .beforeQuantity(transaction.getBeforeQuantity())
+                .afterQuantity(transaction.getAfterQuantity())
+                .referenceNumber(transaction.getReferenceNumber())
+                .referenceType(transaction.getReferenceType())
+                .notes(transaction.getNotes())
+                .transactionDate(transaction.getTransactionDate())
+                .build();
+    }
+}
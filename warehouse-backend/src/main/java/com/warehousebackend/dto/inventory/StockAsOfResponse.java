@@ -0,0 +1,42 @@
+package com.warehousebackend.dto.inventory;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.Inventory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfResponse {
+    private Long inventoryId;
+    private Long productId;
+    private String productName;
+    private String productSku;
+    private Long warehouseId;
+    private Integer quantity;
+    private LocalDateTime asOf;
+    private LocalDateTime snapshotDate;
+
+    public static StockAsOfResponse from(Inventory inventory, Integer quantity,
+                                         LocalDateTime asOf, LocalDateTime snapshotDate) {
+        return StockAsOfResponse.builder()
+                .inventoryId(inventory.getId())
+                .productId(inventory.getProduct().getId())
+                .productName(inventory.getProduct().getName())
+                .productSku(inventory.getProduct().getSku())
+                .warehouseId(inventory.getWarehouse().getId())
+                .quantity(quantity)
+                .asOf(asOf)
+                .snapshotDate(snapshotDate)
+                .build();
+    }
+}
@@ -5,6 +5,7 @@ package com.warehousebackend.dto.order;
  */
 
 import com.warehousebackend.entity.OrderItem;
+import com.warehousebackend.entity.Product;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,11 +28,16 @@ public class OrderItemResponse {
     private BigDecimal subtotal;
 
     public static OrderItemResponse from(OrderItem item) {
+        return from(item, item.getProduct());
+    }
+
+    // Product passed separately so a cached copy can stand in for a lazy proxy
+    public static OrderItemResponse from(OrderItem item, Product product) {
         return OrderItemResponse.builder()
                 .id(item.getId())
-                .productId(item.getProduct().getId())
-                .productName(item.getProduct().getName())
-                .productSku(item.getProduct().getSku())
+                .productId(product.getId())
+                .productName(product.getName())
+                .productSku(product.getSku())
                 .quantity(item.getQuantity())
                 .price(item.getPrice())
                 .discount(item.getDiscount())
@@ -0,0 +1,26 @@
+package com.warehousebackend.dto.order;
+
+/**
+ * @author MyDuyen
+ */
+
+import java.math.BigDecimal;
+
+/**
+ * One order line for listings, keyed by its order so a whole page of lines can be fetched at once.
+ */
+public record OrderLineSummary(
+        Long orderId,
+        Long id,
+        Long productId,
+        String productName,
+        String productSku,
+        Integer quantity,
+        BigDecimal price,
+        BigDecimal discount,
+        BigDecimal subtotal) {
+
+    public OrderItemResponse toResponse() {
+        return new OrderItemResponse(id, productId, productName, productSku, quantity, price, discount, subtotal);
+    }
+}
@@ -0,0 +1,11 @@
+package com.warehousebackend.dto.order;
+
+/**
+ * @author MyDuyen
+ */
+
+/**
+ * What an order weighs in kg and takes up in m3, summed over its lines.
+ */
+public record OrderLoad(Long orderId, Double weight, Double volume) {
+}
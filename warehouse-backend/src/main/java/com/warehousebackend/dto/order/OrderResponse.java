@@ -44,10 +44,17 @@ public class OrderResponse {
     private ShipmentSummary shipment;
 
     public static OrderResponse from(Order order) {
+        return from(order, order.getWarehouse(), order.getItems().stream()
+                .map(OrderItemResponse::from)
+                .collect(Collectors.toList()));
+    }
+
+    // Warehouse and lines passed separately so cached copies can stand in for lazy proxies
+    public static OrderResponse from(Order order, Warehouse warehouse, List<OrderItemResponse> items) {
         return OrderResponse.builder()
                 .id(order.getId())
                 .orderNumber(order.getOrderNumber())
-                .warehouseName(order.getWarehouse().getName())
+                .warehouseName(warehouse.getName())
                 .status(order.getStatus().name())
                 .customerName(order.getCustomerName())
                 .customerEmail(order.getCustomerEmail())
@@ -64,11 +71,43 @@ public class OrderResponse {
                 .orderDate(order.getOrderDate())
                 .expectedDeliveryDate(order.getExpectedDeliveryDate())
                 .actualDeliveryDate(order.getActualDeliveryDate())
-                .items(order.getItems().stream()
-                        .map(OrderItemResponse::from)
-                        .collect(Collectors.toList()))
+                .items(items)
                 .shipment(order.getShipment() != null ?
                         ShipmentSummary.from(order.getShipment()) : null)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Listing variant built from projections, so nothing here can trigger a lazy load.
+     */
+    public static OrderResponse from(OrderSummary order, List<OrderItemResponse> items) {
+        return OrderResponse.builder()
+                .id(order.id())
+                .orderNumber(order.orderNumber())
+                .warehouseName(order.warehouseName())
+                .status(order.status().name())
+                .customerName(order.customerName())
+                .customerEmail(order.customerEmail())
+                .customerPhone(order.customerPhone())
+                .shippingAddress(order.shippingAddress())
+                .subtotal(order.subtotal())
+                .shippingFee(order.shippingFee())
+                .discount(order.discount())
+                .tax(order.tax())
+                .totalAmount(order.totalAmount())
+                .paymentMethod(order.paymentMethod())
+                .paymentStatus(order.paymentStatus())
+                .totalItems(items.stream().mapToInt(OrderItemResponse::getQuantity).sum())
+                .orderDate(order.orderDate())
+                .expectedDeliveryDate(order.expectedDeliveryDate())
+                .actualDeliveryDate(order.actualDeliveryDate())
+                .items(items)
+                .shipment(order.shipmentId() != null ? ShipmentSummary.builder()
+                        .id(order.shipmentId())
+                        .trackingNumber(order.trackingNumber())
+                        .status(order.shipmentStatus().name())
+                        .estimatedDeliveryTime(order.estimatedDeliveryTime())
+                        .build() : null)
+                .build();
+    }
+}
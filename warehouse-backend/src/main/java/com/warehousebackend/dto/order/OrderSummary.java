@@ -0,0 +1,40 @@
+package com.warehousebackend.dto.order;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.OrderStatus;
+import com.warehousebackend.entity.ShipmentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One order row for listings, with its warehouse name and shipment columns already joined in.
+ * The shipment columns are null when the order has no shipment yet.
+ */
+public record OrderSummary(
+        Long id,
+        String orderNumber,
+        String warehouseName,
+        OrderStatus status,
+        String customerName,
+        String customerEmail,
+        String customerPhone,
+        String shippingAddress,
+        BigDecimal subtotal,
+        BigDecimal shippingFee,
+        BigDecimal discount,
+        BigDecimal tax,
+        BigDecimal totalAmount,
+        String paymentMethod,
+        String paymentStatus,
+        LocalDateTime orderDate,
+        LocalDateTime expectedDeliveryDate,
+        LocalDateTime actualDeliveryDate,
+        Long shipmentId,
+        String trackingNumber,
+        ShipmentStatus shipmentStatus,
+        LocalDateTime estimatedDeliveryTime) {
+}
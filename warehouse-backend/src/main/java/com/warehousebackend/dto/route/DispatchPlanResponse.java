@@ -0,0 +1,27 @@
+package com.warehousebackend.dto.route;
+
+/**
+ * @author MyDuyen
+ */
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchPlanResponse {
+    private Long warehouseId;
+    private Integer vehicleCount;
+    private Integer shipmentCount;
+    private Double totalDistance;
+    private Long planningMillis;
+    private List<RouteResponse> routes;
+    // Orders left PROCESSING: no vehicle had room for them, or they have no shipping coordinates
+    private List<Long> unassignedOrderIds;
+}
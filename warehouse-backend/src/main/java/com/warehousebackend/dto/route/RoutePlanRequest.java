@@ -0,0 +1,26 @@
+package com.warehousebackend.dto.route;
+
+/**
+ * @author MyDuyen
+ */
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class RoutePlanRequest {
+    @NotNull(message = "Warehouse ID is required")
+    private Long warehouseId;
+
+    @NotEmpty(message = "At least one order is required")
+    private List<Long> orderIds;
+
+    @Pattern(regexp = "SHORTEST|FASTEST|BALANCED", message = "Optimization type must be SHORTEST, FASTEST or BALANCED")
+    private String optimizationType;
+
+    private String name;
+}
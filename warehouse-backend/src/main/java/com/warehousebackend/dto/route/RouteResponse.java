@@ -0,0 +1,48 @@
+package com.warehousebackend.dto.route;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.DeliveryRoute;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteResponse {
+    private Long id;
+    private String routeNumber;
+    private String name;
+    private Long warehouseId;
+    private String warehouseName;
+    private Double totalDistance;
+    private Integer estimatedDuration;
+    private String optimizationType;
+    private String status;
+    private LocalDateTime createdAt;
+    private List<RouteStopResponse> stops;
+
+    public static RouteResponse from(DeliveryRoute route) {
+        return RouteResponse.builder()
+                .id(route.getId())
+                .routeNumber(route.getRouteNumber())
+                .name(route.getName())
+                .warehouseId(route.getStartWarehouse().getId())
+                .warehouseName(route.getStartWarehouse().getName())
+                .totalDistance(route.getTotalDistance())
+                .estimatedDuration(route.getEstimatedDuration())
+                .optimizationType(route.getOptimizationType())
+                .status(route.getStatus())
+                .createdAt(route.getCreatedAt())
+                .stops(route.getStops().stream().map(RouteStopResponse::from).toList())
+                .build();
+    }
+}
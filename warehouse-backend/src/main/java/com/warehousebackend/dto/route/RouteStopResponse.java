@@ -0,0 +1,41 @@
+package com.warehousebackend.dto.route;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.RouteStop;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteStopResponse {
+    private Long id;
+    private Integer stopOrder;
+    private Long orderId;
+    private String orderNumber;
+    private String address;
+    private Double latitude;
+    private Double longitude;
+    private Integer estimatedArrivalMinutes;
+    private Integer serviceTime;
+
+    public static RouteStopResponse from(RouteStop stop) {
+        return RouteStopResponse.builder()
+                .id(stop.getId())
+                .stopOrder(stop.getStopOrder())
+                .orderId(stop.getOrder() != null ? stop.getOrder().getId() : null)
+                .orderNumber(stop.getOrder() != null ? stop.getOrder().getOrderNumber() : null)
+                .address(stop.getAddress())
+                .latitude(stop.getLatitude())
+                .longitude(stop.getLongitude())
+                .estimatedArrivalMinutes(stop.getEstimatedArrivalMinutes())
+                .serviceTime(stop.getServiceTime())
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.warehousebackend.dto.shipment;
+
+/**
+ * @author MyDuyen
+ */
+
+import java.time.LocalDateTime;
+
+/**
+ * Pushed to {@code /topic/shipments/delayed} when a shipment passes its estimated delivery time
+ * without being delivered. {@code delayedCount} is the fleet-wide count after this one.
+ */
+public record DelayedShipmentEvent(Long shipmentId, String trackingNumber, LocalDateTime estimatedDeliveryTime,
+                                   LocalDateTime detectedAt, int delayedCount) {
+}
@@ -0,0 +1,15 @@
+package com.warehousebackend.dto.shipment;
+
+/**
+ * @author MyDuyen
+ */
+
+import java.util.List;
+
+/**
+ * One {@code /topic/fleet} frame. Each position is a tuple
+ * {@code [shipmentId, vehiclePlate, lat, lng, speed, status]}, with coordinates rounded to 5
+ * decimals (about a metre) and speed to 1; field names are not repeated per shipment.
+ */
+public record FleetFrame(long ts, List<Object[]> positions) {
+}
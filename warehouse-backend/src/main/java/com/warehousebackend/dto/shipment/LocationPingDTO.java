@@ -0,0 +1,19 @@
+package com.warehousebackend.dto.shipment;
+
+/**
+ * @author MyDuyen
+ */
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * One GPS ping in a bulk upload, e.g. from a telematics gateway forwarding a whole fleet.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class LocationPingDTO extends LocationUpdateDTO {
+    @NotNull(message = "Shipment ID is required")
+    private Long shipmentId;
+}
@@ -0,0 +1,44 @@
+package com.warehousebackend.dto.shipment;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Frame pushed to {@code /topic/shipments/{id}}. Only what changed since the previous frame for the
+ * shipment is set; subscribers load the full shipment once over REST and apply these on top.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ShipmentPositionDelta(Long id, Double lat, Double lng, Double speed, String status, long ts) {
+
+    /**
+     * Combine a pending frame with a newer one: newer values win, older ones fill the gaps.
+     */
+    public ShipmentPositionDelta merge(ShipmentPositionDelta newer) {
+        return new ShipmentPositionDelta(id,
+                newer.lat != null ? newer.lat : lat,
+                newer.lng != null ? newer.lng : lng,
+                newer.speed != null ? newer.speed : speed,
+                newer.status != null ? newer.status : status,
+                newer.ts);
+    }
+
+    /**
+     * This frame without the fields that already have the given values on the client.
+     */
+    public ShipmentPositionDelta since(ShipmentPositionDelta sent) {
+        boolean moved = lat != null && lng != null && (!lat.equals(sent.lat) || !lng.equals(sent.lng));
+        return new ShipmentPositionDelta(id,
+                moved ? lat : null,
+                moved ? lng : null,
+                speed != null && !speed.equals(sent.speed) ? speed : null,
+                status != null && !status.equals(sent.status) ? status : null,
+                ts);
+    }
+
+    public boolean isEmpty() {
+        return lat == null && lng == null && speed == null && status == null;
+    }
+}
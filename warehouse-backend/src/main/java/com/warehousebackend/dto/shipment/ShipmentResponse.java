@@ -22,6 +22,7 @@ public class ShipmentResponse {
     private Long orderId;
     private String orderNumber;
     private String status;
+    private Long vehicleId;
     private String vehicleLicensePlate;
     private String driverName;
     private Double currentLatitude;
@@ -32,16 +33,20 @@ public class ShipmentResponse {
     private LocalDateTime pickupTime;
     private LocalDateTime estimatedDeliveryTime;
     private LocalDateTime actualDeliveryTime;
+    private LocalDateTime predictedArrivalTime;
     private Boolean isDelayed;
     private Long delayMinutes;
+    private Long version;
 
     public static ShipmentResponse from(Shipment shipment) {
+        LocalDateTime now = LocalDateTime.now();
         return ShipmentResponse.builder()
                 .id(shipment.getId())
                 .trackingNumber(shipment.getTrackingNumber())
                 .orderId(shipment.getOrder().getId())
                 .orderNumber(shipment.getOrder().getOrderNumber())
                 .status(shipment.getStatus().name())
+                .vehicleId(shipment.getVehicle() != null ? shipment.getVehicle().getId() : null)
                 .vehicleLicensePlate(shipment.getVehicle() != null ?
                         shipment.getVehicle().getLicensePlate() : null)
                 .driverName(shipment.getDriver() != null ?
@@ -54,8 +59,10 @@ public class ShipmentResponse {
                 .pickupTime(shipment.getPickupTime())
                 .estimatedDeliveryTime(shipment.getEstimatedDeliveryTime())
                 .actualDeliveryTime(shipment.getActualDeliveryTime())
-                .isDelayed(shipment.isDelayed())
-                .delayMinutes(shipment.getDelayMinutes())
+                .predictedArrivalTime(shipment.getPredictedArrivalTime())
+                .isDelayed(shipment.isDelayed(now))
+                .delayMinutes(shipment.getDelayMinutes(now))
+                .version(shipment.getVersion())
                 .build();
     }
 }
\ No newline at end of file
@@ -56,6 +56,7 @@ public class DeliveryRoute {
     private List<Shipment> shipments = new ArrayList<>();
 
     @OneToMany(mappedBy = "route", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @OrderBy("stopOrder ASC")
     @JsonIgnore
     private List<RouteStop> stops = new ArrayList<>();
 
@@ -7,7 +7,10 @@ package com.warehousebackend.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Entity
 @Table(name = "inventory",
@@ -61,6 +64,18 @@ public class Inventory {
     @Column(name = "last_stock_out")
     private LocalDateTime lastStockOut;
 
+    @Column(name = "sharded")
+    private Boolean sharded; // Chia nhỏ tồn kho thành nhiều shard cho SKU nóng
+
+    @OneToMany(mappedBy = "inventory", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @JsonIgnore
+    private List<InventoryShard> shards;
+
+    // Bumped by every write, including the conditional bulk updates in InventoryRepository
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @Column(name = "last_updated", nullable = false)
     private LocalDateTime lastUpdated;
 
@@ -69,6 +84,9 @@ public class Inventory {
 
     @PrePersist
     protected void onCreate() {
+        if (sharded == null) {
+            sharded = false;
+        }
         createdAt = LocalDateTime.now();
         lastUpdated = LocalDateTime.now();
     }
@@ -83,6 +101,18 @@ public class Inventory {
         return quantity - reservedQuantity;
     }
 
+    public Boolean isShardedStock() {
+        return Boolean.TRUE.equals(sharded);
+    }
+
+    // Free units parked in escrow shards; they are counted in reservedQuantity until reserved or reclaimed
+    public Integer getEscrowAvailableQuantity() {
+        if (!isShardedStock() || shards == null) return 0;
+        return shards.stream()
+                .mapToInt(InventoryShard::getAvailableQuantity)
+                .sum();
+    }
+
     public Boolean isLowStock() {
         return quantity < minThreshold;
     }
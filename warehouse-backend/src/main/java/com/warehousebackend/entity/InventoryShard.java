@@ -0,0 +1,54 @@
+package com.warehousebackend.entity;
+
+/**
+ * @author MyDuyen
+ */
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Escrow sub-counter of a hot inventory row. Units held here are counted as reserved on the
+ * parent row, so reservations only touch one shard instead of serialising on the parent.
+ */
+@Entity
+@Table(name = "inventory_shards",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"inventory_id", "shard_index"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_id", nullable = false)
+    private Inventory inventory;
+
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @Column(nullable = false)
+    private Integer quantity; // Số lượng được tạm giữ cho shard
+
+    @Column(nullable = false)
+    private Integer reservedQuantity; // Số lượng đã đặt từ shard
+
+    @PrePersist
+    protected void onCreate() {
+        if (quantity == null) {
+            quantity = 0;
+        }
+        if (reservedQuantity == null) {
+            reservedQuantity = 0;
+        }
+    }
+
+    // Helper methods
+    public Integer getAvailableQuantity() {
+        return quantity - reservedQuantity;
+    }
+}
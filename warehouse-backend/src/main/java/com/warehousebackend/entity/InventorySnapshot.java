@@ -0,0 +1,47 @@
+package com.warehousebackend.entity;
+
+/**
+ * @author MyDuyen
+ */
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * On-hand quantity of one inventory row at a snapshot cutoff. Point-in-time queries start from
+ * the nearest snapshot and replay only the ledger rows after it.
+ */
+@Entity
+@Table(name = "inventory_snapshots",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"inventory_id", "snapshot_date"}),
+        indexes = @Index(name = "idx_snapshot_warehouse_date", columnList = "warehouse_id, snapshot_date"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventorySnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_id", nullable = false)
+    private Inventory inventory;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "warehouse_id", nullable = false)
+    private Warehouse warehouse;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Column(nullable = false)
+    private Integer quantity; // Tồn kho tại thời điểm chốt
+
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDateTime snapshotDate;
+}
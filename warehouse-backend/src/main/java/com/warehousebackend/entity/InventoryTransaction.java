@@ -10,18 +10,18 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "inventory_transactions", indexes = {
-        @Index(name = "idx_transaction_date", columnList = "transactionDate"),
-        @Index(name = "idx_inventory_type", columnList = "inventory_id, type")
-})
+// Monthly range partitions on transaction_date; partitions and indexes are managed by LedgerPartitionService
+@Table(name = "inventory_transactions")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class InventoryTransaction {
 
+    // Same sequence as the partitioned table default; its increment must equal allocationSize (see IdSequenceMigration)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_id_seq")
+    @SequenceGenerator(name = "ledger_id_seq", sequenceName = "inventory_transactions_ledger_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -17,6 +17,7 @@ import java.util.List;
 @Table(name = "orders", indexes = {
         @Index(name = "idx_order_number", columnList = "orderNumber"),
         @Index(name = "idx_order_date", columnList = "orderDate"),
+        @Index(name = "idx_order_date_id", columnList = "order_date, id"),
         @Index(name = "idx_order_status", columnList = "status")
 })
 @Data
@@ -25,6 +25,10 @@ public class RouteStop {
     @JoinColumn(name = "route_id", nullable = false)
     private DeliveryRoute route;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    private Order order;
+
     @Column(nullable = false)
     private Integer stopOrder;
 
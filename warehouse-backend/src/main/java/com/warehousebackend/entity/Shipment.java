@@ -72,6 +72,9 @@ public class Shipment {
     @Column(name = "actual_delivery_time")
     private LocalDateTime actualDeliveryTime;
 
+    @Column(name = "predicted_arrival_time")
+    private LocalDateTime predictedArrivalTime; // live ETA from the GPS pings
+
     @Column(columnDefinition = "TEXT")
     private String deliveryNotes;
 
@@ -88,6 +91,11 @@ public class Shipment {
     @JsonIgnore
     private List<ShipmentTracking> trackingHistory = new ArrayList<>();
 
+    // Bumped by every write, including the position batch in LocationIngestionService
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -106,14 +114,18 @@ public class Shipment {
     }
 
     // Helper methods
-    public Boolean isDelayed() {
-        if (estimatedDeliveryTime == null) return false;
-        return LocalDateTime.now().isAfter(estimatedDeliveryTime)
-                && status != ShipmentStatus.DELIVERED;
+    // Delayed means still not delivered after the estimated delivery time, the rule
+    // DelayedShipmentDetector fires on; a live ETA past it is a prediction, reported on its own
+    public Boolean isDelayed(LocalDateTime now) {
+        return isPastDue(estimatedDeliveryTime, now) && status != ShipmentStatus.DELIVERED;
+    }
+
+    public Long getDelayMinutes(LocalDateTime now) {
+        if (!isDelayed(now)) return 0L;
+        return java.time.Duration.between(estimatedDeliveryTime, now).toMinutes();
     }
 
-    public Long getDelayMinutes() {
-        if (!isDelayed()) return 0L;
-        return java.time.Duration.between(estimatedDeliveryTime, LocalDateTime.now()).toMinutes();
+    public static boolean isPastDue(LocalDateTime estimatedDeliveryTime, LocalDateTime now) {
+        return estimatedDeliveryTime != null && now.isAfter(estimatedDeliveryTime);
     }
 }
\ No newline at end of file
@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class ShipmentTracking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shipment_tracking_seq")
+    @SequenceGenerator(name = "shipment_tracking_seq", sequenceName = "shipment_tracking_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -48,6 +49,9 @@ public class ShipmentTracking {
 
     @PrePersist
     protected void onCreate() {
-        timestamp = LocalDateTime.now();
+        // Batched pings carry the time they were received
+        if (timestamp == null) {
+            timestamp = LocalDateTime.now();
+        }
     }
 }
\ No newline at end of file
@@ -4,8 +4,11 @@ package com.warehousebackend.entity;
  * @author MyDuyen
  */
 
+import com.warehousebackend.config.CatalogCacheConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.LocalDateTime;
@@ -13,6 +16,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogCacheConfig.SUPPLIER_REGION)
 @Table(name = "suppliers")
 @Data
 @NoArgsConstructor
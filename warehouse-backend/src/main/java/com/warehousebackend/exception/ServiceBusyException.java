@@ -0,0 +1,23 @@
+package com.warehousebackend.exception;
+
+/**
+ * @author MyDuyen
+ */
+
+/**
+ * The request was well-formed but the server cannot take more work right now; clients should
+ * retry after {@link #getRetryAfterSeconds()}.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
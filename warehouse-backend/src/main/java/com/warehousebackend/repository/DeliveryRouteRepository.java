@@ -8,9 +8,11 @@ import com.warehousebackend.entity.DeliveryRoute;
 import com.warehousebackend.entity.Warehouse;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DeliveryRouteRepository extends JpaRepository<DeliveryRoute, Long> {
@@ -19,4 +21,8 @@ public interface DeliveryRouteRepository extends JpaRepository<DeliveryRoute, Lo
 
     @Query("SELECT dr FROM DeliveryRoute dr WHERE dr.status = 'ACTIVE' ORDER BY dr.totalDistance ASC")
     List<DeliveryRoute> findActiveRoutesByDistance();
+
+    @Query("SELECT DISTINCT dr FROM DeliveryRoute dr JOIN FETCH dr.startWarehouse " +
+            "LEFT JOIN FETCH dr.stops s LEFT JOIN FETCH s.order WHERE dr.id = :id")
+    Optional<DeliveryRoute> findWithStopsById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -3,23 +3,136 @@ package com.warehousebackend.repository;
 import com.warehousebackend.entity.Inventory;
 import com.warehousebackend.entity.Product;
 import com.warehousebackend.entity.Warehouse;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @author MyDuyen
  */
 
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, InventoryRepositoryCustom {
     Optional<Inventory> findByProductAndWarehouse(Product product, Warehouse warehouse);
     List<Inventory> findByWarehouse(Warehouse warehouse);
     List<Inventory> findByProduct(Product product);
 
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.product JOIN FETCH i.warehouse " +
+            "WHERE i.warehouse.id IN :warehouseIds AND i.product.id IN :productIds")
+    List<Inventory> findByWarehouseIdsAndProductIds(@Param("warehouseIds") Collection<Long> warehouseIds,
+                                                    @Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.product JOIN FETCH i.warehouse WHERE i.warehouse.id = :warehouseId")
+    List<Inventory> findByWarehouseIdWithProduct(@Param("warehouseId") Long warehouseId);
+
+    List<Inventory> findBySharded(Boolean sharded);
+
+    // Flat rows through a server-side cursor; nothing is attached to the persistence context
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i.id, p.id, p.sku, p.name, w.id, w.name, i.quantity, i.reservedQuantity, i.minThreshold, " +
+            "i.maxThreshold, i.location, i.batchNumber, i.lastUpdated " +
+            "FROM Inventory i JOIN i.product p JOIN i.warehouse w ORDER BY i.id")
+    Stream<Object[]> streamForExport();
+
+    @Query("SELECT i.product.id FROM Inventory i WHERE i.warehouse.id = :warehouseId AND i.product.id IN :productIds")
+    List<Long> findProductIdsInWarehouse(@Param("warehouseId") Long warehouseId,
+                                         @Param("productIds") Collection<Long> productIds);
+
+    // Rows are locked in (warehouse, product) order, so multi-row writers can never wait on each other in a cycle.
+    // No fetch joins: callers resolve product and warehouse data from ReferenceDataCache
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.warehouse.id IN :warehouseIds AND i.product.id IN :productIds " +
+            "ORDER BY i.warehouse.id, i.product.id")
+    List<Inventory> lockByWarehouseIdsAndProductIds(@Param("warehouseIds") Collection<Long> warehouseIds,
+                                                    @Param("productIds") Collection<Long> productIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.id = :id")
+    Optional<Inventory> lockById(@Param("id") Long id);
+
+    @Query("SELECT i.quantity - i.reservedQuantity FROM Inventory i " +
+            "WHERE i.product.id = :productId AND i.warehouse.id = :warehouseId")
+    Optional<Integer> findAvailableQuantity(@Param("productId") Long productId,
+                                            @Param("warehouseId") Long warehouseId);
+
+    // Conditional updates: each returns 1 when applied and 0 when the stock check fails,
+    // so callers never read-check-write the row in Java
+    @Modifying
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity + :quantity, i.lastUpdated = :now, " +
+            "i.version = i.version + 1 " +
+            "WHERE i.product.id = :productId AND i.warehouse.id = :warehouseId " +
+            "AND i.quantity - i.reservedQuantity >= :quantity")
+    int reserveStock(@Param("productId") Long productId,
+                     @Param("warehouseId") Long warehouseId,
+                     @Param("quantity") Integer quantity,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity - :quantity, i.lastUpdated = :now, " +
+            "i.version = i.version + 1 " +
+            "WHERE i.product.id = :productId AND i.warehouse.id = :warehouseId " +
+            "AND i.reservedQuantity >= :quantity")
+    int releaseReservedStock(@Param("productId") Long productId,
+                             @Param("warehouseId") Long warehouseId,
+                             @Param("quantity") Integer quantity,
+                             @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity, " +
+            "i.reservedQuantity = i.reservedQuantity - :quantity, i.lastStockOut = :now, i.lastUpdated = :now, " +
+            "i.version = i.version + 1 " +
+            "WHERE i.product.id = :productId AND i.warehouse.id = :warehouseId " +
+            "AND i.reservedQuantity >= :quantity AND i.quantity >= :quantity")
+    int deductReservedStock(@Param("productId") Long productId,
+                            @Param("warehouseId") Long warehouseId,
+                            @Param("quantity") Integer quantity,
+                            @Param("now") LocalDateTime now);
+
+    // Clears the persistence context so the caller's re-read sees the deducted row
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity, i.lastStockOut = :now, i.lastUpdated = :now, " +
+            "i.version = i.version + 1 " +
+            "WHERE i.product.id = :productId AND i.warehouse.id = :warehouseId " +
+            "AND i.quantity - i.reservedQuantity >= :quantity")
+    int deductAvailableStock(@Param("productId") Long productId,
+                             @Param("warehouseId") Long warehouseId,
+                             @Param("quantity") Integer quantity,
+                             @Param("now") LocalDateTime now);
+
+    // Location and batch number are kept when null; clears the persistence context like the deduction
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :quantity, i.lastStockIn = :now, i.lastUpdated = :now, " +
+            "i.version = i.version + 1, " +
+            "i.location = COALESCE(:location, i.location), i.batchNumber = COALESCE(:batchNumber, i.batchNumber) " +
+            "WHERE i.product.id = :productId AND i.warehouse.id = :warehouseId")
+    int addStock(@Param("productId") Long productId,
+                 @Param("warehouseId") Long warehouseId,
+                 @Param("quantity") Integer quantity,
+                 @Param("location") String location,
+                 @Param("batchNumber") String batchNumber,
+                 @Param("now") LocalDateTime now);
+
+    // Keyset listing ordered by id; pass 0 for the first page
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.product JOIN FETCH i.warehouse " +
+            "WHERE i.id > :afterId ORDER BY i.id")
+    Slice<Inventory> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
     @Query("SELECT i FROM Inventory i WHERE i.quantity < i.minThreshold")
     List<Inventory> findLowStockItems();
 
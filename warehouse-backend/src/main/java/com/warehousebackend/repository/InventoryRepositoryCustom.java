@@ -0,0 +1,23 @@
+package com.warehousebackend.repository;
+
+/**
+ * @author MyDuyen
+ */
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface InventoryRepositoryCustom {
+    /**
+     * Reserve stock for several products of one warehouse with a single JDBC batch of conditional
+     * updates, applied in product id order. Returns the product ids whose reservation could not be applied.
+     */
+    List<Long> reserveStockBatch(Long warehouseId, Map<Long, Integer> quantitiesByProduct);
+
+    /**
+     * Insert empty inventory rows for the given products of a warehouse unless they exist, in the
+     * caller's transaction. Rows are inserted in product id order.
+     */
+    void createMissingInventory(Long warehouseId, Collection<Long> productIds);
+}
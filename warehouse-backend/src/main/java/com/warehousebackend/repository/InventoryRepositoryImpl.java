@@ -0,0 +1,68 @@
+package com.warehousebackend.repository;
+
+/**
+ * @author MyDuyen
+ */
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class InventoryRepositoryImpl implements InventoryRepositoryCustom {
+
+    private static final String RESERVE_SQL =
+            "UPDATE inventory SET reserved_quantity = reserved_quantity + ?, last_updated = ?, version = version + 1 " +
+                    "WHERE warehouse_id = ? AND product_id = ? AND quantity - reserved_quantity >= ?";
+
+    private static final String CREATE_SQL =
+            "INSERT INTO inventory (product_id, warehouse_id, quantity, reserved_quantity, min_threshold, " +
+                    "max_threshold, sharded, version, last_updated, created_at) VALUES (?, ?, 0, 0, 10, 1000, false, 0, ?, ?) " +
+                    "ON CONFLICT (product_id, warehouse_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> reserveStockBatch(Long warehouseId, Map<Long, Integer> quantitiesByProduct) {
+        if (quantitiesByProduct.isEmpty()) {
+            return List.of();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // Sorted, so two orders over the same products lock the rows in the same order
+        List<Long> productIds = new ArrayList<>(quantitiesByProduct.keySet());
+        productIds.sort(null);
+        List<Object[]> args = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            Integer quantity = quantitiesByProduct.get(productId);
+            args.add(new Object[]{quantity, now, warehouseId, productId, quantity});
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(RESERVE_SQL, args);
+
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                failed.add(productIds.get(i));
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public void createMissingInventory(Long warehouseId, Collection<Long> productIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // Sorted, so concurrent creators wait on the unique index in the same order
+        List<Object[]> args = productIds.stream()
+                .sorted()
+                .map(productId -> new Object[]{productId, warehouseId, now, now})
+                .toList();
+        jdbcTemplate.batchUpdate(CREATE_SQL, args);
+    }
+}
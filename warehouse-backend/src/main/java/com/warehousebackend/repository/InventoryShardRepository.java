@@ -0,0 +1,56 @@
+package com.warehousebackend.repository;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.InventoryShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryShardRepository extends JpaRepository<InventoryShard, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InventoryShard s WHERE s.inventory.id = :inventoryId ORDER BY s.shardIndex")
+    List<InventoryShard> lockByInventoryId(@Param("inventoryId") Long inventoryId);
+
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.reservedQuantity = s.reservedQuantity + :quantity " +
+            "WHERE s.inventory.id = :inventoryId AND s.shardIndex = :shardIndex " +
+            "AND s.quantity - s.reservedQuantity >= :quantity")
+    int reserve(@Param("inventoryId") Long inventoryId,
+                @Param("shardIndex") Integer shardIndex,
+                @Param("quantity") Integer quantity);
+
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.reservedQuantity = s.reservedQuantity - :quantity " +
+            "WHERE s.inventory.id = :inventoryId AND s.shardIndex = :shardIndex " +
+            "AND s.reservedQuantity >= :quantity")
+    int release(@Param("inventoryId") Long inventoryId,
+                @Param("shardIndex") Integer shardIndex,
+                @Param("quantity") Integer quantity);
+
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.quantity = s.quantity - :quantity, " +
+            "s.reservedQuantity = s.reservedQuantity - :quantity " +
+            "WHERE s.inventory.id = :inventoryId AND s.shardIndex = :shardIndex " +
+            "AND s.reservedQuantity >= :quantity")
+    int deduct(@Param("inventoryId") Long inventoryId,
+               @Param("shardIndex") Integer shardIndex,
+               @Param("quantity") Integer quantity);
+
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.quantity = s.quantity + :quantity " +
+            "WHERE s.inventory.id = :inventoryId AND s.shardIndex = :shardIndex")
+    int addQuantity(@Param("inventoryId") Long inventoryId,
+                    @Param("shardIndex") Integer shardIndex,
+                    @Param("quantity") Integer quantity);
+}
@@ -0,0 +1,26 @@
+package com.warehousebackend.repository;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.InventorySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long>,
+        InventorySnapshotRepositoryCustom {
+
+    @Query("SELECT MAX(s.snapshotDate) FROM InventorySnapshot s " +
+            "WHERE s.warehouse.id = :warehouseId AND s.snapshotDate <= :date")
+    Optional<LocalDateTime> findLatestSnapshotDate(@Param("warehouseId") Long warehouseId,
+                                                   @Param("date") LocalDateTime date);
+
+    boolean existsBySnapshotDate(LocalDateTime snapshotDate);
+}
@@ -0,0 +1,22 @@
+package com.warehousebackend.repository;
+
+/**
+ * @author MyDuyen
+ */
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public interface InventorySnapshotRepositoryCustom {
+    /**
+     * Write one snapshot row per inventory row holding its quantity at {@code cutoff}, derived from
+     * the current quantity minus the ledger deltas recorded after the cutoff. Returns the row count.
+     */
+    int takeSnapshot(LocalDateTime cutoff);
+
+    /**
+     * Quantity of every inventory row of a warehouse at {@code asOf}: the snapshot taken at
+     * {@code snapshotDate} (or zero when null) plus the ledger deltas in between, keyed by inventory id.
+     */
+    Map<Long, Integer> findQuantitiesAsOf(Long warehouseId, LocalDateTime snapshotDate, LocalDateTime asOf);
+}
@@ -0,0 +1,61 @@
+package com.warehousebackend.repository;
+
+/**
+ * @author MyDuyen
+ */
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class InventorySnapshotRepositoryImpl implements InventorySnapshotRepositoryCustom {
+
+    // Both sides are read in one statement, so quantity and ledger come from the same MVCC snapshot
+    private static final String SNAPSHOT_SQL =
+            "INSERT INTO inventory_snapshots (inventory_id, warehouse_id, product_id, quantity, snapshot_date) " +
+                    "SELECT i.id, i.warehouse_id, i.product_id, i.quantity - COALESCE(d.delta, 0), ? " +
+                    "FROM inventory i " +
+                    "LEFT JOIN (SELECT inventory_id, SUM(after_quantity - before_quantity) AS delta " +
+                    "FROM inventory_transactions WHERE transaction_date > ? GROUP BY inventory_id) d " +
+                    "ON d.inventory_id = i.id " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM inventory_snapshots s " +
+                    "WHERE s.inventory_id = i.id AND s.snapshot_date = ?)";
+
+    private static final String AS_OF_SQL =
+            "SELECT i.id, COALESCE(s.quantity, 0) + COALESCE(d.delta, 0) AS quantity " +
+                    "FROM inventory i " +
+                    "LEFT JOIN inventory_snapshots s ON s.inventory_id = i.id AND s.snapshot_date = ? " +
+                    "LEFT JOIN (SELECT t.inventory_id, SUM(t.after_quantity - t.before_quantity) AS delta " +
+                    "FROM inventory_transactions t JOIN inventory ti ON ti.id = t.inventory_id " +
+                    "WHERE ti.warehouse_id = ? AND t.transaction_date > ? AND t.transaction_date <= ? " +
+                    "GROUP BY t.inventory_id) d ON d.inventory_id = i.id " +
+                    "WHERE i.warehouse_id = ?";
+
+    // Lower bound for the replay when no snapshot precedes the requested date
+    private static final Timestamp BEGINNING = Timestamp.valueOf("1970-01-01 00:00:00");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int takeSnapshot(LocalDateTime cutoff) {
+        Timestamp at = Timestamp.valueOf(cutoff);
+        return jdbcTemplate.update(SNAPSHOT_SQL, at, at, at);
+    }
+
+    @Override
+    public Map<Long, Integer> findQuantitiesAsOf(Long warehouseId, LocalDateTime snapshotDate, LocalDateTime asOf) {
+        Timestamp from = snapshotDate != null ? Timestamp.valueOf(snapshotDate) : BEGINNING;
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query(AS_OF_SQL,
+                rs -> {
+                    quantities.put(rs.getLong(1), rs.getInt(2));
+                },
+                from, warehouseId, from, Timestamp.valueOf(asOf), warehouseId);
+        return quantities;
+    }
+}
@@ -7,16 +7,23 @@ package com.warehousebackend.repository;
 import com.warehousebackend.entity.Inventory;
 import com.warehousebackend.entity.InventoryTransaction;
 import com.warehousebackend.entity.TransactionType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long> {
+public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long>,
+        InventoryTransactionRepositoryCustom {
     List<InventoryTransaction> findByInventory(Inventory inventory);
     List<InventoryTransaction> findByType(TransactionType type);
 
@@ -24,6 +31,35 @@ public interface InventoryTransactionRepository extends JpaRepository<InventoryT
     List<InventoryTransaction> findByDateRange(@Param("start") LocalDateTime start,
                                                @Param("end") LocalDateTime end);
 
+    // Filters on the partition key, so only the partitions of the requested months are scanned
+    @Query("SELECT it FROM InventoryTransaction it WHERE it.inventory.product.id = :productId " +
+            "AND it.transactionDate BETWEEN :start AND :end")
+    List<InventoryTransaction> findByProductAndDateRange(@Param("productId") Long productId,
+                                                         @Param("start") LocalDateTime start,
+                                                         @Param("end") LocalDateTime end);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT it.id, it.transactionDate, i.id, p.sku, i.warehouse.id, it.type, it.quantity, " +
+            "it.beforeQuantity, it.afterQuantity, it.referenceNumber, it.referenceType, it.notes " +
+            "FROM InventoryTransaction it JOIN it.inventory i JOIN i.product p " +
+            "WHERE it.transactionDate BETWEEN :start AND :end ORDER BY it.transactionDate, it.id")
+    Stream<Object[]> streamForExport(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Keyset ledger listing, newest first
+    @Query("SELECT it FROM InventoryTransaction it JOIN FETCH it.inventory i JOIN FETCH i.product " +
+            "ORDER BY it.transactionDate DESC, it.id DESC")
+    Slice<InventoryTransaction> findFirstPage(Pageable pageable);
+
+    @Query("SELECT it FROM InventoryTransaction it JOIN FETCH it.inventory i JOIN FETCH i.product " +
+            "WHERE (it.transactionDate, it.id) < (:transactionDate, :id) " +
+            "ORDER BY it.transactionDate DESC, it.id DESC")
+    Slice<InventoryTransaction> findPageAfter(@Param("transactionDate") LocalDateTime transactionDate,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+
     @Query("SELECT it FROM InventoryTransaction it WHERE it.inventory.id = :inventoryId ORDER BY it.transactionDate DESC")
     List<InventoryTransaction> findRecentTransactions(@Param("inventoryId") Long inventoryId);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.warehousebackend.repository;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.InventoryTransaction;
+
+import java.util.List;
+
+public interface InventoryTransactionRepositoryCustom {
+    /**
+     * Insert ledger rows in JDBC batches of {@code hibernate.jdbc.batch_size} and flush them before returning.
+     */
+    void batchInsert(List<InventoryTransaction> transactions);
+}
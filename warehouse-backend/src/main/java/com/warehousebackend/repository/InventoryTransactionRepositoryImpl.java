@@ -0,0 +1,30 @@
+package com.warehousebackend.repository;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.InventoryTransaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+public class InventoryTransactionRepositoryImpl implements InventoryTransactionRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void batchInsert(List<InventoryTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        // Ids come from the pooled ledger sequence, so the flush sends the rows as JDBC batches
+        for (InventoryTransaction transaction : transactions) {
+            entityManager.persist(transaction);
+        }
+        entityManager.flush();
+    }
+}
@@ -1,19 +1,29 @@
 package com.warehousebackend.repository;
 
+import com.warehousebackend.dto.order.OrderLineSummary;
+import com.warehousebackend.dto.order.OrderLoad;
+import com.warehousebackend.dto.order.OrderSummary;
 import com.warehousebackend.entity.Order;
 import com.warehousebackend.entity.OrderStatus;
 import com.warehousebackend.entity.User;
 import com.warehousebackend.entity.Warehouse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @author MyDuyen
@@ -25,6 +35,59 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
     List<Order> findByWarehouse(Warehouse warehouse);
     List<Order> findByCustomer(User customer);
 
+    // Scalar rows only: streaming Order entities would also load each inverse-side shipment
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o.id, o.orderNumber, o.status, o.warehouse.id, o.customerName, o.customerEmail, o.customerPhone, " +
+            "o.shippingAddress, o.shippingCity, o.subtotal, o.shippingFee, o.discount, o.tax, o.totalAmount, " +
+            "o.paymentMethod, o.paymentStatus, o.orderDate, o.actualDeliveryDate FROM Order o ORDER BY o.id")
+    Stream<Object[]> streamForExport();
+
+    // Listing projections: one row per order with warehouse and shipment joined, lines fetched per page
+    String SUMMARY_SELECT = "SELECT new com.warehousebackend.dto.order.OrderSummary(o.id, o.orderNumber, w.name, " +
+            "o.status, o.customerName, o.customerEmail, o.customerPhone, o.shippingAddress, o.subtotal, " +
+            "o.shippingFee, o.discount, o.tax, o.totalAmount, o.paymentMethod, o.paymentStatus, o.orderDate, " +
+            "o.expectedDeliveryDate, o.actualDeliveryDate, s.id, s.trackingNumber, s.status, s.estimatedDeliveryTime) " +
+            "FROM Order o JOIN o.warehouse w LEFT JOIN o.shipment s";
+
+    @Query(value = SUMMARY_SELECT, countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderSummary> findSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + " WHERE o.status = :status",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+    Page<OrderSummary> findSummariesByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    @Query("SELECT new com.warehousebackend.dto.order.OrderLineSummary(i.order.id, i.id, p.id, p.name, p.sku, " +
+            "i.quantity, i.price, i.discount, i.subtotal) " +
+            "FROM OrderItem i JOIN i.product p WHERE i.order.id IN :orderIds ORDER BY i.order.id, i.id")
+    List<OrderLineSummary> findLineSummaries(@Param("orderIds") Collection<Long> orderIds);
+
+    // Shipment fetched too, so orders that already have one can be skipped without a query each
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.shipment WHERE o.warehouse.id = :warehouseId " +
+            "AND o.status = :status ORDER BY o.id")
+    List<Order> findByWarehouseIdAndStatusWithShipment(@Param("warehouseId") Long warehouseId,
+                                                       @Param("status") OrderStatus status);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.shipment WHERE o.id IN :ids ORDER BY o.id")
+    List<Order> findByIdInWithShipment(@Param("ids") Collection<Long> ids);
+
+    // Conditional claim for dispatch: 0 when the order moved on, or got a shipment, since it was read
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = :now WHERE o.id = :id AND o.status = :from " +
+            "AND NOT EXISTS (SELECT 1 FROM Shipment s WHERE s.order.id = o.id)")
+    int claim(@Param("id") Long id,
+              @Param("from") OrderStatus from,
+              @Param("to") OrderStatus to,
+              @Param("now") LocalDateTime now);
+
+    @Query("SELECT new com.warehousebackend.dto.order.OrderLoad(i.order.id, " +
+            "SUM(i.quantity * COALESCE(p.weight, 0.0)), " +
+            "SUM(i.quantity * COALESCE(p.length * p.width * p.height, 0.0)) / 1000000.0) " +
+            "FROM OrderItem i JOIN i.product p WHERE i.order.id IN :orderIds GROUP BY i.order.id")
+    List<OrderLoad> findLoads(@Param("orderIds") Collection<Long> orderIds);
+
     @Query("SELECT o FROM Order o WHERE o.orderDate BETWEEN :start AND :end")
     List<Order> findByOrderDateBetween(@Param("start") LocalDateTime start,
                                        @Param("end") LocalDateTime end);
@@ -33,5 +96,25 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
     List<Order> findPendingOrdersOlderThan(@Param("status") OrderStatus status,
                                            @Param("date") LocalDateTime date);
     Page<Order> findAll(Pageable pageable);
+
+    // Keyset listing, newest first; the (orderDate, id) tuple comparison can seek on idx_order_date_id
+    @Query(SUMMARY_SELECT + " ORDER BY o.orderDate DESC, o.id DESC")
+    Slice<OrderSummary> findFirstPage(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE (o.orderDate, o.id) < (:orderDate, :id) " +
+            "ORDER BY o.orderDate DESC, o.id DESC")
+    Slice<OrderSummary> findPageAfter(@Param("orderDate") LocalDateTime orderDate,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE o.status = :status ORDER BY o.orderDate DESC, o.id DESC")
+    Slice<OrderSummary> findFirstPageByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE o.status = :status AND (o.orderDate, o.id) < (:orderDate, :id) " +
+            "ORDER BY o.orderDate DESC, o.id DESC")
+    Slice<OrderSummary> findPageAfterByStatus(@Param("status") OrderStatus status,
+                                              @Param("orderDate") LocalDateTime orderDate,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
     List<Order> findAllByOrderByOrderDateDesc(Pageable pageable);
 }
\ No newline at end of file
@@ -1,12 +1,17 @@
 package com.warehousebackend.repository;
 
+import com.warehousebackend.config.CatalogCacheConfig;
 import com.warehousebackend.entity.Product;
 import com.warehousebackend.entity.Supplier;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
@@ -17,14 +22,26 @@ import java.util.Optional;
  */
 
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.QUERY_REGION)
+    })
     Optional<Product> findBySku(String sku);
     List<Product> findByCategory(String category);
     List<Product> findBySupplier(Supplier supplier);
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.QUERY_REGION)
+    })
     List<Product> findByStatus(String status);
 
     @Query("SELECT p FROM Product p WHERE p.name LIKE %:name%")
     Page<Product> searchByName(@Param("name") String name, Pageable pageable);
     Page<Product> findAll(Pageable pageable);
+
+    // Keyset listing ordered by id; pass 0 for the first page
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    Slice<Product> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
     List<Product> findByNameContainingIgnoreCase(String keyword);
     List<Product> findBySkuContainingIgnoreCase(String keyword);
     Page<Product> findByCategory(String category, Pageable pageable);
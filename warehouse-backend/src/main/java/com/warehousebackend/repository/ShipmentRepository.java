@@ -2,10 +2,12 @@ package com.warehousebackend.repository;
 
 import com.warehousebackend.entity.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,8 +25,29 @@ public interface ShipmentRepository extends JpaRepository<Shipment, Long> {
     @Query("SELECT s FROM Shipment s WHERE s.status IN :statuses")
     List<Shipment> findByStatusIn(@Param("statuses") List<ShipmentStatus> statuses);
 
-    @Query("SELECT s FROM Shipment s WHERE s.estimatedDeliveryTime < :now AND s.status NOT IN ('DELIVERED', 'CANCELLED')")
-    List<Shipment> findDelayedShipments(@Param("now") LocalDateTime now);
+    // Oldest update first, so replaying the rows leaves each vehicle at its latest position
+    @Query("SELECT s.vehicle.id, s.currentLatitude, s.currentLongitude, s.updatedAt FROM Shipment s " +
+            "WHERE s.status IN :statuses AND s.currentLatitude IS NOT NULL AND s.currentLongitude IS NOT NULL " +
+            "AND s.vehicle IS NOT NULL ORDER BY s.updatedAt")
+    List<Object[]> findVehiclePositions(@Param("statuses") List<ShipmentStatus> statuses);
+
+    @Query("SELECT s FROM Shipment s JOIN FETCH s.order LEFT JOIN FETCH s.vehicle LEFT JOIN FETCH s.driver " +
+            "WHERE s.status IN :statuses")
+    List<Shipment> findByStatusInWithDetails(@Param("statuses") List<ShipmentStatus> statuses);
+
+    // Status columns only, so the position batch from LocationIngestionService is never written back
+    // over; the delivery time is kept when null
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Shipment s SET s.status = :status, " +
+            "s.actualDeliveryTime = COALESCE(:deliveredAt, s.actualDeliveryTime), " +
+            "s.updatedAt = :now, s.version = s.version + 1 WHERE s.id = :id")
+    int updateStatus(@Param("id") Long id,
+                     @Param("status") ShipmentStatus status,
+                     @Param("deliveredAt") LocalDateTime deliveredAt,
+                     @Param("now") LocalDateTime now);
+
+    boolean existsByVehicleIdAndStatusInAndIdNot(Long vehicleId, Collection<ShipmentStatus> statuses, Long id);
+
     long countByStatus(String status);
 
 }
\ No newline at end of file
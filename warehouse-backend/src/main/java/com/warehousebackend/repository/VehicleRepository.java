@@ -1,9 +1,16 @@
 package com.warehousebackend.repository;
 
+import com.warehousebackend.config.CatalogCacheConfig;
 import com.warehousebackend.entity.User;
 import com.warehousebackend.entity.Vehicle;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
@@ -16,10 +23,27 @@ import java.util.Optional;
 
 public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     Optional<Vehicle> findByLicensePlate(String licensePlate);
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.QUERY_REGION)
+    })
     List<Vehicle> findByStatus(String status);
     List<Vehicle> findByVehicleType(String vehicleType);
+
+    @Query("SELECT v FROM Vehicle v LEFT JOIN FETCH v.currentDriver WHERE v.status = :status ORDER BY v.id")
+    List<Vehicle> findByStatusWithDriver(@Param("status") String status);
     List<Vehicle> findByCurrentDriver(User driver);
 
+    // Conditional claim for dispatch: 0 when the vehicle was taken, or lost its driver, since it was read
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Vehicle v SET v.status = 'IN_USE', v.updatedAt = :now WHERE v.id = :id " +
+            "AND v.status = 'AVAILABLE' AND v.currentDriver IS NOT NULL")
+    int claimAvailable(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Vehicle v WHERE v.id = :id")
+    Optional<Vehicle> lockById(@Param("id") Long id);
+
     @Query("SELECT v FROM Vehicle v WHERE v.nextMaintenanceDate < :date")
     List<Vehicle> findVehiclesNeedingMaintenance(@Param("date") LocalDateTime date);
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package com.warehousebackend.repository;
 
+import com.warehousebackend.config.CatalogCacheConfig;
 import com.warehousebackend.entity.Warehouse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 
@@ -11,9 +15,17 @@ import java.util.List;
  */
 
 public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.QUERY_REGION)
+    })
     List<Warehouse> findByStatus(String status);
     List<Warehouse> findByCity(String city);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.QUERY_REGION)
+    })
     @Query("SELECT w FROM Warehouse w WHERE w.currentUsage < w.capacity")
     List<Warehouse> findAvailableWarehouses();
 }
@@ -4,6 +4,7 @@ package com.warehousebackend.security;
  * @author MyDuyen
  */
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -44,6 +45,9 @@ public class SecurityConfig {
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         // ✅ THÊM CÁC DÒNG NÀY
+                        // Streaming exports finish on an async dispatch; the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/actuator/metrics/**", "/actuator/hibernatecache/**").hasRole("ADMIN")
                         .requestMatchers("/actuator/**").permitAll()          // Actuator endpoints
                         .requestMatchers("/actuator/health").permitAll()      // Health check
                         .requestMatchers("/api/health").permitAll()           // Custom health
@@ -0,0 +1,62 @@
+package com.warehousebackend.security;
+
+/**
+ * @author MyDuyen
+ */
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Authenticates a STOMP session once, on CONNECT, from the {@code Authorization: Bearer} native
+ * header. The resulting user is kept by the session and attached to every later frame, so
+ * messages are not re-checked one by one.
+ *
+ * A CONNECT without a token stays anonymous and may only subscribe; sending to an {@code /app}
+ * destination needs an authenticated session.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtTokenProvider tokenProvider;
+    private final UserDetailsService userDetailsService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            String bearerToken = accessor.getFirstNativeHeader("Authorization");
+            if (StringUtils.hasText(bearerToken)) {
+                accessor.setUser(authenticate(bearerToken));
+            }
+        } else if (accessor.getCommand() == StompCommand.SEND && accessor.getUser() == null) {
+            throw new BadCredentialsException("STOMP session is not authenticated");
+        }
+        return message;
+    }
+
+    private UsernamePasswordAuthenticationToken authenticate(String bearerToken) {
+        String jwt = bearerToken.startsWith("Bearer ") ? bearerToken.substring(7) : bearerToken;
+        if (!tokenProvider.validateToken(jwt)) {
+            throw new BadCredentialsException("Invalid or expired JWT token");
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(tokenProvider.getUsernameFromToken(jwt));
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+}
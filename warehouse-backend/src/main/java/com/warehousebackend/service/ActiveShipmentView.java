@@ -0,0 +1,413 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.shipment.ShipmentResponse;
+import com.warehousebackend.entity.Order;
+import com.warehousebackend.entity.Shipment;
+import com.warehousebackend.entity.ShipmentStatus;
+import com.warehousebackend.repository.ShipmentRepository;
+import com.warehousebackend.util.GeoUtils;
+import com.warehousebackend.util.SpatialGrid;
+import com.warehousebackend.util.Tombstones;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denormalised, in-memory view of the shipments still on the road, keyed by shipment id.
+ *
+ * Entries carry the order number, plate and driver name copied at write time, so the dispatch
+ * screen is answered without touching the database. Loaded once at startup and kept current by
+ * ShipmentService and LocationIngestionService after each change commits; a shipment leaves the
+ * view when it stops being active.
+ *
+ * Each entry also has a small motion model fed by every GPS ping: distance travelled (haversine
+ * steps), a time-weighted moving average of speed, and from those the remaining distance and live
+ * ETA toward the order's shipping coordinates. Pings advance a copy of the model, which replaces
+ * the entry's model only once the write carrying them has committed.
+ * Positions are also filed in a {@link SpatialGrid} for radius and bounding-box queries.
+ * The delay fields depend on the clock and are recomputed on every read, by the same rule as
+ * {@link DelayedShipmentDetector}: delayed once the promised delivery time has passed. A live ETA
+ * beyond it is left for the caller to compare.
+ *
+ * Snapshots from concurrent transactions can be applied in any order, so each entry keeps the row
+ * version it was taken at and an older snapshot is dropped. A removed shipment leaves a tombstone
+ * behind for a while, so a late snapshot from before the removal cannot bring it back.
+ */
+@Slf4j
+@Service
+public class ActiveShipmentView {
+
+    public static final Set<ShipmentStatus> ACTIVE_STATUSES = Set.of(
+            ShipmentStatus.PENDING,
+            ShipmentStatus.PICKED_UP,
+            ShipmentStatus.IN_TRANSIT,
+            ShipmentStatus.OUT_FOR_DELIVERY);
+
+    private static final double SPEED_SMOOTHING_MINUTES = 5;
+    // Floor for the ETA, so a truck stopped at a light is not predicted to arrive never
+    private static final double MIN_ETA_SPEED_KMH = 5;
+    // Steps shorter than this are GPS noise around a parked truck
+    private static final double JITTER_KM = 0.01;
+    // Faster than this between two fixes is a bad fix
+    private static final double MAX_PLAUSIBLE_KMH = 200;
+
+    // About 1.1 km; a 5 km radius query visits some 100 cells
+    private static final double INDEX_CELL_DEGREES = 0.01;
+
+    // Snapshots are applied right after their own commit; a late one is late by far less than this
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(5);
+
+    private final ShipmentRepository shipmentRepository;
+    // Straight-line distance times this is taken as the road distance left, as route planning does
+    private final double roadFactor;
+
+    private final Map<Long, ShipmentResponse> active = new ConcurrentHashMap<>();
+    private final Map<Long, Motion> motion = new ConcurrentHashMap<>();
+    // Updated under the same key's bin in active, so it cannot go back to a shipment just removed
+    private final SpatialGrid<Long, Position> index = new SpatialGrid<>(INDEX_CELL_DEGREES);
+    // Written under the same key's bin in active
+    private final Tombstones<Long> removed = new Tombstones<>(TOMBSTONE_TTL);
+
+    public ActiveShipmentView(ShipmentRepository shipmentRepository,
+                              @Value("${routing.road-factor:1.3}") double roadFactor) {
+        this.shipmentRepository = shipmentRepository;
+        this.roadFactor = roadFactor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadActiveShipments() {
+        for (Shipment shipment : shipmentRepository.findByStatusInWithDetails(List.copyOf(ACTIVE_STATUSES))) {
+            apply(ShipmentResponse.from(shipment), shipment.getOrder(), shipment.getVersion());
+        }
+        log.info("Loaded {} active shipments", active.size());
+    }
+
+    /**
+     * Record the current state of a shipment that just changed. The snapshot is taken now, while its
+     * associations can still be loaded, and applied after commit. The version is read then, once
+     * the flush has bumped it.
+     */
+    public void update(Shipment shipment) {
+        ShipmentResponse snapshot = ShipmentResponse.from(shipment);
+        Order order = shipment.getOrder();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(snapshot, order, shipment.getVersion());
+                }
+            });
+        } else {
+            apply(snapshot, order, shipment.getVersion());
+        }
+    }
+
+    /**
+     * Run a shipment's GPS fixes, in arrival order, through a copy of its motion model and return
+     * the resulting distance and ETA. The view keeps its model until the track is passed to
+     * {@link #moveTo}, so fixes whose write fails are never counted. Null when the shipment is not
+     * active.
+     */
+    public Track track(Long shipmentId, List<Fix> fixes) {
+        Motion base = motion.get(shipmentId);
+        if (base == null) {
+            return null;
+        }
+        Motion advanced = base.copy();
+        Progress progress = null;
+        for (Fix fix : fixes) {
+            progress = advanced.advance(fix.latitude(), fix.longitude(), fix.speed(), fix.at());
+        }
+        return new Track(base, advanced, progress);
+    }
+
+    /**
+     * Apply a GPS position from the ingestion pipeline once it has committed, moving a shipment that
+     * has not left yet to IN_TRANSIT as {@code updateLocation} always did, and keeping the motion
+     * model of its track. Returns the new entry, or null when the shipment is not active.
+     */
+    public ShipmentResponse moveTo(Long shipmentId, Double latitude, Double longitude, Double speed,
+                                   Track track) {
+        return active.computeIfPresent(shipmentId, (id, entry) -> {
+            ShipmentResponse moved = copyOf(entry);
+            moved.setCurrentLatitude(latitude);
+            moved.setCurrentLongitude(longitude);
+            moved.setCurrentSpeed(speed);
+            if (track != null) {
+                // Only over the model the track started from; one reloaded since then stays
+                motion.replace(id, track.base, track.advanced);
+            }
+            Progress progress = track != null ? track.progress() : null;
+            if (progress != null) {
+                moved.setDistanceTraveled(progress.distanceTraveled());
+                moved.setEstimatedDistance(progress.remainingDistance());
+                moved.setPredictedArrivalTime(progress.predictedArrivalTime());
+            }
+            if (ShipmentStatus.PENDING.name().equals(entry.getStatus())
+                    || ShipmentStatus.PICKED_UP.name().equals(entry.getStatus())) {
+                moved.setStatus(ShipmentStatus.IN_TRANSIT.name());
+            }
+            indexPosition(moved);
+            return moved;
+        });
+    }
+
+    /**
+     * Current entry of an active shipment, or null when it is not in the view.
+     */
+    public ShipmentResponse get(Long shipmentId) {
+        ShipmentResponse entry = active.get(shipmentId);
+        return entry != null ? withDelay(entry, LocalDateTime.now()) : null;
+    }
+
+    /**
+     * Status of an active shipment, or null when it is not in the view.
+     */
+    public ShipmentStatus statusOf(Long shipmentId) {
+        ShipmentResponse entry = active.get(shipmentId);
+        return entry != null ? ShipmentStatus.valueOf(entry.getStatus()) : null;
+    }
+
+    public List<ShipmentResponse> getActiveShipments() {
+        LocalDateTime now = LocalDateTime.now();
+        Collection<ShipmentResponse> entries = active.values();
+        List<ShipmentResponse> result = new ArrayList<>(entries.size());
+        for (ShipmentResponse entry : entries) {
+            result.add(withDelay(entry, now));
+        }
+        return result;
+    }
+
+    /**
+     * Positions of the active shipments that have reported one, read straight from the entries.
+     */
+    public List<Position> positions() {
+        List<Position> result = new ArrayList<>(active.size());
+        for (ShipmentResponse entry : active.values()) {
+            if (entry.getCurrentLatitude() != null && entry.getCurrentLongitude() != null) {
+                result.add(new Position(entry.getId(), entry.getVehicleLicensePlate(), entry.getCurrentLatitude(),
+                        entry.getCurrentLongitude(), entry.getCurrentSpeed(), ShipmentStatus.valueOf(entry.getStatus())));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Active shipments within {@code radiusKm} of a point, nearest first.
+     */
+    public List<SpatialGrid.Hit<Position>> positionsWithin(double latitude, double longitude, double radiusKm) {
+        return index.withinRadius(latitude, longitude, radiusKm);
+    }
+
+    public List<Position> positionsIn(double south, double west, double north, double east) {
+        return index.withinBox(south, west, north, east);
+    }
+
+    public int count() {
+        return active.size();
+    }
+
+    /**
+     * Forget tombstones old enough that no snapshot from before the removal can still arrive.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeTombstones() {
+        removed.purge();
+    }
+
+    private void apply(ShipmentResponse snapshot, Order order, Long version) {
+        long snapshotVersion = version != null ? version : 0;
+        boolean stillActive = ACTIVE_STATUSES.contains(ShipmentStatus.valueOf(snapshot.getStatus()));
+        active.compute(snapshot.getId(), (id, previous) -> {
+            if (previous != null ? snapshotVersion <= previous.getVersion() : removed.buries(id, snapshotVersion)) {
+                return previous;
+            }
+            if (!stillActive) {
+                removed.bury(id, snapshotVersion);
+                index.remove(id);
+                motion.remove(id);
+                return null;
+            }
+            snapshot.setVersion(snapshotVersion);
+            removed.forget(id);
+            indexPosition(snapshot);
+            motion.computeIfAbsent(id, key -> new Motion(snapshot, roadFactor,
+                    order != null ? order.getShippingLatitude() : null,
+                    order != null ? order.getShippingLongitude() : null));
+            return snapshot;
+        });
+    }
+
+    private void indexPosition(ShipmentResponse entry) {
+        if (entry.getCurrentLatitude() != null && entry.getCurrentLongitude() != null) {
+            index.put(entry.getId(), entry.getCurrentLatitude(), entry.getCurrentLongitude(), new Position(entry.getId(),
+                    entry.getVehicleLicensePlate(), entry.getCurrentLatitude(), entry.getCurrentLongitude(),
+                    entry.getCurrentSpeed(), ShipmentStatus.valueOf(entry.getStatus())));
+        } else {
+            index.remove(entry.getId());
+        }
+    }
+
+    // Copy, so callers never see or change the shared entry
+    private static ShipmentResponse withDelay(ShipmentResponse entry, LocalDateTime now) {
+        ShipmentResponse copy = copyOf(entry);
+        LocalDateTime promised = entry.getEstimatedDeliveryTime();
+        boolean delayed = Shipment.isPastDue(promised, now);
+        copy.setIsDelayed(delayed);
+        copy.setDelayMinutes(delayed ? Duration.between(promised, now).toMinutes() : 0L);
+        return copy;
+    }
+
+    private static ShipmentResponse copyOf(ShipmentResponse entry) {
+        return ShipmentResponse.builder()
+                .id(entry.getId())
+                .trackingNumber(entry.getTrackingNumber())
+                .orderId(entry.getOrderId())
+                .orderNumber(entry.getOrderNumber())
+                .status(entry.getStatus())
+                .vehicleId(entry.getVehicleId())
+                .vehicleLicensePlate(entry.getVehicleLicensePlate())
+                .driverName(entry.getDriverName())
+                .currentLatitude(entry.getCurrentLatitude())
+                .currentLongitude(entry.getCurrentLongitude())
+                .currentSpeed(entry.getCurrentSpeed())
+                .distanceTraveled(entry.getDistanceTraveled())
+                .estimatedDistance(entry.getEstimatedDistance())
+                .pickupTime(entry.getPickupTime())
+                .estimatedDeliveryTime(entry.getEstimatedDeliveryTime())
+                .actualDeliveryTime(entry.getActualDeliveryTime())
+                .predictedArrivalTime(entry.getPredictedArrivalTime())
+                .isDelayed(entry.getIsDelayed())
+                .delayMinutes(entry.getDelayMinutes())
+                .version(entry.getVersion())
+                .build();
+    }
+
+    public record Position(Long shipmentId, String vehiclePlate, double latitude, double longitude, Double speed,
+                           ShipmentStatus status) {
+    }
+
+    public record Progress(double distanceTraveled, Double remainingDistance, LocalDateTime predictedArrivalTime) {
+    }
+
+    public record Fix(double latitude, double longitude, Double speed, LocalDateTime at) {
+    }
+
+    /**
+     * Outcome of {@link #track}: the progress to write, and the advanced model to keep after commit.
+     */
+    public static final class Track {
+        private final Motion base;
+        private final Motion advanced;
+        private final Progress progress;
+
+        private Track(Motion base, Motion advanced, Progress progress) {
+            this.base = base;
+            this.advanced = advanced;
+            this.progress = progress;
+        }
+
+        public Progress progress() {
+            return progress;
+        }
+    }
+
+    // Never changed once in the motion map; track advances a private copy that moveTo swaps in
+    private static final class Motion {
+        private final double roadFactor;
+        private final Double destinationLatitude;
+        private final Double destinationLongitude;
+        private Double latitude;
+        private Double longitude;
+        private LocalDateTime fixAt;
+        private double distanceTraveled;
+        private Double speed;
+        private LocalDateTime sampledAt;
+
+        Motion(ShipmentResponse snapshot, double roadFactor, Double destinationLatitude, Double destinationLongitude) {
+            this.roadFactor = roadFactor;
+            this.destinationLatitude = destinationLatitude;
+            this.destinationLongitude = destinationLongitude;
+            this.latitude = snapshot.getCurrentLatitude();
+            this.longitude = snapshot.getCurrentLongitude();
+            this.distanceTraveled = snapshot.getDistanceTraveled() != null ? snapshot.getDistanceTraveled() : 0;
+            this.speed = snapshot.getCurrentSpeed();
+        }
+
+        private Motion(Motion other) {
+            this.roadFactor = other.roadFactor;
+            this.destinationLatitude = other.destinationLatitude;
+            this.destinationLongitude = other.destinationLongitude;
+            this.latitude = other.latitude;
+            this.longitude = other.longitude;
+            this.fixAt = other.fixAt;
+            this.distanceTraveled = other.distanceTraveled;
+            this.speed = other.speed;
+            this.sampledAt = other.sampledAt;
+        }
+
+        Motion copy() {
+            return new Motion(this);
+        }
+
+        Progress advance(double newLatitude, double newLongitude, Double reportedSpeed, LocalDateTime at) {
+            double step = latitude != null ? GeoUtils.haversineKm(latitude, longitude, newLatitude, newLongitude) : 0;
+            double hours = fixAt != null ? Math.max(0, Duration.between(fixAt, at).toMillis()) / 3_600_000.0 : 0;
+            if (hours > 0 && step / hours > MAX_PLAUSIBLE_KMH) {
+                return progress(at);
+            }
+
+            // A short step leaves the anchor where it is, so the next step measures from it
+            if (latitude == null || step >= JITTER_KM) {
+                distanceTraveled += step;
+                latitude = newLatitude;
+                longitude = newLongitude;
+                fixAt = at;
+            } else if (fixAt == null) {
+                fixAt = at;
+            }
+
+            Double sample = reportedSpeed != null ? reportedSpeed : hours > 0 ? step / hours : null;
+            if (sample != null) {
+                if (speed == null || sampledAt == null) {
+                    speed = sample;
+                } else {
+                    double minutes = Math.max(0, Duration.between(sampledAt, at).toMillis()) / 60_000.0;
+                    speed += (1 - Math.exp(-minutes / SPEED_SMOOTHING_MINUTES)) * (sample - speed);
+                }
+                sampledAt = at;
+            }
+            return progress(at);
+        }
+
+        private Progress progress(LocalDateTime at) {
+            if (destinationLatitude == null || destinationLongitude == null || latitude == null) {
+                return new Progress(distanceTraveled, null, null);
+            }
+            double remaining = GeoUtils.haversineKm(latitude, longitude, destinationLatitude, destinationLongitude)
+                    * roadFactor;
+            double hoursLeft = remaining / Math.max(speed != null ? speed : 0, MIN_ETA_SPEED_KMH);
+            return new Progress(distanceTraveled, remaining, at.plusSeconds(Math.round(hoursLeft * 3600)));
+        }
+    }
+}
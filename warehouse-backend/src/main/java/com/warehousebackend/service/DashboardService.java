@@ -5,7 +5,6 @@ package com.warehousebackend.service;
  */
 
 import com.warehousebackend.entity.OrderStatus;
-import com.warehousebackend.entity.ShipmentStatus;
 import com.warehousebackend.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -19,8 +18,10 @@ public class DashboardService {
 
     private final OrderRepository orderRepository;
     private final InventoryRepository inventoryRepository;
-    private final ShipmentRepository shipmentRepository;
     private final ProductRepository productRepository;
+    private final LowStockTracker lowStockTracker;
+    private final ActiveShipmentView activeShipmentView;
+    private final DelayedShipmentDetector delayedShipmentDetector;
 
     public Map<String, Object> getDashboardStats() {
         Map<String, Object> stats = new HashMap<>();
@@ -34,19 +35,16 @@ public class DashboardService {
         stats.put("pendingOrders", pendingOrders);
 
         // Low stock items
-        long lowStockItems = inventoryRepository.findLowStockItems().size();
+        long lowStockItems = lowStockTracker.count();
         stats.put("lowStockItems", lowStockItems);
 
         // Active shipments
-        List<ShipmentStatus> activeStatuses = Arrays.asList(
-                ShipmentStatus.PENDING,
-                ShipmentStatus.PICKED_UP,
-                ShipmentStatus.IN_TRANSIT,
-                ShipmentStatus.OUT_FOR_DELIVERY
-        );
-        long activeShipments = shipmentRepository.findByStatusIn(activeStatuses).size();
+        long activeShipments = activeShipmentView.count();
         stats.put("activeShipments", activeShipments);
 
+        // Delayed shipments
+        stats.put("delayedShipments", delayedShipmentDetector.delayedCount());
+
         // Total products
         long totalProducts = productRepository.count();
         stats.put("totalProducts", totalProducts);
@@ -0,0 +1,200 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.shipment.DelayedShipmentEvent;
+import com.warehousebackend.dto.shipment.ShipmentSummary;
+import com.warehousebackend.entity.Shipment;
+import com.warehousebackend.entity.ShipmentStatus;
+import com.warehousebackend.repository.ShipmentRepository;
+import com.warehousebackend.util.HashedTimerWheel;
+import com.warehousebackend.util.Tombstones;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Knows which active shipments are past their estimated delivery time without asking the database.
+ *
+ * Every active shipment with an estimated delivery time has a timer in a hashed wheel; the wheel
+ * is advanced every {@code tracking.delay.tick-ms} and each timer that fires moves its shipment to
+ * the delayed set and pushes a {@link DelayedShipmentEvent} to {@value #DELAYED_TOPIC}. Kept
+ * current by ShipmentService after commit, like {@link ActiveShipmentView}, and like it drops a
+ * change older than the version it already holds or than the shipment's removal.
+ */
+@Slf4j
+@Service
+public class DelayedShipmentDetector {
+
+    public static final String DELAYED_TOPIC = "/topic/shipments/delayed";
+
+    // At the default one-second tick, a little over an hour per turn
+    private static final int WHEEL_SIZE = 4096;
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(5);
+
+    private final ShipmentRepository shipmentRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final HashedTimerWheel<Long> wheel;
+
+    // Active shipments with a deadline, delayed or not. Changes to a shipment's timer and delayed
+    // entry are made under its bin here.
+    private final Map<Long, Watched> watched = new ConcurrentHashMap<>();
+    // Shipment id -> when it was found late
+    private final Map<Long, LocalDateTime> delayed = new ConcurrentHashMap<>();
+    private final Tombstones<Long> removed = new Tombstones<>(TOMBSTONE_TTL);
+
+    public DelayedShipmentDetector(ShipmentRepository shipmentRepository, SimpMessagingTemplate messagingTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${tracking.delay.tick-ms:1000}") long tickMillis) {
+        this.shipmentRepository = shipmentRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.wheel = new HashedTimerWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+        Gauge.builder("shipment.delayed", delayed, Map::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadActiveShipments() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Shipment shipment : shipmentRepository.findByStatusIn(List.copyOf(ActiveShipmentView.ACTIVE_STATUSES))) {
+            ShipmentSummary summary = ShipmentSummary.from(shipment);
+            if (summary.getEstimatedDeliveryTime() == null) {
+                continue;
+            }
+            watched.put(summary.getId(), new Watched(summary, shipment.getVersion()));
+            // Already late before we started: counted, but not announced again
+            if (!Shipment.isPastDue(summary.getEstimatedDeliveryTime(), now)) {
+                wheel.schedule(summary.getId(), toMillis(summary.getEstimatedDeliveryTime()));
+            } else {
+                delayed.put(summary.getId(), now);
+            }
+        }
+        log.info("Watching {} active shipments, {} already delayed", watched.size(), delayed.size());
+    }
+
+    /**
+     * Re-arm, or drop, the timer of a shipment that just changed. Inside a transaction the change is
+     * applied after commit, with the version the flush gave it.
+     */
+    public void update(Shipment shipment) {
+        ShipmentSummary summary = ShipmentSummary.from(shipment);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(summary, shipment.getVersion());
+                }
+            });
+        } else {
+            apply(summary, shipment.getVersion());
+        }
+    }
+
+    @Scheduled(fixedRateString = "${tracking.delay.tick-ms:1000}")
+    public void tick() {
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(System.currentTimeMillis(), fired::add);
+        for (Long shipmentId : fired) {
+            markDelayed(shipmentId);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeTombstones() {
+        removed.purge();
+    }
+
+    public int delayedCount() {
+        return delayed.size();
+    }
+
+    /**
+     * Delayed shipments, longest overdue first.
+     */
+    public List<DelayedShipmentEvent> getDelayedShipments() {
+        List<DelayedShipmentEvent> result = new ArrayList<>(delayed.size());
+        int count = delayed.size();
+        delayed.forEach((shipmentId, detectedAt) -> {
+            Watched entry = watched.get(shipmentId);
+            if (entry != null) {
+                result.add(new DelayedShipmentEvent(shipmentId, entry.summary().getTrackingNumber(),
+                        entry.summary().getEstimatedDeliveryTime(), detectedAt, count));
+            }
+        });
+        result.sort(Comparator.comparing(DelayedShipmentEvent::estimatedDeliveryTime));
+        return result;
+    }
+
+    private void apply(ShipmentSummary summary, Long version) {
+        long summaryVersion = version != null ? version : 0;
+        boolean active = ActiveShipmentView.ACTIVE_STATUSES.contains(ShipmentStatus.valueOf(summary.getStatus()));
+        LocalDateTime deadline = summary.getEstimatedDeliveryTime();
+        boolean[] overdue = new boolean[1];
+        watched.compute(summary.getId(), (id, previous) -> {
+            if (previous != null ? summaryVersion <= previous.version() : removed.buries(id, summaryVersion)) {
+                return previous;
+            }
+            if (!active || deadline == null) {
+                removed.bury(id, summaryVersion);
+                wheel.cancel(id);
+                delayed.remove(id);
+                return null;
+            }
+            removed.forget(id);
+            if (!Shipment.isPastDue(deadline, LocalDateTime.now())) {
+                delayed.remove(id);
+                wheel.schedule(id, toMillis(deadline));
+            } else {
+                wheel.cancel(id);
+                overdue[0] = true;
+            }
+            return new Watched(summary, summaryVersion);
+        });
+        if (overdue[0]) {
+            markDelayed(summary.getId());
+        }
+    }
+
+    private void markDelayed(Long shipmentId) {
+        LocalDateTime now = LocalDateTime.now();
+        DelayedShipmentEvent[] event = new DelayedShipmentEvent[1];
+        // Under the bin, so a shipment removed meanwhile is not put back in the delayed set
+        watched.computeIfPresent(shipmentId, (id, entry) -> {
+            if (delayed.putIfAbsent(id, now) == null) {
+                event[0] = new DelayedShipmentEvent(id, entry.summary().getTrackingNumber(),
+                        entry.summary().getEstimatedDeliveryTime(), now, delayed.size());
+            }
+            return entry;
+        });
+        if (event[0] != null) {
+            messagingTemplate.convertAndSend(DELAYED_TOPIC, event[0]);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Watched(ShipmentSummary summary, long version) {
+    }
+}
@@ -0,0 +1,236 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.order.OrderLoad;
+import com.warehousebackend.dto.route.DispatchPlanResponse;
+import com.warehousebackend.dto.route.RouteResponse;
+import com.warehousebackend.entity.*;
+import com.warehousebackend.exception.BusinessException;
+import com.warehousebackend.exception.ResourceNotFoundException;
+import com.warehousebackend.repository.OrderRepository;
+import com.warehousebackend.repository.VehicleRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import com.warehousebackend.service.routing.DistanceMatrix;
+import com.warehousebackend.service.routing.VehicleRoutingSolver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Batch dispatch for one warehouse: every PROCESSING order is loaded onto the AVAILABLE vehicles
+ * that have a driver by {@link VehicleRoutingSolver}, within each vehicle's weight and volume
+ * capacity, and each vehicle used gets a delivery route and one shipment per stop.
+ *
+ * The candidates are read and the plan solved outside any write transaction, so the solver's time
+ * budget holds no connection or row lock. The plan is then written in one short transaction that
+ * first claims its vehicles and orders with conditional updates: a vehicle taken since the read
+ * gives its orders back as unassigned, an order taken since is dropped from its route, and a
+ * failed write leaves no half-dispatched fleet behind.
+ */
+@Slf4j
+@Service
+public class DispatchPlanningService {
+
+    private static final String AVAILABLE = "AVAILABLE";
+
+    private final WarehouseRepository warehouseRepository;
+    private final OrderRepository orderRepository;
+    private final VehicleRepository vehicleRepository;
+    private final RoutePlanningService routePlanningService;
+    private final ShipmentService shipmentService;
+    private final DistanceMatrixService distanceMatrixService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final long timeBudgetMillis;
+    private final int deliveryWindowMinutes;
+
+    public DispatchPlanningService(WarehouseRepository warehouseRepository, OrderRepository orderRepository,
+                                   VehicleRepository vehicleRepository, RoutePlanningService routePlanningService,
+                                   ShipmentService shipmentService, DistanceMatrixService distanceMatrixService,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${routing.dispatch.time-budget-ms:10000}") long timeBudgetMillis,
+                                   @Value("${routing.dispatch.delivery-window-minutes:60}") int deliveryWindowMinutes) {
+        this.warehouseRepository = warehouseRepository;
+        this.orderRepository = orderRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.routePlanningService = routePlanningService;
+        this.shipmentService = shipmentService;
+        this.distanceMatrixService = distanceMatrixService;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.deliveryWindowMinutes = deliveryWindowMinutes;
+    }
+
+    public DispatchPlanResponse planDispatch(Long warehouseId) {
+        Candidates candidates = readOnlyTransactionTemplate.execute(status -> loadCandidates(warehouseId));
+        List<Vehicle> vehicles = candidates.vehicles();
+
+        // A vehicle without a recorded capacity is not limited in that dimension
+        List<VehicleRoutingSolver.Capacity> capacities = vehicles.stream()
+                .map(vehicle -> new VehicleRoutingSolver.Capacity(
+                        vehicle.getCapacity() != null ? vehicle.getCapacity() : Double.POSITIVE_INFINITY,
+                        vehicle.getVolumeCapacity() != null ? vehicle.getVolumeCapacity() : Double.POSITIVE_INFINITY))
+                .toList();
+
+        long started = System.nanoTime();
+        DistanceMatrix distances = distanceMatrixService.matrix(candidates.warehouse(), candidates.latitudes(),
+                candidates.longitudes());
+        VehicleRoutingSolver.Solution solution = VehicleRoutingSolver.solve(distances, candidates.weights(),
+                candidates.volumes(), capacities, timeBudgetMillis);
+        long planningMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Planned {} orders on {} vehicles from {} in {} ms, {} unassigned", candidates.orders().size(),
+                vehicles.size(), candidates.warehouse().getName(), planningMillis, solution.unassigned().length);
+
+        return transactionTemplate.execute(status -> persist(candidates, distances, solution, planningMillis));
+    }
+
+    private Candidates loadCandidates(Long warehouseId) {
+        Warehouse warehouse = warehouseRepository.findById(warehouseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Warehouse not found"));
+        if (warehouse.getLatitude() == null || warehouse.getLongitude() == null) {
+            throw new BusinessException("Warehouse has no coordinates: " + warehouse.getName());
+        }
+
+        List<Long> unassigned = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (Order order : orderRepository.findByWarehouseIdAndStatusWithShipment(warehouseId, OrderStatus.PROCESSING)) {
+            if (order.getShipment() != null) {
+                continue;
+            }
+            if (order.getShippingLatitude() == null || order.getShippingLongitude() == null) {
+                unassigned.add(order.getId());
+            } else {
+                orders.add(order);
+            }
+        }
+        if (orders.isEmpty()) {
+            throw new BusinessException("No processing orders to dispatch from " + warehouse.getName());
+        }
+        // A planned shipment is driven by the vehicle's current driver, so a vehicle without one cannot go
+        List<Vehicle> vehicles = vehicleRepository.findByStatusWithDriver(AVAILABLE).stream()
+                .filter(vehicle -> vehicle.getCurrentDriver() != null)
+                .toList();
+        if (vehicles.isEmpty()) {
+            throw new BusinessException("No vehicles available");
+        }
+
+        Map<Long, OrderLoad> loads = orderRepository.findLoads(orders.stream().map(Order::getId).toList()).stream()
+                .collect(Collectors.toMap(OrderLoad::orderId, Function.identity()));
+        int size = orders.size() + 1;
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        double[] weights = new double[size];
+        double[] volumes = new double[size];
+        latitudes[0] = warehouse.getLatitude();
+        longitudes[0] = warehouse.getLongitude();
+        for (int i = 1; i < size; i++) {
+            Order order = orders.get(i - 1);
+            OrderLoad load = loads.get(order.getId());
+            latitudes[i] = order.getShippingLatitude();
+            longitudes[i] = order.getShippingLongitude();
+            weights[i] = load != null && load.weight() != null ? load.weight() : 0;
+            volumes[i] = load != null && load.volume() != null ? load.volume() : 0;
+        }
+        return new Candidates(warehouse, orders, vehicles, unassigned, latitudes, longitudes, weights, volumes);
+    }
+
+    private DispatchPlanResponse persist(Candidates candidates, DistanceMatrix distances,
+                                         VehicleRoutingSolver.Solution solution, long planningMillis) {
+        Warehouse warehouse = candidates.warehouse();
+        List<Order> planned = candidates.orders();
+        List<Long> unassigned = new ArrayList<>(candidates.unassigned());
+        for (int node : solution.unassigned()) {
+            unassigned.add(planned.get(node - 1).getId());
+        }
+
+        // Every vehicle is claimed before any order, each in id order, so two runs never wait on
+        // each other in a cycle
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, int[]> visitsByVehicle = new TreeMap<>();
+        for (int v = 0; v < candidates.vehicles().size(); v++) {
+            if (solution.routes()[v].length > 0) {
+                visitsByVehicle.put(candidates.vehicles().get(v).getId(), solution.routes()[v]);
+            }
+        }
+        Set<Long> wantedOrderIds = new TreeSet<>();
+        for (Iterator<Map.Entry<Long, int[]>> it = visitsByVehicle.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, int[]> entry = it.next();
+            boolean claimed = vehicleRepository.claimAvailable(entry.getKey(), now) == 1;
+            for (int node : entry.getValue()) {
+                (claimed ? wantedOrderIds : unassigned).add(planned.get(node - 1).getId());
+            }
+            if (!claimed) {
+                it.remove();
+            }
+        }
+        List<Long> claimedOrderIds = new ArrayList<>();
+        for (Long orderId : wantedOrderIds) {
+            if (orderRepository.claim(orderId, OrderStatus.PROCESSING, OrderStatus.SHIPPED, now) == 1) {
+                claimedOrderIds.add(orderId);
+            }
+        }
+        if (claimedOrderIds.size() < wantedOrderIds.size()) {
+            log.info("{} orders from {} were dispatched elsewhere while planning",
+                    wantedOrderIds.size() - claimedOrderIds.size(), warehouse.getName());
+        }
+
+        // The claims cleared the persistence context; work on fresh copies of what we now hold
+        Map<Long, Order> claimedOrders = claimedOrderIds.isEmpty() ? Map.of()
+                : orderRepository.findByIdInWithShipment(claimedOrderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        Map<Long, Vehicle> claimedVehicles = vehicleRepository.findAllById(visitsByVehicle.keySet()).stream()
+                .collect(Collectors.toMap(Vehicle::getId, Function.identity()));
+        List<Order> orders = new ArrayList<>(planned.size());
+        for (Order order : planned) {
+            orders.add(claimedOrders.get(order.getId()));
+        }
+
+        LocalDateTime departure = LocalDateTime.now();
+        List<RouteResponse> routes = new ArrayList<>();
+        int shipments = 0;
+        for (Map.Entry<Long, int[]> entry : visitsByVehicle.entrySet()) {
+            Vehicle vehicle = claimedVehicles.get(entry.getKey());
+            int[] visits = Arrays.stream(entry.getValue()).filter(node -> orders.get(node - 1) != null).toArray();
+            if (visits.length == 0) {
+                vehicle.setStatus(AVAILABLE);
+                continue;
+            }
+            DeliveryRoute route = routePlanningService.saveRoute(warehouse, orders, distances, visits,
+                    warehouse.getName() + " - " + vehicle.getLicensePlate() + " - " + visits.length + " stops",
+                    "SHORTEST");
+            for (RouteStop stop : route.getStops()) {
+                shipmentService.createPlannedShipment(stop.getOrder(), vehicle, route,
+                        departure.plusMinutes(stop.getEstimatedArrivalMinutes() + deliveryWindowMinutes));
+                shipments++;
+            }
+            routes.add(RouteResponse.from(route));
+        }
+
+        return DispatchPlanResponse.builder()
+                .warehouseId(warehouse.getId())
+                .vehicleCount(routes.size())
+                .shipmentCount(shipments)
+                .totalDistance(Math.round(routes.stream().mapToDouble(RouteResponse::getTotalDistance).sum() * 100) / 100.0)
+                .planningMillis(planningMillis)
+                .routes(routes)
+                .unassignedOrderIds(unassigned)
+                .build();
+    }
+
+    // Read in a read-only transaction of their own; once the plan is written only their ids and plain
+    // values are used, the rows themselves are claimed and read again
+    private record Candidates(Warehouse warehouse, List<Order> orders, List<Vehicle> vehicles, List<Long> unassigned,
+                              double[] latitudes, double[] longitudes, double[] weights, double[] volumes) {
+    }
+}
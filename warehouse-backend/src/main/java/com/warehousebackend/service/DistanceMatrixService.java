@@ -0,0 +1,400 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.service.routing.DistanceFunction;
+import com.warehousebackend.service.routing.DistanceMatrix;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Cache of distances between warehouses and delivery points, so repeat plans over the same
+ * addresses do not call the {@link DistanceFunction} again.
+ *
+ * Delivery points are snapped to a grid of {@code routing.distance.grid-meters} and numbered; two
+ * addresses in the same cell share one point, and every distance to a point is measured to its
+ * cell centre. Warehouse-to-point distances live in one {@code double[]} row per warehouse, and
+ * point-to-point distances in an open-addressing table of primitive keys and values, dropped
+ * wholesale once it holds {@code routing.distance.max-cached-pairs}. Past
+ * {@code routing.distance.max-points} points the whole cache starts over.
+ *
+ * Lookups are batched: each call takes the read lock once to collect hits, computes the misses in
+ * parallel without holding any lock, then takes the write lock once to store them.
+ */
+@Slf4j
+@Service
+public class DistanceMatrixService {
+
+    private static final double METERS_PER_DEGREE = 111_320;
+
+    private final DistanceFunction distanceFunction;
+    private final double gridDegrees;
+    private final int maxPoints;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Everything below is guarded by lock; epoch is bumped when the cache starts over, so results
+    // computed against the old point numbering are not stored under the new one
+    private long epoch;
+    private final Map<Long, Integer> pointsByCell = new HashMap<>();
+    private int pointCount;
+    private final Map<Long, WarehouseRow> warehouseRows = new HashMap<>();
+    private final PairTable pairs;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public DistanceMatrixService(ObjectProvider<DistanceFunction> distanceFunction, MeterRegistry meterRegistry,
+                                 @Value("${routing.road-factor:1.3}") double roadFactor,
+                                 @Value("${routing.distance.grid-meters:50}") double gridMeters,
+                                 @Value("${routing.distance.max-points:200000}") int maxPoints,
+                                 @Value("${routing.distance.max-cached-pairs:2000000}") int maxCachedPairs) {
+        this(distanceFunction.getIfAvailable(() -> DistanceFunction.haversine(roadFactor)), meterRegistry,
+                gridMeters, maxPoints, maxCachedPairs);
+    }
+
+    DistanceMatrixService(DistanceFunction distanceFunction, MeterRegistry meterRegistry, double gridMeters,
+                          int maxPoints, int maxCachedPairs) {
+        this.distanceFunction = distanceFunction;
+        this.gridDegrees = gridMeters / METERS_PER_DEGREE;
+        this.maxPoints = maxPoints;
+        this.pairs = new PairTable(maxCachedPairs);
+        this.hits = Counter.builder("routing.distance.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("routing.distance.lookups").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Distances from the warehouse (index 0) and between the given delivery points (1..n), in the
+     * shape {@link com.warehousebackend.service.routing.RouteOptimizer} and the dispatch solver take.
+     */
+    public DistanceMatrix matrix(Warehouse depot, double[] latitudes, double[] longitudes) {
+        Points points = snap(latitudes, longitudes);
+        double[] fromDepot = fromWarehouse(depot, points);
+        int n = latitudes.length;
+        int size = n + 1;
+        double[] values = new double[size * size];
+        for (int i = 0; i < n; i++) {
+            values[i + 1] = fromDepot[i];
+            values[(i + 1) * size] = fromDepot[i];
+        }
+
+        // Pairs are numbered i * n + j over the upper triangle of the batch
+        long[] missing = new long[n * (n - 1) / 2 + 1];
+        int missingCount = 0;
+        lock.readLock().lock();
+        try {
+            boolean current = points.epoch() == epoch;
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    int a = points.ids()[i];
+                    int b = points.ids()[j];
+                    double km = a == b ? 0 : current ? pairs.get(pairKey(a, b)) : Double.NaN;
+                    if (Double.isNaN(km)) {
+                        missing[missingCount++] = (long) i * n + j;
+                    } else {
+                        values[(i + 1) * size + j + 1] = km;
+                        values[(j + 1) * size + i + 1] = km;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.increment(n * (n - 1) / 2.0 - missingCount);
+        misses.increment(missingCount);
+
+        long[] computedPairs = Arrays.copyOf(missing, missingCount);
+        double[] computed = new double[missingCount];
+        IntStream.range(0, missingCount).parallel().forEach(k -> {
+            int i = (int) (computedPairs[k] / n);
+            int j = (int) (computedPairs[k] % n);
+            computed[k] = distanceFunction.km(points.latitudes()[i], points.longitudes()[i],
+                    points.latitudes()[j], points.longitudes()[j]);
+        });
+        for (int k = 0; k < missingCount; k++) {
+            int i = (int) (computedPairs[k] / n);
+            int j = (int) (computedPairs[k] % n);
+            values[(i + 1) * size + j + 1] = computed[k];
+            values[(j + 1) * size + i + 1] = computed[k];
+        }
+
+        if (missingCount > 0) {
+            lock.writeLock().lock();
+            try {
+                if (points.epoch() == epoch) {
+                    for (int k = 0; k < missingCount; k++) {
+                        int i = (int) (computedPairs[k] / n);
+                        int j = (int) (computedPairs[k] % n);
+                        pairs.put(pairKey(points.ids()[i], points.ids()[j]), computed[k]);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return DistanceMatrix.of(size, values);
+    }
+
+    /**
+     * Distance from the warehouse to each delivery point, in the order given.
+     */
+    public double[] fromWarehouse(Warehouse warehouse, double[] latitudes, double[] longitudes) {
+        return fromWarehouse(warehouse, snap(latitudes, longitudes));
+    }
+
+    /**
+     * Forget a warehouse's distances, after it moved or closed. Rows are also checked against the
+     * warehouse's coordinates on every lookup, so a lookup racing with the update cannot read a
+     * stale row.
+     */
+    public void evictWarehouse(Long warehouseId) {
+        lock.writeLock().lock();
+        try {
+            warehouseRows.remove(warehouseId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int pointCount() {
+        lock.readLock().lock();
+        try {
+            return pointCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double[] fromWarehouse(Warehouse warehouse, Points points) {
+        double latitude = warehouse.getLatitude();
+        double longitude = warehouse.getLongitude();
+        int n = points.ids().length;
+        double[] result = new double[n];
+        Arrays.fill(result, Double.NaN);
+        lock.readLock().lock();
+        try {
+            WarehouseRow row = warehouseRows.get(warehouse.getId());
+            if (points.epoch() == epoch && row != null && row.at(latitude, longitude)) {
+                for (int i = 0; i < n; i++) {
+                    result[i] = row.get(points.ids()[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int[] missing = IntStream.range(0, n).filter(i -> Double.isNaN(result[i])).toArray();
+        hits.increment(n - missing.length);
+        misses.increment(missing.length);
+        if (missing.length == 0) {
+            return result;
+        }
+        Arrays.stream(missing).parallel().forEach(i -> result[i] = distanceFunction.km(latitude, longitude,
+                points.latitudes()[i], points.longitudes()[i]));
+
+        lock.writeLock().lock();
+        try {
+            if (points.epoch() == epoch) {
+                WarehouseRow row = warehouseRows.get(warehouse.getId());
+                if (row == null || !row.at(latitude, longitude)) {
+                    row = new WarehouseRow(latitude, longitude);
+                    warehouseRows.put(warehouse.getId(), row);
+                }
+                for (int i : missing) {
+                    row.put(points.ids()[i], result[i], pointCount);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return result;
+    }
+
+    // Number each coordinate's grid cell, registering new cells
+    private Points snap(double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        long[] cells = new long[n];
+        double[] snappedLatitudes = new double[n];
+        double[] snappedLongitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            long row = Math.round(latitudes[i] / gridDegrees);
+            long column = Math.round(longitudes[i] / gridDegrees);
+            cells[i] = (row << 32) ^ (column & 0xFFFFFFFFL);
+            snappedLatitudes[i] = row * gridDegrees;
+            snappedLongitudes[i] = column * gridDegrees;
+        }
+
+        int[] ids = new int[n];
+        boolean complete = true;
+        long snappedEpoch;
+        lock.readLock().lock();
+        try {
+            snappedEpoch = epoch;
+            for (int i = 0; i < n; i++) {
+                Integer id = pointsByCell.get(cells[i]);
+                ids[i] = id != null ? id : -1;
+                complete &= id != null;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (complete) {
+            return new Points(snappedEpoch, ids, snappedLatitudes, snappedLongitudes);
+        }
+
+        lock.writeLock().lock();
+        try {
+            int added = (int) Arrays.stream(cells).filter(cell -> !pointsByCell.containsKey(cell)).count();
+            if (pointCount + added > maxPoints) {
+                clear();
+                log.info("Distance cache passed {} points and was cleared", maxPoints);
+            }
+            for (int i = 0; i < n; i++) {
+                Integer id = pointsByCell.get(cells[i]);
+                if (id == null) {
+                    if (pointCount == maxPoints) {
+                        // A single batch larger than the cache: return it uncached
+                        return new Points(-1, IntStream.range(0, n).map(k -> -1 - k).toArray(),
+                                snappedLatitudes, snappedLongitudes);
+                    }
+                    id = pointCount++;
+                    pointsByCell.put(cells[i], id);
+                }
+                ids[i] = id;
+            }
+            return new Points(epoch, ids, snappedLatitudes, snappedLongitudes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clear() {
+        epoch++;
+        pointsByCell.clear();
+        pointCount = 0;
+        warehouseRows.clear();
+        pairs.clear();
+    }
+
+    private static long pairKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    // Batch of delivery points: cache ids, unique per cell, and the cell centres
+    private record Points(long epoch, int[] ids, double[] latitudes, double[] longitudes) {
+    }
+
+    private static final class WarehouseRow {
+        private final double latitude;
+        private final double longitude;
+        // Indexed by point id, NaN where not computed yet
+        private double[] distances = new double[0];
+
+        WarehouseRow(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        boolean at(double latitude, double longitude) {
+            return this.latitude == latitude && this.longitude == longitude;
+        }
+
+        double get(int point) {
+            return point < distances.length ? distances[point] : Double.NaN;
+        }
+
+        void put(int point, double km, int pointCount) {
+            if (point >= distances.length) {
+                int previous = distances.length;
+                distances = Arrays.copyOf(distances, Math.max(pointCount, point + 1));
+                Arrays.fill(distances, previous, distances.length, Double.NaN);
+            }
+            distances[point] = km;
+        }
+    }
+
+    // Open addressing on primitive long keys with linear probing; 0 is the empty key, which no
+    // pair of distinct points produces
+    private static final class PairTable {
+        private final int maxSize;
+        private long[] keys = new long[1024];
+        private double[] values = new double[1024];
+        private int size;
+
+        PairTable(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        double get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return Double.NaN;
+        }
+
+        void put(long key, double value) {
+            if (size >= maxSize) {
+                clear();
+            }
+            if ((size + 1) * 2L > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                size++;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        void clear() {
+            keys = new long[1024];
+            values = new double[1024];
+            size = 0;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+            keys = new long[capacity];
+            values = new double[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i], mask);
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
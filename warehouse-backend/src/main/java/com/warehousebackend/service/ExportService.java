@@ -0,0 +1,152 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warehousebackend.exception.BusinessException;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.InventoryTransactionRepository;
+import com.warehousebackend.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Streams full inventory, order and ledger dumps straight from a database cursor to the response.
+ * Rows are scalar tuples written one at a time, so heap use does not grow with the export size.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final String[] INVENTORY_COLUMNS = {
+            "id", "productId", "productSku", "productName", "warehouseId", "warehouseName", "quantity",
+            "reservedQuantity", "minThreshold", "maxThreshold", "location", "batchNumber", "lastUpdated"
+    };
+
+    private static final String[] ORDER_COLUMNS = {
+            "id", "orderNumber", "status", "warehouseId", "customerName", "customerEmail", "customerPhone",
+            "shippingAddress", "shippingCity", "subtotal", "shippingFee", "discount", "tax", "totalAmount",
+            "paymentMethod", "paymentStatus", "orderDate", "actualDeliveryDate"
+    };
+
+    private static final String[] TRANSACTION_COLUMNS = {
+            "id", "transactionDate", "inventoryId", "productSku", "warehouseId", "type", "quantity",
+            "beforeQuantity", "afterQuantity", "referenceNumber", "referenceType", "notes"
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InventoryRepository inventoryRepository;
+    private final OrderRepository orderRepository;
+    private final InventoryTransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format from(String value) {
+            try {
+                return Format.valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    // The cursor only stays open inside a transaction, so each export runs in its own
+    @Transactional(readOnly = true)
+    public void exportInventory(OutputStream out, Format format) throws IOException {
+        try (Stream<Object[]> rows = inventoryRepository.streamForExport()) {
+            write(out, format, INVENTORY_COLUMNS, rows);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportOrders(OutputStream out, Format format) throws IOException {
+        try (Stream<Object[]> rows = orderRepository.streamForExport()) {
+            write(out, format, ORDER_COLUMNS, rows);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportTransactions(OutputStream out, Format format,
+                                   LocalDateTime start, LocalDateTime end) throws IOException {
+        try (Stream<Object[]> rows = transactionRepository.streamForExport(start, end)) {
+            write(out, format, TRANSACTION_COLUMNS, rows);
+        }
+    }
+
+    private void write(OutputStream out, Format format, String[] columns, Stream<Object[]> rows) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+
+        Iterator<Object[]> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            Object[] row = iterator.next();
+            if (format == Format.CSV) {
+                writeCsv(writer, row);
+            } else {
+                writeJson(writer, columns, row);
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(Writer writer, Object[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = text(row[i]);
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void writeJson(Writer writer, String[] columns, Object[] row) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            Object value = row[i];
+            line.put(columns[i], value instanceof Number || value instanceof Boolean ? value : text(value));
+        }
+        writer.write(objectMapper.writeValueAsString(line));
+        writer.write('\n');
+    }
+
+    private static String text(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Enum<?> e) {
+            return e.name();
+        }
+        if (value instanceof Temporal) {
+            return value.toString();
+        }
+        return String.valueOf(value);
+    }
+}
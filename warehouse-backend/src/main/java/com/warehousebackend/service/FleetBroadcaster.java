@@ -0,0 +1,101 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.config.TopicSubscriptions;
+import com.warehousebackend.dto.shipment.FleetFrame;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Publishes every active shipment's position to {@value #FLEET_TOPIC} once per
+ * {@code tracking.fleet.interval-ms}, so a map needs one subscription instead of one per shipment.
+ *
+ * A dispatcher who only covers a region subscribes to
+ * {@code /topic/fleet/{south},{west},{north},{east}} instead and gets the shipments inside that
+ * box. Subscribers to the same box share one frame.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FleetBroadcaster {
+
+    public static final String FLEET_TOPIC = "/topic/fleet";
+
+    private final ActiveShipmentView activeShipmentView;
+    private final TopicSubscriptions topicSubscriptions;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Scheduled(fixedRateString = "${tracking.fleet.interval-ms:1000}")
+    public void publish() {
+        Set<String> destinations = topicSubscriptions.destinationsStartingWith(FLEET_TOPIC);
+        if (destinations.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<ActiveShipmentView.Position> positions = activeShipmentView.positions();
+        for (String destination : destinations) {
+            if (destination.equals(FLEET_TOPIC)) {
+                messagingTemplate.convertAndSend(destination, new FleetFrame(now, encode(positions, null)));
+            } else if (destination.startsWith(FLEET_TOPIC + "/")) {
+                double[] box = parseBox(destination.substring(FLEET_TOPIC.length() + 1));
+                if (box != null) {
+                    messagingTemplate.convertAndSend(destination, new FleetFrame(now, encode(positions, box)));
+                }
+            }
+        }
+    }
+
+    private static List<Object[]> encode(List<ActiveShipmentView.Position> positions, double[] box) {
+        List<Object[]> rows = new ArrayList<>(positions.size());
+        for (ActiveShipmentView.Position position : positions) {
+            if (box == null || inside(position, box)) {
+                rows.add(new Object[]{
+                        position.shipmentId(),
+                        position.vehiclePlate(),
+                        round(position.latitude(), 1e5),
+                        round(position.longitude(), 1e5),
+                        position.speed() != null ? round(position.speed(), 10) : null,
+                        position.status().name()});
+            }
+        }
+        return rows;
+    }
+
+    private static boolean inside(ActiveShipmentView.Position position, double[] box) {
+        return position.latitude() >= box[0] && position.latitude() <= box[2]
+                && position.longitude() >= box[1] && position.longitude() <= box[3];
+    }
+
+    // south,west,north,east; null when the suffix is not a box
+    static double[] parseBox(String suffix) {
+        String[] parts = suffix.split(",");
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            double[] box = new double[4];
+            for (int i = 0; i < 4; i++) {
+                box[i] = Double.parseDouble(parts[i].trim());
+            }
+            return box[0] <= box[2] && box[1] <= box[3] ? box : null;
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring fleet subscription with a malformed box: {}", suffix);
+            return null;
+        }
+    }
+
+    private static double round(double value, double scale) {
+        return Math.round(value * scale) / scale;
+    }
+}
@@ -0,0 +1,70 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.exception.BusinessException;
+import com.warehousebackend.util.SpatialGrid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Radius and bounding-box lookups over live shipment and vehicle positions. Answered from the
+ * in-memory indexes; nothing here touches the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class GeoSearchService {
+
+    private static final double MAX_RADIUS_KM = 100;
+
+    private final ActiveShipmentView activeShipmentView;
+    private final VehicleLocator vehicleLocator;
+
+    public List<SpatialGrid.Hit<ActiveShipmentView.Position>> shipmentsNear(double latitude, double longitude,
+                                                                           double radiusKm) {
+        validateRadius(latitude, longitude, radiusKm);
+        return activeShipmentView.positionsWithin(latitude, longitude, radiusKm);
+    }
+
+    public List<ActiveShipmentView.Position> shipmentsIn(double south, double west, double north, double east) {
+        validateBox(south, west, north, east);
+        return activeShipmentView.positionsIn(south, west, north, east);
+    }
+
+    public List<SpatialGrid.Hit<VehicleLocator.Position>> vehiclesNear(double latitude, double longitude,
+                                                                      double radiusKm, String status) {
+        validateRadius(latitude, longitude, radiusKm);
+        return vehicleLocator.vehiclesWithin(latitude, longitude, radiusKm, status);
+    }
+
+    public List<VehicleLocator.Position> vehiclesIn(double south, double west, double north, double east,
+                                                    String status) {
+        validateBox(south, west, north, east);
+        return vehicleLocator.vehiclesIn(south, west, north, east, status);
+    }
+
+    private static void validateRadius(double latitude, double longitude, double radiusKm) {
+        validatePoint(latitude, longitude);
+        if (!(radiusKm > 0 && radiusKm <= MAX_RADIUS_KM)) {
+            throw new BusinessException("Radius must be between 0 and " + (int) MAX_RADIUS_KM + " km");
+        }
+    }
+
+    private static void validateBox(double south, double west, double north, double east) {
+        validatePoint(south, west);
+        validatePoint(north, east);
+        if (south > north || west > east) {
+            throw new BusinessException("South must not exceed north and west must not exceed east");
+        }
+    }
+
+    private static void validatePoint(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new BusinessException("Coordinates out of range");
+        }
+    }
+}
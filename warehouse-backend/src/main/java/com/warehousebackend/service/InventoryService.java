@@ -4,6 +4,7 @@ package com.warehousebackend.service;
  * @author MyDuyen
  */
 
+import com.warehousebackend.dto.common.CursorPageResponse;
 import com.warehousebackend.dto.inventory.*;
 import com.warehousebackend.entity.*;
 import com.warehousebackend.exception.BusinessException;
@@ -12,11 +13,13 @@ import com.warehousebackend.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,131 +27,267 @@ import java.util.stream.Collectors;
 public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
-    private final ProductRepository productRepository;
     private final WarehouseRepository warehouseRepository;
     private final InventoryTransactionRepository transactionRepository;
+    private final StockReservationService stockReservationService;
+    private final LowStockTracker lowStockTracker;
+    private final ReferenceDataCache referenceDataCache;
 
     @Transactional
     public InventoryResponse stockIn(StockDTO dto) {
-        Product product = productRepository.findById(dto.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
-
-        Warehouse warehouse = warehouseRepository.findById(dto.getWarehouseId())
-                .orElseThrow(() -> new ResourceNotFoundException("Warehouse not found"));
+        // Only the foreign keys are needed; existence is checked against the reference cache
+        Product product = referenceDataCache.productReference(dto.getProductId());
+        Warehouse warehouse = referenceDataCache.warehouseReference(dto.getWarehouseId());
+
+        // Add in place, so reservations made since any earlier read are never written back over
+        int updated = inventoryRepository.addStock(product.getId(), warehouse.getId(), dto.getQuantity(),
+                dto.getLocation(), dto.getBatchNumber(), LocalDateTime.now());
+        if (updated == 0) {
+            inventoryRepository.createMissingInventory(warehouse.getId(), List.of(product.getId()));
+            inventoryRepository.addStock(product.getId(), warehouse.getId(), dto.getQuantity(),
+                    dto.getLocation(), dto.getBatchNumber(), LocalDateTime.now());
+        }
 
-        // Get or create inventory
+        // Our update holds the row lock, so this read sees exactly the post-addition quantity
         Inventory inventory = inventoryRepository
                 .findByProductAndWarehouse(product, warehouse)
-                .orElse(Inventory.builder()
-                        .product(product)
-                        .warehouse(warehouse)
-                        .quantity(0)
-                        .reservedQuantity(0)
-                        .minThreshold(10)
-                        .maxThreshold(1000)
-                        .build());
-
-        Integer beforeQuantity = inventory.getQuantity();
-        inventory.setQuantity(inventory.getQuantity() + dto.getQuantity());
-        inventory.setLastStockIn(LocalDateTime.now());
-
-        if (dto.getLocation() != null) {
-            inventory.setLocation(dto.getLocation());
-        }
-        if (dto.getBatchNumber() != null) {
-            inventory.setBatchNumber(dto.getBatchNumber());
-        }
-
-        Inventory savedInventory = inventoryRepository.save(inventory);
+                .orElseThrow(() -> new BusinessException("Inventory not found"));
+        Integer afterQuantity = inventory.getQuantity();
 
         // Record transaction
         recordTransaction(inventory, TransactionType.STOCK_IN, dto.getQuantity(),
-                beforeQuantity, savedInventory.getQuantity(), dto.getReferenceNumber(), dto.getNotes());
+                afterQuantity - dto.getQuantity(), afterQuantity, dto.getReferenceNumber(), dto.getNotes());
+        lowStockTracker.update(inventory);
 
-        return InventoryResponse.from(savedInventory);
+        return referenceDataCache.toResponse(inventory);
     }
 
     @Transactional
     public InventoryResponse stockOut(StockDTO dto) {
-        Product product = productRepository.findById(dto.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
-
-        Warehouse warehouse = warehouseRepository.findById(dto.getWarehouseId())
-                .orElseThrow(() -> new ResourceNotFoundException("Warehouse not found"));
+        // Only the foreign keys are needed; existence is checked against the reference cache
+        Product product = referenceDataCache.productReference(dto.getProductId());
+        Warehouse warehouse = referenceDataCache.warehouseReference(dto.getWarehouseId());
+
+        // Check and deduct in a single conditional update instead of read-check-save
+        int updated = inventoryRepository.deductAvailableStock(
+                product.getId(), warehouse.getId(), dto.getQuantity(), LocalDateTime.now());
+        if (updated == 0 && stockReservationService.isSharded(product.getId(), warehouse.getId())) {
+            // Free units may be parked in escrow shards; pull them back and try again
+            stockReservationService.reclaimEscrow(product.getId(), warehouse.getId());
+            updated = inventoryRepository.deductAvailableStock(
+                    product.getId(), warehouse.getId(), dto.getQuantity(), LocalDateTime.now());
+        }
+        if (updated == 0) {
+            Integer available = inventoryRepository.findAvailableQuantity(product.getId(), warehouse.getId())
+                    .orElseThrow(() -> new BusinessException("Inventory not found"));
+            throw new BusinessException("Insufficient stock. Available: " +
+                    available + ", Requested: " + dto.getQuantity());
+        }
 
+        // Our update holds the row lock, so this read sees exactly the post-deduction quantity
         Inventory inventory = inventoryRepository
                 .findByProductAndWarehouse(product, warehouse)
                 .orElseThrow(() -> new BusinessException("Inventory not found"));
 
-        if (inventory.getAvailableQuantity() < dto.getQuantity()) {
-            throw new BusinessException("Insufficient stock. Available: " +
-                    inventory.getAvailableQuantity() + ", Requested: " + dto.getQuantity());
-        }
-
-        Integer beforeQuantity = inventory.getQuantity();
-        inventory.setQuantity(inventory.getQuantity() - dto.getQuantity());
-        inventory.setLastStockOut(LocalDateTime.now());
-
-        Inventory savedInventory = inventoryRepository.save(inventory);
+        Integer afterQuantity = inventory.getQuantity();
 
         // Record transaction
         recordTransaction(inventory, TransactionType.STOCK_OUT, dto.getQuantity(),
-                beforeQuantity, savedInventory.getQuantity(), dto.getReferenceNumber(), dto.getNotes());
+                afterQuantity + dto.getQuantity(), afterQuantity, dto.getReferenceNumber(), dto.getNotes());
+        lowStockTracker.update(inventory);
 
-        return InventoryResponse.from(savedInventory);
+        return referenceDataCache.toResponse(inventory);
     }
 
+    /**
+     * Receive a whole manifest in one transaction. Missing inventory rows are inserted first, then
+     * every row is locked with one query, inventory updates are flushed as a JDBC batch and the
+     * ledger rows are written with a single batched insert.
+     */
     @Transactional
-    public void transferStock(StockTransferDTO dto) {
-        Product product = productRepository.findById(dto.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+    public List<InventoryResponse> stockInBulk(BulkStockDTO dto) {
+        List<StockDTO> lines = dto.getItems();
+        loadProducts(lines);
+        loadWarehouses(lines);
+        createMissingInventories(lines);
+        Map<InventoryKey, Inventory> inventories = lockInventories(lines);
+
+        Map<InventoryKey, Inventory> touched = new LinkedHashMap<>();
+        List<InventoryTransaction> ledger = new ArrayList<>(lines.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (StockDTO line : lines) {
+            InventoryKey key = new InventoryKey(line.getWarehouseId(), line.getProductId());
+            Inventory inventory = inventories.get(key);
+
+            Integer beforeQuantity = inventory.getQuantity();
+            inventory.setQuantity(inventory.getQuantity() + line.getQuantity());
+            inventory.setLastStockIn(now);
+
+            if (line.getLocation() != null) {
+                inventory.setLocation(line.getLocation());
+            }
+            if (line.getBatchNumber() != null) {
+                inventory.setBatchNumber(line.getBatchNumber());
+            }
+
+            ledger.add(buildTransaction(inventory, TransactionType.STOCK_IN, line.getQuantity(),
+                    beforeQuantity, inventory.getQuantity(), line.getReferenceNumber(), line.getNotes()));
+            touched.put(key, inventory);
+        }
+
+        writeBulk(ledger);
+        lowStockTracker.update(touched.values());
+
+        return touched.values().stream()
+                .map(referenceDataCache::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Dispatch a whole manifest in one transaction. The rows are locked first and every line is
+     * checked against the running available quantity, so the request is rejected as a whole if
+     * any line would oversell.
+     */
+    @Transactional
+    public List<InventoryResponse> stockOutBulk(BulkStockDTO dto) {
+        List<StockDTO> lines = dto.getItems();
+        loadProducts(lines);
+        loadWarehouses(lines);
+        Map<InventoryKey, Inventory> inventories = lockInventories(lines);
+
+        Map<InventoryKey, Inventory> touched = new LinkedHashMap<>();
+        Set<Long> reclaimed = new HashSet<>();
+        List<InventoryTransaction> ledger = new ArrayList<>(lines.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (StockDTO line : lines) {
+            InventoryKey key = new InventoryKey(line.getWarehouseId(), line.getProductId());
+            Inventory inventory = inventories.get(key);
+            if (inventory == null) {
+                throw new BusinessException("Inventory not found for product " + line.getProductId() +
+                        " in warehouse " + line.getWarehouseId());
+            }
+
+            if (inventory.getAvailableQuantity() < line.getQuantity()) {
+                reclaimEscrow(inventory, reclaimed);
+            }
+            if (inventory.getAvailableQuantity() < line.getQuantity()) {
+                throw new BusinessException("Insufficient stock for product " + line.getProductId() +
+                        ". Available: " + inventory.getAvailableQuantity() + ", Requested: " + line.getQuantity());
+            }
+
+            Integer beforeQuantity = inventory.getQuantity();
+            inventory.setQuantity(inventory.getQuantity() - line.getQuantity());
+            inventory.setLastStockOut(now);
+
+            ledger.add(buildTransaction(inventory, TransactionType.STOCK_OUT, line.getQuantity(),
+                    beforeQuantity, inventory.getQuantity(), line.getReferenceNumber(), line.getNotes()));
+            touched.put(key, inventory);
+        }
 
-        Warehouse fromWarehouse = warehouseRepository.findById(dto.getFromWarehouseId())
-                .orElseThrow(() -> new ResourceNotFoundException("From warehouse not found"));
+        writeBulk(ledger);
+        lowStockTracker.update(touched.values());
 
-        Warehouse toWarehouse = warehouseRepository.findById(dto.getToWarehouseId())
-                .orElseThrow(() -> new ResourceNotFoundException("To warehouse not found"));
+        return touched.values().stream()
+                .map(referenceDataCache::toResponse)
+                .collect(Collectors.toList());
+    }
 
-        // Stock out from source
-        Inventory fromInventory = inventoryRepository
-                .findByProductAndWarehouse(product, fromWarehouse)
-                .orElseThrow(() -> new BusinessException("Source inventory not found"));
+    @Transactional
+    public void transferStock(StockTransferDTO dto) {
+        BulkTransferDTO transfer = new BulkTransferDTO();
+        transfer.setFromWarehouseId(dto.getFromWarehouseId());
+        transfer.setToWarehouseId(dto.getToWarehouseId());
+        transfer.setItems(List.of(new BulkTransferDTO.TransferLine(dto.getProductId(), dto.getQuantity())));
+        transfer.setNotes(dto.getNotes());
+        transferStockBulk(transfer);
+    }
 
-        if (fromInventory.getAvailableQuantity() < dto.getQuantity()) {
-            throw new BusinessException("Insufficient stock in source warehouse");
+    /**
+     * Move many products between two warehouses in one transaction. All rows involved are locked up
+     * front in (warehouse id, product id) order, so crossing transfers queue instead of deadlocking;
+     * the updates then go out as one JDBC batch and the ledger as one batched insert.
+     */
+    @Transactional
+    public List<InventoryResponse> transferStockBulk(BulkTransferDTO dto) {
+        Long fromId = dto.getFromWarehouseId();
+        Long toId = dto.getToWarehouseId();
+        if (fromId.equals(toId)) {
+            throw new BusinessException("Source and destination warehouse must be different");
         }
 
-        Integer fromBefore = fromInventory.getQuantity();
-        fromInventory.setQuantity(fromInventory.getQuantity() - dto.getQuantity());
-        inventoryRepository.save(fromInventory);
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (BulkTransferDTO.TransferLine line : dto.getItems()) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
 
-        recordTransaction(fromInventory, TransactionType.TRANSFER, dto.getQuantity(),
-                fromBefore, fromInventory.getQuantity(), "TRANSFER-OUT", dto.getNotes());
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        productIds.forEach(referenceDataCache::getProduct);
+        referenceDataCache.getWarehouse(fromId);
+        referenceDataCache.getWarehouse(toId);
+
+        // Destination rows must exist before locking. They are inserted in product order and roll
+        // back with the transfer; a concurrent transfer inserting the same row waits on this insert
+        // while it still holds no row locks
+        Set<Long> missing = new HashSet<>(productIds);
+        inventoryRepository.findProductIdsInWarehouse(toId, productIds).forEach(missing::remove);
+        if (!missing.isEmpty()) {
+            inventoryRepository.createMissingInventory(toId, missing);
+        }
+
+        Map<InventoryKey, Inventory> locked = new HashMap<>();
+        for (Inventory inventory : inventoryRepository.lockByWarehouseIdsAndProductIds(List.of(fromId, toId), productIds)) {
+            locked.put(new InventoryKey(inventory.getWarehouse().getId(), inventory.getProduct().getId()), inventory);
+        }
 
-        // Stock in to destination
-        Inventory toInventory = inventoryRepository
-                .findByProductAndWarehouse(product, toWarehouse)
-                .orElse(Inventory.builder()
-                        .product(product)
-                        .warehouse(toWarehouse)
-                        .quantity(0)
-                        .reservedQuantity(0)
-                        .minThreshold(10)
-                        .maxThreshold(1000)
-                        .build());
+        List<Inventory> touched = new ArrayList<>(productIds.size() * 2);
+        Set<Long> reclaimed = new HashSet<>();
+        List<InventoryTransaction> ledger = new ArrayList<>(productIds.size() * 2);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Long productId = line.getKey();
+            Integer quantity = line.getValue();
+            Inventory fromInventory = locked.get(new InventoryKey(fromId, productId));
+            Inventory toInventory = locked.get(new InventoryKey(toId, productId));
+            if (fromInventory == null) {
+                throw new BusinessException("Source inventory not found for product " + productId);
+            }
+            if (fromInventory.getAvailableQuantity() < quantity) {
+                reclaimEscrow(fromInventory, reclaimed);
+            }
+            if (fromInventory.getAvailableQuantity() < quantity) {
+                throw new BusinessException("Insufficient stock in source warehouse for product " + productId +
+                        ". Available: " + fromInventory.getAvailableQuantity() + ", Requested: " + quantity);
+            }
+
+            Integer fromBefore = fromInventory.getQuantity();
+            fromInventory.setQuantity(fromBefore - quantity);
+            fromInventory.setLastStockOut(now);
+            ledger.add(buildTransaction(fromInventory, TransactionType.TRANSFER, quantity,
+                    fromBefore, fromInventory.getQuantity(), "TRANSFER-OUT", dto.getNotes()));
+
+            Integer toBefore = toInventory.getQuantity();
+            toInventory.setQuantity(toBefore + quantity);
+            toInventory.setLastStockIn(now);
+            ledger.add(buildTransaction(toInventory, TransactionType.TRANSFER, quantity,
+                    toBefore, toInventory.getQuantity(), "TRANSFER-IN", dto.getNotes()));
+
+            touched.add(fromInventory);
+            touched.add(toInventory);
+        }
 
-        Integer toBefore = toInventory.getQuantity();
-        toInventory.setQuantity(toInventory.getQuantity() + dto.getQuantity());
-        inventoryRepository.save(toInventory);
+        writeBulk(ledger);
+        lowStockTracker.update(touched);
 
-        recordTransaction(toInventory, TransactionType.TRANSFER, dto.getQuantity(),
-                toBefore, toInventory.getQuantity(), "TRANSFER-IN", dto.getNotes());
+        return touched.stream()
+                .map(referenceDataCache::toResponse)
+                .collect(Collectors.toList());
     }
 
     public List<InventoryResponse> getLowStockAlert() {
-        return inventoryRepository.findLowStockItems().stream()
-                .map(InventoryResponse::from)
-                .collect(Collectors.toList());
+        return lowStockTracker.getLowStockItems();
     }
 
     public Page<InventoryResponse> getAllInventory(Pageable pageable) {
@@ -156,6 +295,27 @@ public class InventoryService {
                 .map(InventoryResponse::from);
     }
 
+    public CursorPageResponse<InventoryResponse> getInventoryPage(String after, int size) {
+        Long afterId = after != null ? CursorPageResponse.cursorLong(CursorPageResponse.decodeCursor(after, 1)[0]) : 0L;
+        Slice<Inventory> slice = inventoryRepository.findPageAfter(afterId, CursorPageResponse.pageRequest(size));
+        return CursorPageResponse.from(slice, InventoryResponse::from,
+                inventory -> CursorPageResponse.encodeCursor(inventory.getId()));
+    }
+
+    public CursorPageResponse<InventoryTransactionResponse> getTransactionPage(String after, int size) {
+        Pageable pageable = CursorPageResponse.pageRequest(size);
+        Slice<InventoryTransaction> slice;
+        if (after != null) {
+            String[] cursor = CursorPageResponse.decodeCursor(after, 2);
+            slice = transactionRepository.findPageAfter(CursorPageResponse.cursorDateTime(cursor[0]),
+                    CursorPageResponse.cursorLong(cursor[1]), pageable);
+        } else {
+            slice = transactionRepository.findFirstPage(pageable);
+        }
+        return CursorPageResponse.from(slice, InventoryTransactionResponse::from,
+                t -> CursorPageResponse.encodeCursor(t.getTransactionDate(), t.getId()));
+    }
+
     public List<InventoryResponse> getInventoryByWarehouse(Long warehouseId) {
         Warehouse warehouse = warehouseRepository.findById(warehouseId)
                 .orElseThrow(() -> new ResourceNotFoundException("Warehouse not found"));
@@ -165,10 +325,71 @@ public class InventoryService {
                 .collect(Collectors.toList());
     }
 
+    private Map<Long, Product> loadProducts(List<StockDTO> lines) {
+        return lines.stream()
+                .map(StockDTO::getProductId)
+                .distinct()
+                .collect(Collectors.toMap(Function.identity(), referenceDataCache::productReference));
+    }
+
+    private Map<Long, Warehouse> loadWarehouses(List<StockDTO> lines) {
+        return lines.stream()
+                .map(StockDTO::getWarehouseId)
+                .distinct()
+                .collect(Collectors.toMap(Function.identity(), referenceDataCache::warehouseReference));
+    }
+
+    // Warehouses and products in ascending order, like the row locks taken afterwards
+    private void createMissingInventories(List<StockDTO> lines) {
+        Map<Long, Set<Long>> productsByWarehouse = new TreeMap<>();
+        for (StockDTO line : lines) {
+            productsByWarehouse.computeIfAbsent(line.getWarehouseId(), id -> new HashSet<>()).add(line.getProductId());
+        }
+        productsByWarehouse.forEach((warehouseId, productIds) -> {
+            Set<Long> missing = new HashSet<>(productIds);
+            inventoryRepository.findProductIdsInWarehouse(warehouseId, productIds).forEach(missing::remove);
+            if (!missing.isEmpty()) {
+                inventoryRepository.createMissingInventory(warehouseId, missing);
+            }
+        });
+    }
+
+    private Map<InventoryKey, Inventory> lockInventories(List<StockDTO> lines) {
+        Set<Long> warehouseIds = lines.stream().map(StockDTO::getWarehouseId).collect(Collectors.toSet());
+        Set<Long> productIds = lines.stream().map(StockDTO::getProductId).collect(Collectors.toSet());
+
+        // The IN/IN query locks a superset of the requested pairs; lines only look up their own key
+        Map<InventoryKey, Inventory> inventories = new HashMap<>();
+        for (Inventory inventory : inventoryRepository.lockByWarehouseIdsAndProductIds(warehouseIds, productIds)) {
+            inventories.put(new InventoryKey(inventory.getWarehouse().getId(), inventory.getProduct().getId()),
+                    inventory);
+        }
+        return inventories;
+    }
+
+    // Free units of a sharded row may sit in escrow shards. The row is already locked, so pulling
+    // them back only re-locks it; each row is reclaimed at most once per request
+    private void reclaimEscrow(Inventory inventory, Set<Long> reclaimed) {
+        if (inventory.isShardedStock() && reclaimed.add(inventory.getId())) {
+            stockReservationService.reclaimEscrow(inventory.getProduct().getId(), inventory.getWarehouse().getId());
+        }
+    }
+
+    private void writeBulk(List<InventoryTransaction> ledger) {
+        // One flush sends the inventory updates and the ledger inserts, each as its own batch
+        transactionRepository.batchInsert(ledger);
+    }
+
     private void recordTransaction(Inventory inventory, TransactionType type,
                                    Integer quantity, Integer before, Integer after,
                                    String reference, String notes) {
-        InventoryTransaction transaction = InventoryTransaction.builder()
+        transactionRepository.save(buildTransaction(inventory, type, quantity, before, after, reference, notes));
+    }
+
+    private InventoryTransaction buildTransaction(Inventory inventory, TransactionType type,
+                                                  Integer quantity, Integer before, Integer after,
+                                                  String reference, String notes) {
+        return InventoryTransaction.builder()
                 .inventory(inventory)
                 .type(type)
                 .quantity(quantity)
@@ -177,7 +398,8 @@ public class InventoryService {
                 .referenceNumber(reference)
                 .notes(notes)
                 .build();
+    }
 
-        transactionRepository.save(transaction);
+    private record InventoryKey(Long warehouseId, Long productId) {
     }
 }
\ No newline at end of file
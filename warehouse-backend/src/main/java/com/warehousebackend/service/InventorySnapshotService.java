@@ -0,0 +1,84 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.inventory.StockAsOfResponse;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.exception.BusinessException;
+import com.warehousebackend.exception.ResourceNotFoundException;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.InventorySnapshotRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Daily per-warehouse stock snapshots and point-in-time queries on top of them.
+ *
+ * A snapshot is taken some time after its midnight cutoff, when every ledger row dated before the
+ * cutoff has committed, and is derived from the current quantity minus the later ledger deltas.
+ * An as-of query starts from the nearest snapshot and replays only the ledger rows after it. With
+ * no snapshot at or before the requested date it replays the whole ledger, which covers only rows
+ * whose stock changes were all recorded in the ledger. Once old ledger partitions are archived, a
+ * replay that would have to start before the archived months is refused.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventorySnapshotService {
+
+    private final InventorySnapshotRepository snapshotRepository;
+    private final InventoryRepository inventoryRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final LedgerPartitionService ledgerPartitionService;
+
+    @Scheduled(cron = "${inventory.snapshots.cron:0 30 0 * * *}")
+    @Transactional
+    public void takeDailySnapshot() {
+        takeSnapshot(LocalDate.now().atStartOfDay());
+    }
+
+    @Transactional
+    public int takeSnapshot(LocalDateTime cutoff) {
+        if (cutoff.isAfter(LocalDateTime.now())) {
+            throw new BusinessException("Snapshot cutoff cannot be in the future");
+        }
+        int rows = snapshotRepository.takeSnapshot(cutoff);
+        log.info("Inventory snapshot at {}: {} rows", cutoff, rows);
+        return rows;
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockAsOfResponse> getStockAsOf(Long warehouseId, LocalDateTime asOf, Long productId) {
+        if (!warehouseRepository.existsById(warehouseId)) {
+            throw new ResourceNotFoundException("Warehouse not found");
+        }
+
+        LocalDateTime snapshotDate = snapshotRepository.findLatestSnapshotDate(warehouseId, asOf).orElse(null);
+        ledgerPartitionService.findArchivedUntil()
+                .filter(archivedUntil -> snapshotDate == null || snapshotDate.isBefore(archivedUntil))
+                .ifPresent(archivedUntil -> {
+                    throw new BusinessException("Ledger rows before " + archivedUntil +
+                            " are archived and no snapshot since then precedes " + asOf);
+                });
+        Map<Long, Integer> quantities = snapshotRepository.findQuantitiesAsOf(warehouseId, snapshotDate, asOf);
+
+        return inventoryRepository.findByWarehouseIdWithProduct(warehouseId).stream()
+                .filter(inventory -> inventory.getCreatedAt() == null || !inventory.getCreatedAt().isAfter(asOf))
+                .filter(inventory -> productId == null || inventory.getProduct().getId().equals(productId))
+                .map(inventory -> StockAsOfResponse.from(inventory,
+                        quantities.getOrDefault(inventory.getId(), 0), asOf, snapshotDate))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,240 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code inventory_transactions} range-partitioned by month on {@code transaction_date}.
+ *
+ * On startup a plain ledger table (as created by Hibernate) is converted once; afterwards the
+ * upcoming months are created ahead of time and old months can be detached into the
+ * {@value #ARCHIVE_SCHEMA} schema, where they can be dumped or dropped without touching live rows.
+ * Rows dated outside every monthly partition land in a default partition and are moved into their
+ * month when it is created.
+ * The ledger indexes are owned here rather than by the entity mapping, because the date index is
+ * a BRIN index and every index has to exist on the partitioned parent.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LedgerPartitionService {
+
+    private static final String TABLE = "inventory_transactions";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final String ARCHIVE_SCHEMA = "ledger_archive";
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_y(\\d{4})m(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${ledger.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ledger.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${ledger.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        String kind = tableKind();
+        if (kind == null) {
+            log.warn("Table {} not found, skipping ledger partitioning", TABLE);
+            return;
+        }
+        if ("r".equals(kind)) {
+            convertToPartitioned();
+        }
+        createUpcomingPartitions();
+    }
+
+    @Scheduled(cron = "${ledger.partitions.cron:0 30 2 * * *}")
+    @Transactional
+    public void maintainPartitions() {
+        if (!enabled || !"p".equals(tableKind())) {
+            return;
+        }
+        createUpcomingPartitions();
+        if (retentionMonths > 0) {
+            archivePartitionsBefore(YearMonth.now().minusMonths(retentionMonths));
+        }
+    }
+
+    @Transactional
+    public void createUpcomingPartitions() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+    }
+
+    /**
+     * Detach every monthly partition older than {@code cutoff} and move it into the archive schema. Returns the archived table names.
+     */
+    @Transactional
+    public List<String> archivePartitionsBefore(YearMonth cutoff) {
+        if (!"p".equals(tableKind())) {
+            throw new BusinessException("Inventory ledger is not partitioned");
+        }
+        if (!cutoff.isBefore(YearMonth.now())) {
+            throw new BusinessException("Cannot archive the current or future months");
+        }
+
+        List<String> archived = new ArrayList<>();
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + ARCHIVE_SCHEMA);
+        for (String partition : listPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(cutoff)) {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + ARCHIVE_SCHEMA);
+                archived.add(ARCHIVE_SCHEMA + "." + partition);
+            }
+        }
+        log.info("Archived {} ledger partitions before {}", archived.size(), cutoff);
+        return archived;
+    }
+
+    /**
+     * Start of the ledger history still attached: the first day after the newest archived month,
+     * or empty when nothing has been archived. Ledger rows dated before it are no longer queried.
+     */
+    public Optional<LocalDateTime> findArchivedUntil() {
+        return jdbcTemplate.queryForList(
+                        "SELECT c.relname FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                                "WHERE n.nspname = ? AND c.relkind = 'r'",
+                        String.class, ARCHIVE_SCHEMA).stream()
+                .map(PARTITION_NAME::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))))
+                .max(YearMonth::compareTo)
+                .map(month -> month.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    public List<String> listPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = ? AND p.relnamespace = current_schema()::regnamespace " +
+                        "ORDER BY c.relname",
+                String.class, TABLE);
+    }
+
+    // Attaching fails while the default partition holds rows for the month, so those move first
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        if (listPartitions().contains(partition)) {
+            return;
+        }
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                " WHERE transaction_date >= ? AND transaction_date < ? RETURNING *) " +
+                "INSERT INTO " + partition + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + partition +
+                " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        if (moved > 0) {
+            log.info("Moved {} ledger rows from {} into {}", moved, DEFAULT_PARTITION, partition);
+        }
+    }
+
+    /**
+     * One-time conversion of the plain table: build the partitioned table next to it, cover every
+     * month that holds rows, copy, then swap names. Runs in one transaction, so a failure leaves
+     * the old table in place. Large ledgers should be converted in a maintenance window.
+     */
+    private void convertToPartitioned() {
+        log.info("Converting {} to monthly range partitions", TABLE);
+        String staging = TABLE + "_partitioned";
+
+        long nextId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + TABLE, Long.class);
+        // Normally created by IdSequenceMigration already; the increment matches the entity's allocationSize
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + TABLE + "_ledger_id_seq START WITH " + nextId + " INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE TABLE " + staging + " (" +
+                "id BIGINT NOT NULL DEFAULT nextval('" + TABLE + "_ledger_id_seq'), " +
+                "inventory_id BIGINT NOT NULL REFERENCES inventory (id), " +
+                "type VARCHAR(20) NOT NULL, " +
+                "quantity INTEGER NOT NULL, " +
+                "before_quantity INTEGER NOT NULL, " +
+                "after_quantity INTEGER NOT NULL, " +
+                "reference_number VARCHAR(100), " +
+                "reference_type VARCHAR(50), " +
+                "notes TEXT, " +
+                "created_by BIGINT REFERENCES users (id), " +
+                "transaction_date TIMESTAMP(6) NOT NULL" +
+                ") PARTITION BY RANGE (transaction_date)");
+
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(transaction_date) FROM " + TABLE, Timestamp.class);
+        Timestamp newest = jdbcTemplate.queryForObject("SELECT MAX(transaction_date) FROM " + TABLE, Timestamp.class);
+        YearMonth first = oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : YearMonth.now();
+        YearMonth last = newest != null && YearMonth.from(newest.toLocalDateTime()).isAfter(YearMonth.now())
+                ? YearMonth.from(newest.toLocalDateTime()) : YearMonth.now();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            jdbcTemplate.execute("CREATE TABLE " + partitionName(month) + " PARTITION OF " + staging +
+                    " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + staging + " DEFAULT");
+
+        int copied = jdbcTemplate.update("INSERT INTO " + staging + " (id, inventory_id, type, quantity, " +
+                "before_quantity, after_quantity, reference_number, reference_type, notes, created_by, transaction_date) " +
+                "SELECT id, inventory_id, type, quantity, before_quantity, after_quantity, reference_number, " +
+                "reference_type, notes, created_by, transaction_date FROM " + TABLE);
+
+        jdbcTemplate.execute("DROP TABLE " + TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + staging + " RENAME TO " + TABLE);
+        jdbcTemplate.execute("ALTER SEQUENCE " + TABLE + "_ledger_id_seq OWNED BY " + TABLE + ".id");
+
+        // The partition key has to be part of the primary key
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + TABLE + "_pkey PRIMARY KEY (id, transaction_date)");
+        // Rows arrive in date order, so a BRIN index serves range reports at a fraction of a B-tree's size
+        jdbcTemplate.execute("CREATE INDEX idx_transaction_date ON " + TABLE +
+                " USING brin (transaction_date) WITH (pages_per_range = 32)");
+        jdbcTemplate.execute("CREATE INDEX idx_transaction_date_id ON " + TABLE + " (transaction_date, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_inventory_transaction_date ON " + TABLE + " (inventory_id, transaction_date)");
+        jdbcTemplate.execute("CREATE INDEX idx_inventory_type ON " + TABLE + " (inventory_id, type)");
+
+        log.info("Copied {} ledger rows into {} partitions", copied, listPartitions().size());
+    }
+
+    private String tableKind() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE relname = ? AND relnamespace = current_schema()::regnamespace",
+                String.class, TABLE);
+        return kinds.isEmpty() ? null : kinds.get(0);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+}
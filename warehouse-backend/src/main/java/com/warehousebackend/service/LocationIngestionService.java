@@ -0,0 +1,258 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.shipment.LocationPingDTO;
+import com.warehousebackend.dto.shipment.LocationUpdateDTO;
+import com.warehousebackend.dto.shipment.ShipmentResponse;
+import com.warehousebackend.entity.Shipment;
+import com.warehousebackend.entity.ShipmentStatus;
+import com.warehousebackend.entity.ShipmentTracking;
+import com.warehousebackend.exception.ResourceNotFoundException;
+import com.warehousebackend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Asynchronous write path for GPS pings.
+ *
+ * Pings are validated against the active-shipment view (no database read) and put on a bounded
+ * queue; when the queue is full the caller gets a {@link ServiceBusyException} instead of waiting.
+ * A scheduled flush drains the queue, runs every ping through a copy of the view's motion model
+ * (distance, speed, ETA), keeps only the latest ping per shipment, then in one
+ * transaction updates the shipments' current position with a JDBC batch and inserts one tracking
+ * row per shipment in Hibernate batches. The view and its motion model are updated, the change
+ * handed to {@link ShipmentBroadcaster} and the carrying vehicle moved in {@link VehicleLocator}
+ * after commit; a batch that fails to commit is dropped without touching any of them.
+ */
+@Slf4j
+@Service
+public class LocationIngestionService {
+
+    private static final String UPDATE_SQL =
+            "UPDATE shipments SET current_latitude = ?, current_longitude = ?, current_speed = ?, " +
+                    "distance_traveled = COALESCE(?, distance_traveled), " +
+                    "estimated_distance = COALESCE(?, estimated_distance), " +
+                    "predicted_arrival_time = COALESCE(?, predicted_arrival_time), " +
+                    "status = CASE WHEN status IN ('PENDING', 'PICKED_UP') THEN 'IN_TRANSIT' ELSE status END, " +
+                    "updated_at = ?, version = version + 1 " +
+                    "WHERE id = ? AND status IN ('PENDING', 'PICKED_UP', 'IN_TRANSIT', 'OUT_FOR_DELIVERY')";
+
+    private final ActiveShipmentView activeShipmentView;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShipmentBroadcaster shipmentBroadcaster;
+    private final VehicleLocator vehicleLocator;
+    private final BlockingQueue<LocationPing> queue;
+    private final int batchSize;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter coalesced;
+    private final Counter written;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public LocationIngestionService(ActiveShipmentView activeShipmentView, JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate, ShipmentBroadcaster shipmentBroadcaster,
+                                    VehicleLocator vehicleLocator, MeterRegistry meterRegistry,
+                                    @Value("${tracking.ingest.queue-capacity:100000}") int queueCapacity,
+                                    @Value("${tracking.ingest.batch-size:500}") int batchSize) {
+        this.activeShipmentView = activeShipmentView;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.shipmentBroadcaster = shipmentBroadcaster;
+        this.vehicleLocator = vehicleLocator;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+
+        this.accepted = pingCounter(meterRegistry, "accepted");
+        this.rejected = pingCounter(meterRegistry, "rejected");
+        this.coalesced = pingCounter(meterRegistry, "coalesced");
+        this.written = pingCounter(meterRegistry, "written");
+        Gauge.builder("shipment.pings.queued", queue, Collection::size).register(meterRegistry);
+    }
+
+    /**
+     * Queue one ping and return the shipment as the view has it before the ping is applied. Throws
+     * when the shipment is not active or the queue is full.
+     */
+    public ShipmentResponse submit(Long shipmentId, LocationUpdateDTO dto) {
+        ShipmentResponse current = activeShipmentView.get(shipmentId);
+        if (current == null) {
+            throw new ResourceNotFoundException("Active shipment not found: " + shipmentId);
+        }
+        if (!offer(shipmentId, dto)) {
+            throw new ServiceBusyException("Location updates are backed up, retry shortly", 1);
+        }
+        return current;
+    }
+
+    /**
+     * Queue a batch of pings, skipping ones without a position or for shipments that are not active. Stops at the first ping that
+     * does not fit; the caller should resend everything after {@code accepted + ignored}.
+     */
+    public IngestResult submitAll(List<LocationPingDTO> pings) {
+        int acceptedCount = 0;
+        int ignoredCount = 0;
+        for (LocationPingDTO ping : pings) {
+            if (ping.getLatitude() == null || ping.getLongitude() == null
+                    || activeShipmentView.statusOf(ping.getShipmentId()) == null) {
+                ignoredCount++;
+            } else if (offer(ping.getShipmentId(), ping)) {
+                acceptedCount++;
+            } else {
+                break;
+            }
+        }
+        return new IngestResult(acceptedCount, ignoredCount, pings.size() - acceptedCount - ignoredCount);
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.ingest.flush-interval-ms:500}")
+    public void flush() {
+        List<LocationPing> drained = new ArrayList<>();
+        do {
+            drained.clear();
+            queue.drainTo(drained, batchSize * 20);
+            if (!drained.isEmpty()) {
+                write(drained);
+            }
+        } while (!queue.isEmpty());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private boolean offer(Long shipmentId, LocationUpdateDTO dto) {
+        boolean queued = queue.offer(new LocationPing(shipmentId, dto.getLatitude(), dto.getLongitude(),
+                dto.getSpeed(), dto.getLocation(), dto.getNotes(), LocalDateTime.now(), null));
+        (queued ? accepted : rejected).increment();
+        return queued;
+    }
+
+    private void write(List<LocationPing> pings) {
+        // Pings per shipment in arrival order (the queue's order), sorted by id so the row locks are
+        // always taken in the same order
+        Map<Long, List<ActiveShipmentView.Fix>> fixes = new TreeMap<>();
+        Map<Long, LocationPing> latest = new TreeMap<>();
+        for (LocationPing ping : pings) {
+            fixes.computeIfAbsent(ping.shipmentId(), id -> new ArrayList<>())
+                    .add(new ActiveShipmentView.Fix(ping.latitude(), ping.longitude(), ping.speed(), ping.receivedAt()));
+            latest.put(ping.shipmentId(), ping);
+        }
+        coalesced.increment(pings.size() - latest.size());
+
+        // Every ping counts toward the distance written with the latest one; the view's own model
+        // only takes them once the write commits
+        latest.replaceAll((id, ping) -> ping.withTrack(activeShipmentView.track(id, fixes.get(id))));
+
+        List<LocationPing> updated;
+        try {
+            updated = transactionTemplate.execute(status -> persist(new ArrayList<>(latest.values())));
+        } catch (RuntimeException e) {
+            log.error("Dropped {} coalesced location updates", latest.size(), e);
+            return;
+        }
+        written.increment(updated.size());
+
+        for (LocationPing ping : updated) {
+            ShipmentResponse response = activeShipmentView.moveTo(ping.shipmentId(), ping.latitude(),
+                    ping.longitude(), ping.speed(), ping.track());
+            if (response != null) {
+                shipmentBroadcaster.publish(ping.shipmentId(), ping.latitude(), ping.longitude(), ping.speed(),
+                        ShipmentStatus.valueOf(response.getStatus()));
+                vehicleLocator.moveTo(response.getVehicleId(), ping.latitude(), ping.longitude(), ping.receivedAt());
+            }
+        }
+    }
+
+    private List<LocationPing> persist(List<LocationPing> pings) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, pings, batchSize, (ps, ping) -> {
+            ps.setDouble(1, ping.latitude());
+            ps.setDouble(2, ping.longitude());
+            if (ping.speed() != null) {
+                ps.setDouble(3, ping.speed());
+            } else {
+                ps.setNull(3, Types.DOUBLE);
+            }
+            ActiveShipmentView.Progress progress = ping.track() != null ? ping.track().progress() : null;
+            if (progress != null) {
+                ps.setDouble(4, progress.distanceTraveled());
+                ps.setObject(5, progress.remainingDistance(), Types.DOUBLE);
+                ps.setObject(6, progress.predictedArrivalTime() != null
+                        ? Timestamp.valueOf(progress.predictedArrivalTime()) : null, Types.TIMESTAMP);
+            } else {
+                ps.setNull(4, Types.DOUBLE);
+                ps.setNull(5, Types.DOUBLE);
+                ps.setNull(6, Types.TIMESTAMP);
+            }
+            ps.setTimestamp(7, now);
+            ps.setLong(8, ping.shipmentId());
+        });
+
+        // Shipments delivered since the ping was queued match no row and get no tracking entry
+        List<LocationPing> updated = new ArrayList<>(pings.size());
+        for (int i = 0; i < pings.size(); i++) {
+            if (counts[i / batchSize][i % batchSize] != 0) {
+                updated.add(pings.get(i));
+            }
+        }
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        for (LocationPing ping : updated) {
+            ShipmentStatus status = activeShipmentView.statusOf(ping.shipmentId());
+            entityManager.persist(ShipmentTracking.builder()
+                    .shipment(entityManager.getReference(Shipment.class, ping.shipmentId()))
+                    .status(status == null || status == ShipmentStatus.PENDING || status == ShipmentStatus.PICKED_UP
+                            ? ShipmentStatus.IN_TRANSIT : status)
+                    .latitude(ping.latitude())
+                    .longitude(ping.longitude())
+                    .speed(ping.speed())
+                    .location(ping.location())
+                    .notes(ping.notes())
+                    .timestamp(ping.receivedAt())
+                    .build());
+        }
+        return updated;
+    }
+
+    private static Counter pingCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("shipment.pings").tag("result", result).register(meterRegistry);
+    }
+
+    private record LocationPing(Long shipmentId, double latitude, double longitude, Double speed,
+                                String location, String notes, LocalDateTime receivedAt,
+                                ActiveShipmentView.Track track) {
+
+        LocationPing withTrack(ActiveShipmentView.Track track) {
+            return new LocationPing(shipmentId, latitude, longitude, speed, location, notes, receivedAt, track);
+        }
+    }
+
+    public record IngestResult(int accepted, int ignored, int rejected) {
+    }
+}
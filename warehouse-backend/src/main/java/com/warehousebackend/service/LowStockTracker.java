@@ -0,0 +1,119 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.inventory.InventoryResponse;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.repository.InventoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of inventory rows below their minimum threshold.
+ *
+ * Loaded once at startup and kept current by the services that change quantities, so alerts and
+ * dashboard counts never scan the inventory table. Rows crossing the threshold in either direction
+ * are pushed to {@value #LOW_STOCK_TOPIC}; the payload's {@code isLowStock} tells which way.
+ * Commit callbacks can run out of order, so each row's last applied version is kept and older
+ * snapshots are dropped.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LowStockTracker {
+
+    public static final String LOW_STOCK_TOPIC = "/topic/inventory/low-stock";
+
+    private final InventoryRepository inventoryRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ReferenceDataCache referenceDataCache;
+
+    private final Map<Long, InventoryResponse> lowStock = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadLowStockItems() {
+        for (Inventory inventory : inventoryRepository.findLowStockItems()) {
+            lowStock.put(inventory.getId(), InventoryResponse.from(inventory));
+            versions.put(inventory.getId(), inventory.getVersion());
+        }
+        log.info("Loaded {} low stock inventory rows", lowStock.size());
+    }
+
+    /**
+     * Record the current state of rows whose quantity just changed. Inside a transaction the
+     * set is only touched after commit, so a rollback never leaves a phantom alert behind.
+     */
+    public void update(Collection<Inventory> inventories) {
+        List<Snapshot> snapshots = new ArrayList<>(inventories.size());
+        for (Inventory inventory : inventories) {
+            snapshots.add(new Snapshot(inventory, referenceDataCache.toResponse(inventory)));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(snapshots);
+                }
+            });
+        } else {
+            apply(snapshots);
+        }
+    }
+
+    public void update(Inventory inventory) {
+        update(List.of(inventory));
+    }
+
+    public List<InventoryResponse> getLowStockItems() {
+        return new ArrayList<>(lowStock.values());
+    }
+
+    public long count() {
+        return lowStock.size();
+    }
+
+    private void apply(List<Snapshot> snapshots) {
+        for (Snapshot snapshot : snapshots) {
+            InventoryResponse response = snapshot.response();
+            // Read now: entities written through the persistence context only get their new version at flush
+            Long version = snapshot.inventory().getVersion();
+            boolean[] crossed = new boolean[1];
+            versions.compute(response.getId(), (id, applied) -> {
+                if (applied != null && version != null && version <= applied) {
+                    return applied;
+                }
+                if (Boolean.TRUE.equals(response.getIsLowStock())) {
+                    crossed[0] = lowStock.put(id, response) == null;
+                } else {
+                    crossed[0] = lowStock.remove(id) != null;
+                }
+                return version != null ? version : applied;
+            });
+
+            if (crossed[0]) {
+                messagingTemplate.convertAndSend(LOW_STOCK_TOPIC, response);
+            }
+        }
+    }
+
+    private record Snapshot(Inventory inventory, InventoryResponse response) {
+    }
+}
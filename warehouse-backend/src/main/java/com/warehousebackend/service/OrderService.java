@@ -4,6 +4,7 @@ package com.warehousebackend.service;
  * @author MyDuyen
  */
 
+import com.warehousebackend.dto.common.CursorPageResponse;
 import com.warehousebackend.dto.order.*;
 import com.warehousebackend.entity.*;
 import com.warehousebackend.exception.BusinessException;
@@ -12,34 +13,37 @@ import com.warehousebackend.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
-    private final WarehouseRepository warehouseRepository;
+    private final ReferenceDataCache referenceDataCache;
     private final InventoryRepository inventoryRepository;
+    private final InventoryTransactionRepository transactionRepository;
     private final UserRepository userRepository;
+    private final StockReservationService stockReservationService;
+    private final LowStockTracker lowStockTracker;
 
     @Transactional
     public OrderResponse createOrder(OrderDTO dto) {
-        // Validate warehouse
-        Warehouse warehouse = warehouseRepository.findById(dto.getWarehouseId())
-                .orElseThrow(() -> new ResourceNotFoundException("Warehouse not found"));
+        // Validate warehouse against the reference cache; the order only needs its foreign key
+        Warehouse warehouse = referenceDataCache.getWarehouse(dto.getWarehouseId());
 
         // Create order
         Order order = Order.builder()
                 .orderNumber(generateOrderNumber())
-                .warehouse(warehouse)
+                .warehouse(referenceDataCache.warehouseReference(warehouse.getId()))
                 .status(OrderStatus.PENDING)
                 .customerName(dto.getCustomerName())
                 .customerEmail(dto.getCustomerEmail())
@@ -65,22 +69,25 @@ public class OrderService {
             order.setCustomer(customer);
         }
 
-        // Process order items
-        BigDecimal subtotal = BigDecimal.ZERO;
+        // Names and prices come from the reference cache
+        Map<Long, Product> products = loadProducts(dto.getItems());
 
+        // Reserve all lines in one batch; repeated products are reserved as one line, in product id order
+        Map<Long, Integer> quantities = new TreeMap<>();
         for (OrderItemDTO itemDto : dto.getItems()) {
-            Product product = productRepository.findById(itemDto.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + itemDto.getProductId()));
+            quantities.merge(itemDto.getProductId(), itemDto.getQuantity(), Integer::sum);
+        }
 
-            // Check inventory
-            Inventory inventory = inventoryRepository
-                    .findByProductAndWarehouse(product, warehouse)
-                    .orElseThrow(() -> new BusinessException("Product not available in warehouse: " + product.getName()));
+        List<Long> failed = stockReservationService.reserveAll(warehouse.getId(), quantities);
+        if (!failed.isEmpty()) {
+            throw insufficientStock(warehouse, products, quantities, failed);
+        }
 
-            if (inventory.getAvailableQuantity() < itemDto.getQuantity()) {
-                throw new BusinessException("Insufficient stock for product: " + product.getName() +
-                        ". Available: " + inventory.getAvailableQuantity() + ", Requested: " + itemDto.getQuantity());
-            }
+        // Process order items
+        BigDecimal subtotal = BigDecimal.ZERO;
+
+        for (OrderItemDTO itemDto : dto.getItems()) {
+            Product product = products.get(itemDto.getProductId());
 
             // Create order item
             BigDecimal itemPrice = itemDto.getPrice() != null ? itemDto.getPrice() : product.getPrice();
@@ -88,7 +95,7 @@ public class OrderService {
 
             OrderItem orderItem = OrderItem.builder()
                     .order(order)
-                    .product(product)
+                    .product(referenceDataCache.productReference(product.getId()))
                     .quantity(itemDto.getQuantity())
                     .price(itemPrice)
                     .discount(itemDiscount)
@@ -98,10 +105,6 @@ public class OrderService {
             orderItem.calculateSubtotal();
             order.getItems().add(orderItem);
             subtotal = subtotal.add(orderItem.getSubtotal());
-
-            // Reserve inventory
-            inventory.setReservedQuantity(inventory.getReservedQuantity() + itemDto.getQuantity());
-            inventoryRepository.save(inventory);
         }
 
         // Calculate totals
@@ -112,7 +115,9 @@ public class OrderService {
         order.setExpectedDeliveryDate(LocalDateTime.now().plusDays(3));
 
         Order savedOrder = orderRepository.save(order);
-        return OrderResponse.from(savedOrder);
+        return OrderResponse.from(savedOrder, warehouse, savedOrder.getItems().stream()
+                .map(item -> OrderItemResponse.from(item, products.get(item.getProduct().getId())))
+                .collect(Collectors.toList()));
     }
 
     @Transactional
@@ -141,6 +146,33 @@ public class OrderService {
         return OrderResponse.from(savedOrder);
     }
 
+    private Map<Long, Product> loadProducts(List<OrderItemDTO> items) {
+        Map<Long, Product> products = new HashMap<>();
+        for (OrderItemDTO item : items) {
+            products.computeIfAbsent(item.getProductId(), referenceDataCache::getProduct);
+        }
+        return products;
+    }
+
+    private BusinessException insufficientStock(Warehouse warehouse, Map<Long, Product> products,
+                                                Map<Long, Integer> quantities, List<Long> failed) {
+        // Only the failure path reads inventory rows, all of them in one query
+        Map<Long, Inventory> inventories = inventoryRepository
+                .findByWarehouseIdsAndProductIds(List.of(warehouse.getId()), failed).stream()
+                .collect(Collectors.toMap(i -> i.getProduct().getId(), Function.identity()));
+
+        Long productId = failed.get(0);
+        Product product = products.get(productId);
+        Inventory inventory = inventories.get(productId);
+        if (inventory == null) {
+            return new BusinessException("Product not available in warehouse: " + product.getName());
+        }
+
+        int available = inventory.getAvailableQuantity() + inventory.getEscrowAvailableQuantity();
+        return new BusinessException("Insufficient stock for product: " + product.getName() +
+                ". Available: " + available + ", Requested: " + quantities.get(productId));
+    }
+
     private void validateStatusTransition(OrderStatus from, OrderStatus to) {
         // Add validation rules
         if (from == OrderStatus.DELIVERED || from == OrderStatus.CANCELLED) {
@@ -149,41 +181,102 @@ public class OrderService {
     }
 
     private void releaseInventory(Order order) {
-        for (OrderItem item : order.getItems()) {
-            Inventory inventory = inventoryRepository
-                    .findByProductAndWarehouse(item.getProduct(), order.getWarehouse())
-                    .orElseThrow(() -> new BusinessException("Inventory not found"));
-
-            inventory.setReservedQuantity(inventory.getReservedQuantity() - item.getQuantity());
-            inventoryRepository.save(inventory);
+        for (Map.Entry<Long, Integer> line : reservedQuantities(order).entrySet()) {
+            if (!stockReservationService.release(line.getKey(), order.getWarehouse().getId(), line.getValue())) {
+                throw new BusinessException("Reserved inventory not found for product: " + productName(order, line.getKey()));
+            }
         }
     }
 
     private void deductInventory(Order order) {
-        for (OrderItem item : order.getItems()) {
-            Inventory inventory = inventoryRepository
-                    .findByProductAndWarehouse(item.getProduct(), order.getWarehouse())
-                    .orElseThrow(() -> new BusinessException("Inventory not found"));
-
+        Map<Long, Integer> shipped = reservedQuantities(order);
+        for (Map.Entry<Long, Integer> line : shipped.entrySet()) {
             // Deduct from actual quantity and reserved
-            inventory.setQuantity(inventory.getQuantity() - item.getQuantity());
-            inventory.setReservedQuantity(inventory.getReservedQuantity() - item.getQuantity());
-            inventory.setLastStockOut(LocalDateTime.now());
-            inventoryRepository.save(inventory);
+            if (!stockReservationService.deductReserved(line.getKey(), order.getWarehouse().getId(), line.getValue())) {
+                throw new BusinessException("Reserved inventory not found for product: " + productName(order, line.getKey()));
+            }
+        }
+
+        // The deductions ran as bulk updates; read the shipped rows back once for the ledger and low-stock state
+        List<Inventory> inventories = inventoryRepository
+                .findByWarehouseIdsAndProductIds(List.of(order.getWarehouse().getId()), shipped.keySet());
+
+        List<InventoryTransaction> ledger = new ArrayList<>(inventories.size());
+        for (Inventory inventory : inventories) {
+            Integer quantity = shipped.get(inventory.getProduct().getId());
+            ledger.add(InventoryTransaction.builder()
+                    .inventory(inventory)
+                    .type(TransactionType.STOCK_OUT)
+                    .quantity(quantity)
+                    .beforeQuantity(inventory.getQuantity() + quantity)
+                    .afterQuantity(inventory.getQuantity())
+                    .referenceNumber(order.getOrderNumber())
+                    .referenceType("ORDER")
+                    .build());
         }
+        transactionRepository.batchInsert(ledger);
+        lowStockTracker.update(inventories);
+    }
+
+    // Lines merged per product as reserveAll reserved them, in product id order so that two orders
+    // sharing products always take the inventory row locks in the same order
+    private static Map<Long, Integer> reservedQuantities(Order order) {
+        return order.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), OrderItem::getQuantity,
+                        Integer::sum, TreeMap::new));
+    }
+
+    private static String productName(Order order, Long productId) {
+        return order.getItems().stream()
+                .map(OrderItem::getProduct)
+                .filter(product -> product.getId().equals(productId))
+                .map(Product::getName)
+                .findFirst()
+                .orElse(String.valueOf(productId));
     }
 
+    /**
+     * Listing path built from projections: the page query (plus its count) and one query for the
+     * page's lines, however many orders the page holds.
+     */
+    @Transactional(readOnly = true)
     public Page<OrderResponse> getOrders(OrderStatus status, Pageable pageable) {
-        Page<Order> orders;
-        if (status != null) {
-            orders = orderRepository.findAll(
-                    (root, query, cb) -> cb.equal(root.get("status"), status),
-                    pageable
-            );
+        Page<OrderSummary> orders = status != null
+                ? orderRepository.findSummariesByStatus(status, pageable)
+                : orderRepository.findSummaries(pageable);
+        Map<Long, List<OrderItemResponse>> lines = findLines(orders.getContent());
+        return orders.map(order -> OrderResponse.from(order, lines.getOrDefault(order.id(), List.of())));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OrderResponse> getOrderPage(OrderStatus status, String after, int size) {
+        Pageable pageable = CursorPageResponse.pageRequest(size);
+        Slice<OrderSummary> slice;
+        if (after != null) {
+            String[] cursor = CursorPageResponse.decodeCursor(after, 2);
+            LocalDateTime orderDate = CursorPageResponse.cursorDateTime(cursor[0]);
+            Long id = CursorPageResponse.cursorLong(cursor[1]);
+            slice = status != null
+                    ? orderRepository.findPageAfterByStatus(status, orderDate, id, pageable)
+                    : orderRepository.findPageAfter(orderDate, id, pageable);
         } else {
-            orders = orderRepository.findAll(pageable);
+            slice = status != null
+                    ? orderRepository.findFirstPageByStatus(status, pageable)
+                    : orderRepository.findFirstPage(pageable);
+        }
+        Map<Long, List<OrderItemResponse>> lines = findLines(slice.getContent());
+        return CursorPageResponse.from(slice, order -> OrderResponse.from(order, lines.getOrDefault(order.id(), List.of())),
+                order -> CursorPageResponse.encodeCursor(order.orderDate(), order.id()));
+    }
+
+    // Lines of every order on a page in one query
+    private Map<Long, List<OrderItemResponse>> findLines(List<OrderSummary> orders) {
+        if (orders.isEmpty()) {
+            return Map.of();
         }
-        return orders.map(OrderResponse::from);
+        return orderRepository.findLineSummaries(orders.stream().map(OrderSummary::id).toList()).stream()
+                .collect(Collectors.groupingBy(OrderLineSummary::orderId,
+                        Collectors.mapping(OrderLineSummary::toResponse, Collectors.toList())));
     }
 
     public OrderResponse getOrderById(Long id) {
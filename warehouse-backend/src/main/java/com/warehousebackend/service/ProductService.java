@@ -4,6 +4,7 @@ package com.warehousebackend.service;
  * @author MyDuyen
  */
 
+import com.warehousebackend.dto.common.CursorPageResponse;
 import com.warehousebackend.dto.product.*;
 import com.warehousebackend.entity.Product;
 import com.warehousebackend.entity.Supplier;
@@ -14,6 +15,7 @@ import com.warehousebackend.repository.SupplierRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +25,7 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final SupplierRepository supplierRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     public Page<ProductResponse> getAllProducts(String category, String keyword, Pageable pageable) {
         Page<Product> products;
@@ -41,6 +44,13 @@ public class ProductService {
         return products.map(ProductResponse::from);
     }
 
+    public CursorPageResponse<ProductResponse> getProductPage(String after, int size) {
+        Long afterId = after != null ? CursorPageResponse.cursorLong(CursorPageResponse.decodeCursor(after, 1)[0]) : 0L;
+        Slice<Product> slice = productRepository.findPageAfter(afterId, CursorPageResponse.pageRequest(size));
+        return CursorPageResponse.from(slice, ProductResponse::from,
+                product -> CursorPageResponse.encodeCursor(product.getId()));
+    }
+
     public ProductResponse getProductById(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
@@ -109,6 +119,7 @@ public class ProductService {
         product.setSupplier(supplier);
 
         Product savedProduct = productRepository.save(product);
+        referenceDataCache.evictProduct(id);
         return ProductResponse.from(savedProduct);
     }
 
@@ -119,5 +130,6 @@ public class ProductService {
 
         product.setStatus("INACTIVE");
         productRepository.save(product);
+        referenceDataCache.evictProduct(id);
     }
 }
\ No newline at end of file
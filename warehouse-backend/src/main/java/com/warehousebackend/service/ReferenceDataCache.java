@@ -0,0 +1,167 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.inventory.InventoryResponse;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.exception.ResourceNotFoundException;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of products and warehouses for the stock write paths.
+ *
+ * Cached values are scalar-only copies that are never attached to a persistence context; use the
+ * {@code *Reference} methods when an entity only needs the foreign key, so a warm cache issues no
+ * SELECT against {@code products} or {@code warehouses}. ProductService and WarehouseService evict
+ * entries after their changes commit. Hits and misses are exported as {@code reference.cache.requests}.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private final ProductRepository productRepository;
+    private final WarehouseRepository warehouseRepository;
+
+    private final Region<Product> products;
+    private final Region<Warehouse> warehouses;
+
+    public ReferenceDataCache(ProductRepository productRepository, WarehouseRepository warehouseRepository,
+                              MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.warehouseRepository = warehouseRepository;
+        this.products = new Region<>("products", meterRegistry);
+        this.warehouses = new Region<>("warehouses", meterRegistry);
+    }
+
+    public Product getProduct(Long id) {
+        return products.get(id, key -> productRepository.findById(key).map(ReferenceDataCache::copyOf))
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + id));
+    }
+
+    public Warehouse getWarehouse(Long id) {
+        return warehouses.get(id, key -> warehouseRepository.findById(key).map(ReferenceDataCache::copyOf))
+                .orElseThrow(() -> new ResourceNotFoundException("Warehouse not found: " + id));
+    }
+
+    /**
+     * Uninitialized proxy for use as a foreign key; existence is checked against the cache.
+     */
+    public Product productReference(Long id) {
+        getProduct(id);
+        return productRepository.getReferenceById(id);
+    }
+
+    public Warehouse warehouseReference(Long id) {
+        getWarehouse(id);
+        return warehouseRepository.getReferenceById(id);
+    }
+
+    /**
+     * Response for an inventory row whose product and warehouse may be uninitialized proxies.
+     */
+    public InventoryResponse toResponse(Inventory inventory) {
+        return InventoryResponse.from(inventory,
+                getProduct(inventory.getProduct().getId()),
+                getWarehouse(inventory.getWarehouse().getId()));
+    }
+
+    public void evictProduct(Long id) {
+        products.evict(id);
+    }
+
+    public void evictWarehouse(Long id) {
+        warehouses.evict(id);
+    }
+
+    private static Product copyOf(Product product) {
+        return Product.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .sku(product.getSku())
+                .category(product.getCategory())
+                .brand(product.getBrand())
+                .price(product.getPrice())
+                .unit(product.getUnit())
+                .status(product.getStatus())
+                .build();
+    }
+
+    private static Warehouse copyOf(Warehouse warehouse) {
+        return Warehouse.builder()
+                .id(warehouse.getId())
+                .name(warehouse.getName())
+                .city(warehouse.getCity())
+                .latitude(warehouse.getLatitude())
+                .longitude(warehouse.getLongitude())
+                .status(warehouse.getStatus())
+                .build();
+    }
+
+    private static final class Region<T> {
+
+        private final Map<Long, T> entries = new ConcurrentHashMap<>();
+        // Bumped on every eviction so a load that raced with an update does not cache stale data
+        private final AtomicLong evictions = new AtomicLong();
+        private final Counter hits;
+        private final Counter misses;
+
+        Region(String name, MeterRegistry meterRegistry) {
+            this.hits = Counter.builder("reference.cache.requests")
+                    .tag("cache", name).tag("result", "hit")
+                    .register(meterRegistry);
+            this.misses = Counter.builder("reference.cache.requests")
+                    .tag("cache", name).tag("result", "miss")
+                    .register(meterRegistry);
+            Gauge.builder("reference.cache.size", entries, Map::size)
+                    .tag("cache", name)
+                    .register(meterRegistry);
+        }
+
+        Optional<T> get(Long id, Function<Long, Optional<T>> loader) {
+            T cached = entries.get(id);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+
+            misses.increment();
+            long stamp = evictions.get();
+            Optional<T> loaded = loader.apply(id);
+            if (loaded.isPresent() && evictions.get() == stamp) {
+                entries.put(id, loaded.get());
+            }
+            return loaded;
+        }
+
+        void evict(Long id) {
+            evictions.incrementAndGet();
+            entries.remove(id);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                // A read between now and commit could still see the old row; drop it again afterwards
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        evictions.incrementAndGet();
+                        entries.remove(id);
+                    }
+                });
+            }
+        }
+    }
+}
@@ -22,6 +22,8 @@ public class ReportService {
     private final InventoryRepository inventoryRepository;
     private final ShipmentRepository shipmentRepository;
     private final InventoryTransactionRepository transactionRepository;
+    private final LowStockTracker lowStockTracker;
+    private final DelayedShipmentDetector delayedShipmentDetector;
 
     public Map<String, Object> generateSalesReport(LocalDateTime startDate, LocalDateTime endDate) {
         Map<String, Object> report = new HashMap<>();
@@ -90,7 +92,7 @@ public class ReportService {
                 .sum();
 
         // Low stock items
-        List<Inventory> lowStock = inventoryRepository.findLowStockItems();
+        long lowStockCount = lowStockTracker.count();
 
         // Over stock items
         List<Inventory> overStock = inventoryRepository.findOverStockItems();
@@ -112,7 +114,7 @@ public class ReportService {
         report.put("totalValue", totalValue);
         report.put("totalSkus", totalSkus);
         report.put("totalQuantity", totalQuantity);
-        report.put("lowStockCount", lowStock.size());
+        report.put("lowStockCount", lowStockCount);
         report.put("overStockCount", overStock.size());
         report.put("byCategory", byCategory);
         report.put("byWarehouse", byWarehouse);
@@ -159,14 +161,14 @@ public class ReportService {
                 .average()
                 .orElse(0.0);
 
-        // Delayed shipments
-        List<Shipment> delayed = shipmentRepository.findDelayedShipments(LocalDateTime.now());
+        // Delayed shipments, as of now
+        int delayed = delayedShipmentDetector.delayedCount();
 
         report.put("totalShipments", totalShipments);
         report.put("byStatus", byStatus);
         report.put("onTimeDeliveryRate", onTimeRate);
         report.put("avgDeliveryHours", avgDeliveryHours);
-        report.put("delayedShipments", delayed.size());
+        report.put("delayedShipments", delayed);
         report.put("startDate", startDate);
         report.put("endDate", endDate);
 
@@ -179,9 +181,7 @@ public class ReportService {
         Map<String, Object> report = new HashMap<>();
 
         List<InventoryTransaction> transactions = transactionRepository
-                .findByDateRange(startDate, endDate).stream()
-                .filter(t -> t.getInventory().getProduct().getId().equals(productId))
-                .collect(Collectors.toList());
+                .findByProductAndDateRange(productId, startDate, endDate);
 
         // Total stock in
         int totalStockIn = transactions.stream()
@@ -0,0 +1,184 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.route.RoutePlanRequest;
+import com.warehousebackend.dto.route.RouteResponse;
+import com.warehousebackend.entity.*;
+import com.warehousebackend.exception.BusinessException;
+import com.warehousebackend.exception.ResourceNotFoundException;
+import com.warehousebackend.repository.DeliveryRouteRepository;
+import com.warehousebackend.repository.OrderRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import com.warehousebackend.service.routing.DistanceMatrix;
+import com.warehousebackend.service.routing.RouteOptimizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Builds a delivery route for a set of orders leaving one warehouse: the stops are ordered by
+ * {@link RouteOptimizer} on estimated road distances, then timed at an average speed with a fixed
+ * service time per stop. The route returns to the warehouse.
+ */
+@Slf4j
+@Service
+public class RoutePlanningService {
+
+    private static final Set<OrderStatus> ROUTABLE_STATUSES = EnumSet.of(
+            OrderStatus.PENDING,
+            OrderStatus.CONFIRMED,
+            OrderStatus.PROCESSING,
+            OrderStatus.PACKED,
+            OrderStatus.READY_TO_SHIP);
+
+    private final WarehouseRepository warehouseRepository;
+    private final OrderRepository orderRepository;
+    private final DeliveryRouteRepository deliveryRouteRepository;
+    private final DistanceMatrixService distanceMatrixService;
+    private final double averageSpeedKmh;
+    private final int serviceMinutes;
+
+    public RoutePlanningService(WarehouseRepository warehouseRepository, OrderRepository orderRepository,
+                                DeliveryRouteRepository deliveryRouteRepository,
+                                DistanceMatrixService distanceMatrixService,
+                                @Value("${routing.average-speed-kmh:30}") double averageSpeedKmh,
+                                @Value("${routing.service-minutes:10}") int serviceMinutes) {
+        this.warehouseRepository = warehouseRepository;
+        this.orderRepository = orderRepository;
+        this.deliveryRouteRepository = deliveryRouteRepository;
+        this.distanceMatrixService = distanceMatrixService;
+        this.averageSpeedKmh = averageSpeedKmh;
+        this.serviceMinutes = serviceMinutes;
+    }
+
+    @Transactional
+    public RouteResponse planRoute(RoutePlanRequest request) {
+        Warehouse warehouse = warehouseRepository.findById(request.getWarehouseId())
+                .orElseThrow(() -> new ResourceNotFoundException("Warehouse not found"));
+        if (warehouse.getLatitude() == null || warehouse.getLongitude() == null) {
+            throw new BusinessException("Warehouse has no coordinates: " + warehouse.getName());
+        }
+        List<Order> orders = loadRoutableOrders(warehouse, new LinkedHashSet<>(request.getOrderIds()));
+
+        int size = orders.size() + 1;
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        latitudes[0] = warehouse.getLatitude();
+        longitudes[0] = warehouse.getLongitude();
+        for (int i = 1; i < size; i++) {
+            latitudes[i] = orders.get(i - 1).getShippingLatitude();
+            longitudes[i] = orders.get(i - 1).getShippingLongitude();
+        }
+
+        long started = System.nanoTime();
+        DistanceMatrix distances = distanceMatrixService.matrix(warehouse, latitudes, longitudes);
+        int[] visits = RouteOptimizer.optimise(distances);
+        log.info("Planned a route through {} stops in {} ms", orders.size(), (System.nanoTime() - started) / 1_000_000);
+
+        String optimizationType = request.getOptimizationType() != null ? request.getOptimizationType() : "SHORTEST";
+        String name = request.getName() != null ? request.getName() : warehouse.getName() + " - " + orders.size() + " stops";
+        return RouteResponse.from(saveRoute(warehouse, orders, distances, visits, name, optimizationType));
+    }
+
+    /**
+     * Persist a route that visits {@code orders.get(node - 1)} for each node of {@code visits}, with
+     * leg distances taken from the matrix the visits were planned on.
+     */
+    @Transactional
+    public DeliveryRoute saveRoute(Warehouse warehouse, List<Order> orders, DistanceMatrix distances, int[] visits,
+                                   String name, String optimizationType) {
+        DeliveryRoute route = DeliveryRoute.builder()
+                .routeNumber(generateRouteNumber())
+                .name(name)
+                .startWarehouse(warehouse)
+                .status("ACTIVE")
+                .optimizationType(optimizationType)
+                .shipments(new ArrayList<>())
+                .stops(new ArrayList<>())
+                .build();
+
+        StringJoiner waypoints = new StringJoiner(",", "[", "]");
+        waypoints.add(waypoint(warehouse.getLatitude(), warehouse.getLongitude()));
+        double km = 0;
+        double minutes = 0;
+        int previous = 0;
+        for (int k = 0; k < visits.length; k++) {
+            int node = visits[k];
+            Order order = orders.get(node - 1);
+            double leg = distances.get(previous, node);
+            km += leg;
+            minutes += travelMinutes(leg);
+            route.getStops().add(RouteStop.builder()
+                    .route(route)
+                    .order(order)
+                    .stopOrder(k + 1)
+                    .address(order.getShippingAddress())
+                    .latitude(order.getShippingLatitude())
+                    .longitude(order.getShippingLongitude())
+                    .estimatedArrivalMinutes((int) Math.round(minutes))
+                    .serviceTime(serviceMinutes)
+                    .notes("Order " + order.getOrderNumber())
+                    .build());
+            waypoints.add(waypoint(order.getShippingLatitude(), order.getShippingLongitude()));
+            minutes += serviceMinutes;
+            previous = node;
+        }
+        double back = distances.get(previous, 0);
+        km += back;
+        minutes += travelMinutes(back);
+        waypoints.add(waypoint(warehouse.getLatitude(), warehouse.getLongitude()));
+
+        route.setTotalDistance(Math.round(km * 100) / 100.0);
+        route.setEstimatedDuration((int) Math.round(minutes));
+        route.setWaypoints(waypoints.toString());
+        return deliveryRouteRepository.save(route);
+    }
+
+    @Transactional(readOnly = true)
+    public RouteResponse getRoute(Long id) {
+        return RouteResponse.from(deliveryRouteRepository.findWithStopsById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Route not found")));
+    }
+
+    private List<Order> loadRoutableOrders(Warehouse warehouse, Set<Long> orderIds) {
+        List<Order> orders = orderRepository.findAllById(orderIds);
+        if (orders.size() != orderIds.size()) {
+            Set<Long> missing = new TreeSet<>(orderIds);
+            orders.forEach(order -> missing.remove(order.getId()));
+            throw new ResourceNotFoundException("Orders not found: " + missing);
+        }
+        for (Order order : orders) {
+            if (!order.getWarehouse().getId().equals(warehouse.getId())) {
+                throw new BusinessException("Order " + order.getOrderNumber() + " ships from another warehouse");
+            }
+            if (!ROUTABLE_STATUSES.contains(order.getStatus())) {
+                throw new BusinessException("Order " + order.getOrderNumber() + " cannot be routed in status " + order.getStatus());
+            }
+            if (order.getShippingLatitude() == null || order.getShippingLongitude() == null) {
+                throw new BusinessException("Order " + order.getOrderNumber() + " has no shipping coordinates");
+            }
+        }
+        return orders;
+    }
+
+    private double travelMinutes(double km) {
+        return km / averageSpeedKmh * 60;
+    }
+
+    private static String waypoint(double latitude, double longitude) {
+        return String.format(Locale.ROOT, "[%.6f,%.6f]", latitude, longitude);
+    }
+
+    private String generateRouteNumber() {
+        return "RT-" + LocalDateTime.now().getYear() +
+                String.format("%02d", LocalDateTime.now().getMonthValue()) +
+                UUID.randomUUID().toString().substring(0, 10).toUpperCase();
+    }
+}
@@ -0,0 +1,121 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.config.TopicSubscriptions;
+import com.warehousebackend.dto.shipment.ShipmentPositionDelta;
+import com.warehousebackend.entity.ShipmentStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rate-limited fan-out to {@code /topic/shipments/{id}}.
+ *
+ * Changes are conflated per shipment and sent at most once per
+ * {@code tracking.broadcast.interval-ms}, as a {@link ShipmentPositionDelta} holding only what
+ * changed since the last frame. Shipments nobody is subscribed to are dropped before anything is
+ * built or serialised.
+ */
+@Service
+public class ShipmentBroadcaster {
+
+    public static final String TOPIC_PREFIX = "/topic/shipments/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TopicSubscriptions topicSubscriptions;
+
+    private final Map<Long, ShipmentPositionDelta> pending = new ConcurrentHashMap<>();
+    // Everything already sent per shipment, so the next frame can leave it out
+    private final Map<Long, ShipmentPositionDelta> sent = new ConcurrentHashMap<>();
+
+    private final Counter published;
+    private final Counter skipped;
+    private final Counter conflated;
+    private final Counter frames;
+
+    public ShipmentBroadcaster(SimpMessagingTemplate messagingTemplate, TopicSubscriptions topicSubscriptions,
+                               MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.topicSubscriptions = topicSubscriptions;
+        this.published = broadcastCounter(meterRegistry, "published");
+        this.skipped = broadcastCounter(meterRegistry, "skipped");
+        this.conflated = broadcastCounter(meterRegistry, "conflated");
+        this.frames = broadcastCounter(meterRegistry, "sent");
+    }
+
+    /**
+     * Queue a change for the next frame. Inside a transaction it is queued after commit. Any of the
+     * values may be null when unchanged.
+     */
+    public void publish(Long shipmentId, Double latitude, Double longitude, Double speed, ShipmentStatus status) {
+        if (!topicSubscriptions.hasSubscribers(TOPIC_PREFIX + shipmentId)) {
+            skipped.increment();
+            sent.remove(shipmentId);
+            return;
+        }
+        ShipmentPositionDelta delta = new ShipmentPositionDelta(shipmentId, latitude, longitude, speed,
+                status != null ? status.name() : null, System.currentTimeMillis());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(delta);
+                }
+            });
+        } else {
+            enqueue(delta);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${tracking.broadcast.interval-ms:1000}")
+    public void flush() {
+        for (Long shipmentId : pending.keySet()) {
+            ShipmentPositionDelta delta = pending.remove(shipmentId);
+            if (delta == null) {
+                continue;
+            }
+            String destination = TOPIC_PREFIX + shipmentId;
+            boolean finished = delta.status() != null
+                    && !ActiveShipmentView.ACTIVE_STATUSES.contains(ShipmentStatus.valueOf(delta.status()));
+            if (!topicSubscriptions.hasSubscribers(destination)) {
+                skipped.increment();
+                sent.remove(shipmentId);
+                continue;
+            }
+
+            ShipmentPositionDelta previous = sent.get(shipmentId);
+            ShipmentPositionDelta frame = previous != null ? delta.since(previous) : delta;
+            if (!frame.isEmpty()) {
+                messagingTemplate.convertAndSend(destination, frame);
+                frames.increment();
+            }
+            if (finished) {
+                sent.remove(shipmentId);
+            } else {
+                sent.put(shipmentId, previous != null ? previous.merge(delta) : delta);
+            }
+        }
+    }
+
+    private void enqueue(ShipmentPositionDelta delta) {
+        published.increment();
+        pending.merge(delta.id(), delta, (older, newer) -> {
+            conflated.increment();
+            return older.merge(newer);
+        });
+    }
+
+    private static Counter broadcastCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("shipment.broadcasts").tag("result", result).register(meterRegistry);
+    }
+}
@@ -10,14 +10,12 @@ import com.warehousebackend.exception.BusinessException;
 import com.warehousebackend.exception.ResourceNotFoundException;
 import com.warehousebackend.repository.*;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -27,8 +25,10 @@ public class ShipmentService {
     private final OrderRepository orderRepository;
     private final VehicleRepository vehicleRepository;
     private final UserRepository userRepository;
-    private final ShipmentTrackingRepository trackingRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ShipmentBroadcaster shipmentBroadcaster;
+    private final ActiveShipmentView activeShipmentView;
+    private final DelayedShipmentDetector delayedShipmentDetector;
+    private final VehicleLocator vehicleLocator;
 
     @Transactional
     public ShipmentResponse createShipment(CreateShipmentDTO dto) {
@@ -69,83 +69,89 @@ public class ShipmentService {
         vehicle.setStatus("IN_USE");
         vehicle.setCurrentDriver(driver);
         vehicleRepository.save(vehicle);
+        vehicleLocator.update(vehicle);
 
         // Update order status
         order.setStatus(OrderStatus.SHIPPED);
         orderRepository.save(order);
 
         Shipment savedShipment = shipmentRepository.save(shipment);
+        activeShipmentView.update(savedShipment);
+        delayedShipmentDetector.update(savedShipment);
         return ShipmentResponse.from(savedShipment);
     }
 
+    /**
+     * Shipment for an order the dispatch planner put on a vehicle's route, driven by whoever is
+     * assigned to the vehicle. Runs inside the planner's transaction.
+     */
     @Transactional
-    public ShipmentResponse updateLocation(Long shipmentId, LocationUpdateDTO dto) {
-        Shipment shipment = shipmentRepository.findById(shipmentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Shipment not found"));
-
-        shipment.setCurrentLatitude(dto.getLatitude());
-        shipment.setCurrentLongitude(dto.getLongitude());
-        shipment.setCurrentSpeed(dto.getSpeed());
-
-        if (shipment.getStatus() == ShipmentStatus.PENDING ||
-                shipment.getStatus() == ShipmentStatus.PICKED_UP) {
-            shipment.setStatus(ShipmentStatus.IN_TRANSIT);
+    public Shipment createPlannedShipment(Order order, Vehicle vehicle, DeliveryRoute route,
+                                          LocalDateTime estimatedDeliveryTime) {
+        if (vehicle.getCurrentDriver() == null) {
+            throw new BusinessException("Vehicle has no driver: " + vehicle.getLicensePlate());
         }
 
-        Shipment savedShipment = shipmentRepository.save(shipment);
-
-        // Record tracking
-        ShipmentTracking tracking = ShipmentTracking.builder()
-                .shipment(shipment)
-                .status(shipment.getStatus())
-                .latitude(dto.getLatitude())
-                .longitude(dto.getLongitude())
-                .speed(dto.getSpeed())
-                .location(dto.getLocation())
-                .notes(dto.getNotes())
+        Shipment shipment = Shipment.builder()
+                .trackingNumber(generateTrackingNumber())
+                .order(order)
+                .vehicle(vehicle)
+                .driver(vehicle.getCurrentDriver())
+                .route(route)
+                .status(ShipmentStatus.PENDING)
+                .estimatedDeliveryTime(estimatedDeliveryTime)
                 .build();
-        trackingRepository.save(tracking);
 
-        // Send real-time update via WebSocket
-        ShipmentResponse response = ShipmentResponse.from(savedShipment);
-        messagingTemplate.convertAndSend(
-                "/topic/shipments/" + shipmentId,
-                response
-        );
+        vehicle.setStatus("IN_USE");
+        vehicleLocator.update(vehicle);
+        order.setStatus(OrderStatus.SHIPPED);
+        order.setShipment(shipment);
 
-        return response;
+        Shipment savedShipment = shipmentRepository.save(shipment);
+        activeShipmentView.update(savedShipment);
+        delayedShipmentDetector.update(savedShipment);
+        return savedShipment;
     }
 
     @Transactional
     public ShipmentResponse updateStatus(Long shipmentId, String statusStr) {
+        ShipmentStatus newStatus = ShipmentStatus.valueOf(statusStr);
+        LocalDateTime now = LocalDateTime.now();
+
+        // Only the status is written, so a position committed by the ingestion batch meanwhile is kept
+        int updated = shipmentRepository.updateStatus(shipmentId, newStatus,
+                newStatus == ShipmentStatus.DELIVERED ? now : null, now);
+        if (updated == 0) {
+            throw new ResourceNotFoundException("Shipment not found");
+        }
+        // Our update holds the row lock, so this read sees the row exactly as we left it
         Shipment shipment = shipmentRepository.findById(shipmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Shipment not found"));
 
-        ShipmentStatus newStatus = ShipmentStatus.valueOf(statusStr);
-        shipment.setStatus(newStatus);
-
         if (newStatus == ShipmentStatus.DELIVERED) {
-            shipment.setActualDeliveryTime(LocalDateTime.now());
             shipment.getOrder().setStatus(OrderStatus.DELIVERED);
-            shipment.getOrder().setActualDeliveryDate(LocalDateTime.now());
+            shipment.getOrder().setActualDeliveryDate(now);
             orderRepository.save(shipment.getOrder());
 
-            // Release vehicle
-            Vehicle vehicle = shipment.getVehicle();
-            vehicle.setStatus("AVAILABLE");
-            vehicle.setCurrentDriver(null);
-            vehicleRepository.save(vehicle);
+            // Release the vehicle once none of its shipments is still on the road. Its row lock makes
+            // two deliveries on the same vehicle check one after the other, so the last one releases it.
+            Vehicle vehicle = shipment.getVehicle() != null
+                    ? vehicleRepository.lockById(shipment.getVehicle().getId()).orElse(null) : null;
+            if (vehicle != null && !shipmentRepository.existsByVehicleIdAndStatusInAndIdNot(vehicle.getId(),
+                    ActiveShipmentView.ACTIVE_STATUSES, shipmentId)) {
+                vehicle.setStatus("AVAILABLE");
+                vehicle.setCurrentDriver(null);
+                vehicleRepository.save(vehicle);
+                vehicleLocator.update(vehicle);
+            }
         }
 
-        Shipment savedShipment = shipmentRepository.save(shipment);
-
-        // Send WebSocket update
-        messagingTemplate.convertAndSend(
-                "/topic/shipments/" + shipmentId,
-                ShipmentResponse.from(savedShipment)
-        );
+        activeShipmentView.update(shipment);
+        delayedShipmentDetector.update(shipment);
+        shipmentBroadcaster.publish(shipmentId, shipment.getCurrentLatitude(),
+                shipment.getCurrentLongitude(), shipment.getCurrentSpeed(), newStatus);
 
-        return ShipmentResponse.from(savedShipment);
+        return ShipmentResponse.from(shipment);
     }
 
     public ShipmentResponse getShipmentByTracking(String trackingNumber) {
@@ -155,16 +161,11 @@ public class ShipmentService {
     }
 
     public List<ShipmentResponse> getActiveShipments() {
-        List<ShipmentStatus> activeStatuses = List.of(
-                ShipmentStatus.PENDING,
-                ShipmentStatus.PICKED_UP,
-                ShipmentStatus.IN_TRANSIT,
-                ShipmentStatus.OUT_FOR_DELIVERY
-        );
-
-        return shipmentRepository.findByStatusIn(activeStatuses).stream()
-                .map(ShipmentResponse::from)
-                .collect(Collectors.toList());
+        return activeShipmentView.getActiveShipments();
+    }
+
+    public List<DelayedShipmentEvent> getDelayedShipments() {
+        return delayedShipmentDetector.getDelayedShipments();
     }
 
     private String generateTrackingNumber() {
@@ -0,0 +1,257 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.dto.inventory.InventoryResponse;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.InventoryShard;
+import com.warehousebackend.exception.BusinessException;
+import com.warehousebackend.exception.ResourceNotFoundException;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.InventoryShardRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Reserve, release and deduct stock with conditional updates.
+ *
+ * Hot product/warehouse pairs can be switched to sharded mode: part of the free stock is moved
+ * into escrow shards (counted as reserved on the parent row) and reservations pick a random shard,
+ * so concurrent checkouts no longer queue on one row. Units are fungible between the parent row
+ * and its shards, which keeps every path correct even when a caller falls back to the parent row.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryShardRepository shardRepository;
+
+    @Value("${inventory.sharding.refill-size:50}")
+    private int refillSize;
+
+    private final Map<InventoryKey, ShardedInventory> shardedInventories = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadShardedInventories() {
+        for (Inventory inventory : inventoryRepository.findBySharded(true)) {
+            register(inventory, inventory.getShards().size());
+        }
+        log.info("Loaded {} sharded inventory rows", shardedInventories.size());
+    }
+
+    @Transactional
+    public boolean reserve(Long productId, Long warehouseId, Integer quantity) {
+        LocalDateTime now = LocalDateTime.now();
+        ShardedInventory sharded = shardedInventories.get(new InventoryKey(warehouseId, productId));
+        if (sharded == null) {
+            return inventoryRepository.reserveStock(productId, warehouseId, quantity, now) == 1;
+        }
+
+        int shardIndex = ThreadLocalRandom.current().nextInt(sharded.shardCount());
+        if (shardRepository.reserve(sharded.inventoryId(), shardIndex, quantity) == 1) {
+            return true;
+        }
+
+        // The shard ran dry: top it up from the parent row's free stock and retry once
+        if (refill(sharded, shardIndex, productId, warehouseId, Math.max(quantity, refillSize), now)
+                || refill(sharded, shardIndex, productId, warehouseId, quantity, now)) {
+            if (shardRepository.reserve(sharded.inventoryId(), shardIndex, quantity) == 1) {
+                return true;
+            }
+        }
+
+        return rebalanceAndReserve(sharded, shardIndex, quantity);
+    }
+
+    /**
+     * Reserve several products of one warehouse at once. Plain rows go out as one JDBC batch,
+     * sharded rows take the shard path. Returns the product ids that could not be reserved.
+     */
+    @Transactional
+    public List<Long> reserveAll(Long warehouseId, Map<Long, Integer> quantitiesByProduct) {
+        Map<Long, Integer> plain = new LinkedHashMap<>();
+        List<Long> failed = new ArrayList<>();
+        quantitiesByProduct.forEach((productId, quantity) -> {
+            if (!isSharded(productId, warehouseId)) {
+                plain.put(productId, quantity);
+            } else if (!reserve(productId, warehouseId, quantity)) {
+                failed.add(productId);
+            }
+        });
+        failed.addAll(inventoryRepository.reserveStockBatch(warehouseId, plain));
+        return failed;
+    }
+
+    @Transactional
+    public boolean release(Long productId, Long warehouseId, Integer quantity) {
+        LocalDateTime now = LocalDateTime.now();
+        ShardedInventory sharded = shardedInventories.get(new InventoryKey(warehouseId, productId));
+        if (sharded != null
+                && anyShard(sharded, shardIndex -> shardRepository.release(sharded.inventoryId(), shardIndex, quantity) == 1)) {
+            return true;
+        }
+        return inventoryRepository.releaseReservedStock(productId, warehouseId, quantity, now) == 1;
+    }
+
+    @Transactional
+    public boolean deductReserved(Long productId, Long warehouseId, Integer quantity) {
+        LocalDateTime now = LocalDateTime.now();
+        ShardedInventory sharded = shardedInventories.get(new InventoryKey(warehouseId, productId));
+        if (sharded != null) {
+            // Shrink the escrow along with the shipped units so shards do not fill up with spent
+            // reservations. No shard holding it means the units were reserved on the parent row.
+            anyShard(sharded, shardIndex -> shardRepository.deduct(sharded.inventoryId(), shardIndex, quantity) == 1);
+        }
+        return inventoryRepository.deductReservedStock(productId, warehouseId, quantity, now) == 1;
+    }
+
+    public boolean isSharded(Long productId, Long warehouseId) {
+        return shardedInventories.containsKey(new InventoryKey(warehouseId, productId));
+    }
+
+    /**
+     * Move every free escrow unit back to the parent row, e.g. before a stock-out that the
+     * parent row alone cannot cover.
+     */
+    @Transactional
+    public void reclaimEscrow(Long productId, Long warehouseId) {
+        ShardedInventory sharded = shardedInventories.get(new InventoryKey(warehouseId, productId));
+        if (sharded == null) {
+            return;
+        }
+
+        Inventory inventory = inventoryRepository.lockById(sharded.inventoryId())
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found"));
+        int free = 0;
+        for (InventoryShard shard : shardRepository.lockByInventoryId(sharded.inventoryId())) {
+            free += shard.getAvailableQuantity();
+            shard.setQuantity(shard.getReservedQuantity());
+        }
+        inventory.setReservedQuantity(inventory.getReservedQuantity() - free);
+    }
+
+    @Transactional
+    public InventoryResponse enableSharding(Long inventoryId, int shardCount) {
+        if (shardCount < 2) {
+            throw new BusinessException("Sharded stock needs at least 2 shards");
+        }
+
+        Inventory inventory = inventoryRepository.lockById(inventoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found"));
+        if (inventory.isShardedStock()) {
+            throw new BusinessException("Inventory is already sharded");
+        }
+
+        // Spread the free stock evenly; it stays counted as reserved on the parent row while in escrow
+        int free = inventory.getAvailableQuantity();
+        List<InventoryShard> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(InventoryShard.builder()
+                    .inventory(inventory)
+                    .shardIndex(i)
+                    .quantity(free / shardCount + (i < free % shardCount ? 1 : 0))
+                    .reservedQuantity(0)
+                    .build());
+        }
+
+        inventory.setReservedQuantity(inventory.getReservedQuantity() + free);
+        inventory.setSharded(true);
+        Inventory savedInventory = inventoryRepository.save(inventory);
+        shardRepository.saveAll(shards);
+
+        register(savedInventory, shardCount);
+        return InventoryResponse.from(savedInventory);
+    }
+
+    @Transactional
+    public InventoryResponse disableSharding(Long inventoryId) {
+        Inventory inventory = inventoryRepository.lockById(inventoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found"));
+        if (!inventory.isShardedStock()) {
+            throw new BusinessException("Inventory is not sharded");
+        }
+
+        // Free escrow goes back to the parent row; units reserved from shards stay reserved
+        List<InventoryShard> shards = shardRepository.lockByInventoryId(inventoryId);
+        int free = shards.stream().mapToInt(InventoryShard::getAvailableQuantity).sum();
+
+        inventory.setReservedQuantity(inventory.getReservedQuantity() - free);
+        inventory.setSharded(false);
+        shardRepository.deleteAll(shards);
+        Inventory savedInventory = inventoryRepository.save(inventory);
+
+        shardedInventories.remove(new InventoryKey(inventory.getWarehouse().getId(), inventory.getProduct().getId()));
+        return InventoryResponse.from(savedInventory);
+    }
+
+    private boolean refill(ShardedInventory sharded, int shardIndex, Long productId, Long warehouseId,
+                           int quantity, LocalDateTime now) {
+        if (inventoryRepository.reserveStock(productId, warehouseId, quantity, now) == 0) {
+            return false;
+        }
+        shardRepository.addQuantity(sharded.inventoryId(), shardIndex, quantity);
+        return true;
+    }
+
+    // A reservation sits in a single shard; start at a random one so callers spread out
+    private static boolean anyShard(ShardedInventory sharded, IntPredicate apply) {
+        int start = ThreadLocalRandom.current().nextInt(sharded.shardCount());
+        for (int i = 0; i < sharded.shardCount(); i++) {
+            if (apply.test((start + i) % sharded.shardCount())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean rebalanceAndReserve(ShardedInventory sharded, int shardIndex, Integer quantity) {
+        // Lock the shards in index order so concurrent rebalances cannot deadlock each other
+        List<InventoryShard> shards = shardRepository.lockByInventoryId(sharded.inventoryId());
+        int free = shards.stream().mapToInt(InventoryShard::getAvailableQuantity).sum();
+        if (free < quantity) {
+            return false;
+        }
+
+        // Give the requesting shard what it needs and spread the rest evenly
+        int remaining = free - quantity;
+        for (InventoryShard shard : shards) {
+            int share = remaining / shards.size() + (shard.getShardIndex() < remaining % shards.size() ? 1 : 0);
+            if (shard.getShardIndex() == shardIndex) {
+                shard.setReservedQuantity(shard.getReservedQuantity() + quantity);
+            }
+            shard.setQuantity(shard.getReservedQuantity() + share);
+        }
+        return true;
+    }
+
+    private void register(Inventory inventory, int shardCount) {
+        shardedInventories.put(
+                new InventoryKey(inventory.getWarehouse().getId(), inventory.getProduct().getId()),
+                new ShardedInventory(inventory.getId(), shardCount));
+    }
+
+    private record InventoryKey(Long warehouseId, Long productId) {
+    }
+
+    private record ShardedInventory(Long inventoryId, int shardCount) {
+    }
+}
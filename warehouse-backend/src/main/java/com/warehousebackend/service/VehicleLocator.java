@@ -0,0 +1,144 @@
+package com.warehousebackend.service;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.entity.Vehicle;
+import com.warehousebackend.repository.ShipmentRepository;
+import com.warehousebackend.repository.VehicleRepository;
+import com.warehousebackend.util.SpatialGrid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last known position of every vehicle, in a {@link SpatialGrid} for "which trucks are near here"
+ * queries.
+ *
+ * Seeded at startup from {@code Vehicle.currentLatitude/Longitude}, then from the latest position
+ * of each vehicle's active shipment. After that a vehicle moves with the GPS pings of the shipment
+ * it carries, and its plate and status follow the vehicle after each change commits.
+ *
+ * A vehicle's plate, status and position are one value, replaced under the vehicle's bin in
+ * {@code vehicles}, and the index is written under the same bin; so a move never pairs a new
+ * position with a status that has since been replaced. A position older than the one held is
+ * ignored, which keeps the startup replay from undoing a ping that arrived first.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VehicleLocator {
+
+    private static final double INDEX_CELL_DEGREES = 0.01;
+
+    private final VehicleRepository vehicleRepository;
+    private final ShipmentRepository shipmentRepository;
+
+    private final Map<Long, Tracked> vehicles = new ConcurrentHashMap<>();
+    private final SpatialGrid<Long, Position> index = new SpatialGrid<>(INDEX_CELL_DEGREES);
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadPositions() {
+        for (Vehicle vehicle : vehicleRepository.findAll()) {
+            apply(vehicle.getId(), new Identity(vehicle.getLicensePlate(), vehicle.getStatus()),
+                    vehicle.getCurrentLatitude(), vehicle.getCurrentLongitude());
+        }
+        for (Object[] row : shipmentRepository.findVehiclePositions(List.copyOf(ActiveShipmentView.ACTIVE_STATUSES))) {
+            moveTo((Long) row[0], (Double) row[1], (Double) row[2], (LocalDateTime) row[3]);
+        }
+        log.info("Located {} of {} vehicles", index.size(), vehicles.size());
+    }
+
+    /**
+     * Record a vehicle's plate and status, and its stored position if it has one, after commit.
+     */
+    public void update(Vehicle vehicle) {
+        Long id = vehicle.getId();
+        Identity identity = new Identity(vehicle.getLicensePlate(), vehicle.getStatus());
+        Double latitude = vehicle.getCurrentLatitude();
+        Double longitude = vehicle.getCurrentLongitude();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(id, identity, latitude, longitude);
+                }
+            });
+        } else {
+            apply(id, identity, latitude, longitude);
+        }
+    }
+
+    /**
+     * Move a vehicle to a position reported at {@code at}, unless it already has a later one. Vehicles
+     * not seen at startup or through {@link #update} are ignored.
+     */
+    public void moveTo(Long vehicleId, Double latitude, Double longitude, LocalDateTime at) {
+        if (vehicleId == null || latitude == null || longitude == null) {
+            return;
+        }
+        vehicles.computeIfPresent(vehicleId, (id, tracked) -> {
+            if (tracked.reportedAt() != null && (at == null || at.isBefore(tracked.reportedAt()))) {
+                return tracked;
+            }
+            Tracked moved = new Tracked(tracked.licensePlate(), tracked.status(), latitude, longitude, at);
+            index.put(id, latitude, longitude, moved.position(id));
+            return moved;
+        });
+    }
+
+    /**
+     * Vehicles within {@code radiusKm} of a point, nearest first, optionally only those in one status.
+     */
+    public List<SpatialGrid.Hit<Position>> vehiclesWithin(double latitude, double longitude, double radiusKm,
+                                                          String status) {
+        List<SpatialGrid.Hit<Position>> hits = index.withinRadius(latitude, longitude, radiusKm);
+        return status == null ? hits : hits.stream().filter(hit -> status.equals(hit.item().status())).toList();
+    }
+
+    public List<Position> vehiclesIn(double south, double west, double north, double east, String status) {
+        List<Position> positions = index.withinBox(south, west, north, east);
+        return status == null ? positions : positions.stream().filter(position -> status.equals(position.status())).toList();
+    }
+
+    // A position already held is newer than the stored one, so only the identity changes
+    private void apply(Long id, Identity identity, Double latitude, Double longitude) {
+        vehicles.compute(id, (key, tracked) -> {
+            Tracked updated = tracked != null && tracked.latitude() != null
+                    ? new Tracked(identity.licensePlate(), identity.status(), tracked.latitude(), tracked.longitude(),
+                    tracked.reportedAt())
+                    : new Tracked(identity.licensePlate(), identity.status(), latitude, longitude, null);
+            if (updated.latitude() != null && updated.longitude() != null) {
+                index.put(key, updated.latitude(), updated.longitude(), updated.position(key));
+            }
+            return updated;
+        });
+    }
+
+    public record Position(Long vehicleId, String licensePlate, String status, double latitude, double longitude,
+                           LocalDateTime reportedAt) {
+    }
+
+    private record Identity(String licensePlate, String status) {
+    }
+
+    private record Tracked(String licensePlate, String status, Double latitude, Double longitude,
+                           LocalDateTime reportedAt) {
+
+        Position position(Long vehicleId) {
+            return new Position(vehicleId, licensePlate, status, latitude, longitude, reportedAt);
+        }
+    }
+}
@@ -27,6 +27,7 @@ public class VehicleService {
 
     private final VehicleRepository vehicleRepository;
     private final UserRepository userRepository;
+    private final VehicleLocator vehicleLocator;
 
     public Page<VehicleResponse> getAllVehicles(Pageable pageable) {
         return vehicleRepository.findAll(pageable)
@@ -72,6 +73,7 @@ public class VehicleService {
                 .build();
 
         Vehicle savedVehicle = vehicleRepository.save(vehicle);
+        vehicleLocator.update(savedVehicle);
         return VehicleResponse.from(savedVehicle);
     }
 
@@ -96,6 +98,7 @@ public class VehicleService {
         vehicle.setFuelEfficiency(dto.getFuelEfficiency());
 
         Vehicle savedVehicle = vehicleRepository.save(vehicle);
+        vehicleLocator.update(savedVehicle);
         return VehicleResponse.from(savedVehicle);
     }
 
@@ -106,6 +109,7 @@ public class VehicleService {
 
         vehicle.setCurrentMileage(mileage);
         Vehicle savedVehicle = vehicleRepository.save(vehicle);
+        vehicleLocator.update(savedVehicle);
         return VehicleResponse.from(savedVehicle);
     }
 
@@ -119,6 +123,7 @@ public class VehicleService {
         vehicle.setStatus("AVAILABLE");
 
         Vehicle savedVehicle = vehicleRepository.save(vehicle);
+        vehicleLocator.update(savedVehicle);
         return VehicleResponse.from(savedVehicle);
     }
 
@@ -138,6 +143,7 @@ public class VehicleService {
         vehicle.setStatus("IN_USE");
 
         Vehicle savedVehicle = vehicleRepository.save(vehicle);
+        vehicleLocator.update(savedVehicle);
         return VehicleResponse.from(savedVehicle);
     }
 
@@ -152,5 +158,6 @@ public class VehicleService {
 
         vehicle.setStatus("BROKEN");
         vehicleRepository.save(vehicle);
+        vehicleLocator.update(vehicle);
     }
 }
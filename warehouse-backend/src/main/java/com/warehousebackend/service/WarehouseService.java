@@ -23,6 +23,8 @@ import java.util.stream.Collectors;
 public class WarehouseService {
 
     private final WarehouseRepository warehouseRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final DistanceMatrixService distanceMatrixService;
 
     public Page<WarehouseResponse> getAllWarehouses(Pageable pageable) {
         return warehouseRepository.findAll(pageable)
@@ -79,6 +81,8 @@ public class WarehouseService {
         warehouse.setDescription(dto.getDescription());
 
         Warehouse savedWarehouse = warehouseRepository.save(warehouse);
+        referenceDataCache.evictWarehouse(id);
+        distanceMatrixService.evictWarehouse(id);
         return WarehouseResponse.from(savedWarehouse);
     }
 
@@ -93,5 +97,7 @@ public class WarehouseService {
 
         warehouse.setStatus("INACTIVE");
         warehouseRepository.save(warehouse);
+        referenceDataCache.evictWarehouse(id);
+        distanceMatrixService.evictWarehouse(id);
     }
 }
\ No newline at end of file
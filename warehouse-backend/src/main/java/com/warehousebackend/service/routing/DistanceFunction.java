@@ -0,0 +1,26 @@
+package com.warehousebackend.service.routing;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.util.GeoUtils;
+
+/**
+ * Distance in km between two coordinates. Register a bean of this type to replace the default
+ * straight-line estimate, for example with a road-network lookup; implementations must be
+ * symmetric and thread-safe.
+ */
+@FunctionalInterface
+public interface DistanceFunction {
+
+    double km(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude);
+
+    /**
+     * Great-circle distance scaled by {@code roadFactor} as an estimate of the road distance.
+     */
+    static DistanceFunction haversine(double roadFactor) {
+        return (fromLatitude, fromLongitude, toLatitude, toLongitude) ->
+                GeoUtils.haversineKm(fromLatitude, fromLongitude, toLatitude, toLongitude) * roadFactor;
+    }
+}
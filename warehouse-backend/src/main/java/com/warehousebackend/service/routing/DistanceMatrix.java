@@ -0,0 +1,74 @@
+package com.warehousebackend.service.routing;
+
+/**
+ * @author MyDuyen
+ */
+
+import com.warehousebackend.util.GeoUtils;
+
+import java.util.stream.IntStream;
+
+/**
+ * Symmetric matrix of road distances in km between a set of points, stored row-major in one
+ * {@code double[]}. Index 0 is the depot by convention.
+ */
+public final class DistanceMatrix {
+
+    private final int size;
+    private final double[] values;
+
+    private DistanceMatrix(int size, double[] values) {
+        this.size = size;
+        this.values = values;
+    }
+
+    /**
+     * Wrap a row-major {@code size * size} array without copying it.
+     */
+    public static DistanceMatrix of(int size, double[] values) {
+        if (values.length != size * size) {
+            throw new IllegalArgumentException("Expected " + size * size + " values, got " + values.length);
+        }
+        return new DistanceMatrix(size, values);
+    }
+
+    /**
+     * Straight-line distances scaled by {@code roadFactor} as an estimate of the road distance.
+     */
+    public static DistanceMatrix haversine(double[] latitudes, double[] longitudes, double roadFactor) {
+        int size = latitudes.length;
+        double[] values = new double[size * size];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            for (int j = i + 1; j < size; j++) {
+                double km = GeoUtils.haversineKm(latitudes[i], longitudes[i], latitudes[j], longitudes[j]) * roadFactor;
+                values[i * size + j] = km;
+                values[j * size + i] = km;
+            }
+        });
+        return new DistanceMatrix(size, values);
+    }
+
+    /**
+     * The matrix restricted to the depot and {@code nodes}, re-indexed 1..n in that order.
+     */
+    public DistanceMatrix subset(int[] nodes) {
+        int[] index = new int[nodes.length + 1];
+        System.arraycopy(nodes, 0, index, 1, nodes.length);
+        int subsetSize = index.length;
+        double[] subsetValues = new double[subsetSize * subsetSize];
+        for (int i = 0; i < subsetSize; i++) {
+            for (int j = 0; j < subsetSize; j++) {
+                subsetValues[i * subsetSize + j] = get(index[i], index[j]);
+            }
+        }
+        return new DistanceMatrix(subsetSize, subsetValues);
+    }
+
+    public double get(int from, int to) {
+        return values[from * size + to];
+    }
+
+    public int size() {
+        return size;
+    }
+}
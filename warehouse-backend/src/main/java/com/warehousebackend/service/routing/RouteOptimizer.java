@@ -0,0 +1,297 @@
+package com.warehousebackend.service.routing;
+
+/**
+ * @author MyDuyen
+ */
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Orders the stops of one closed tour (depot, stops, back to depot) to keep it short.
+ *
+ * Construction is Clarke-Wright savings: start with one depot round trip per stop and join tour
+ * ends in order of the distance saved. The tour is then improved by best-improvement local search
+ * with 2-opt (reverse a section) and or-opt (move a run of up to three stops, either way round).
+ * Moves are only tried toward each node's nearest neighbours, and every round evaluates all nodes
+ * in parallel before applying the single best move. Distances must be symmetric.
+ */
+public final class RouteOptimizer {
+
+    private static final int NEIGHBOURS = 12;
+    private static final int MAX_SEGMENT = 3;
+    private static final double EPSILON = 1e-9;
+
+    private final DistanceMatrix distances;
+    private final int size;
+    private final int[][] neighbours;
+    // tour[0] is always the depot; the tour closes from tour[size - 1] back to it
+    private int[] tour;
+    private final int[] position;
+
+    private RouteOptimizer(DistanceMatrix distances) {
+        this.distances = distances;
+        this.size = distances.size();
+        this.neighbours = nearestNeighbours();
+        this.position = new int[size];
+    }
+
+    /**
+     * Visiting order for nodes {@code 1..size-1} of the matrix; node 0 is the depot.
+     */
+    public static int[] optimise(DistanceMatrix distances) {
+        int stops = distances.size() - 1;
+        if (stops <= 3) {
+            // Every order of three stops or fewer is the same closed tour, or its mirror
+            return IntStream.rangeClosed(1, stops).toArray();
+        }
+        RouteOptimizer optimizer = new RouteOptimizer(distances);
+        optimizer.construct();
+        optimizer.improve();
+        return Arrays.copyOfRange(optimizer.tour, 1, optimizer.size);
+    }
+
+    /**
+     * Length of the closed tour depot, {@code order}..., depot.
+     */
+    public static double tourLength(DistanceMatrix distances, int[] order) {
+        double length = 0;
+        int previous = 0;
+        for (int node : order) {
+            length += distances.get(previous, node);
+            previous = node;
+        }
+        return length + distances.get(previous, 0);
+    }
+
+    private void construct() {
+        int stops = size - 1;
+        Saving[] savings = new Saving[stops * (stops - 1) / 2];
+        int k = 0;
+        for (int i = 1; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                savings[k++] = new Saving(i, j, distances.get(0, i) + distances.get(0, j) - distances.get(i, j));
+            }
+        }
+        Arrays.parallelSort(savings, Comparator.comparingDouble(Saving::value).reversed());
+
+        // Each stop links to at most two others; joining only tour ends of different tours keeps a path
+        int[][] links = new int[size][2];
+        for (int[] link : links) {
+            Arrays.fill(link, -1);
+        }
+        int[] parent = IntStream.range(0, size).toArray();
+        int joined = 0;
+        for (Saving saving : savings) {
+            int i = saving.i();
+            int j = saving.j();
+            if (links[i][1] != -1 || links[j][1] != -1 || root(parent, i) == root(parent, j)) {
+                continue;
+            }
+            links[i][links[i][0] == -1 ? 0 : 1] = j;
+            links[j][links[j][0] == -1 ? 0 : 1] = i;
+            parent[root(parent, i)] = root(parent, j);
+            if (++joined == stops - 1) {
+                break;
+            }
+        }
+
+        tour = new int[size];
+        int current = 1;
+        while (links[current][1] != -1) {
+            current++;
+        }
+        int previous = -1;
+        for (int p = 1; p < size; p++) {
+            tour[p] = current;
+            int next = links[current][0] != previous ? links[current][0] : links[current][1];
+            previous = current;
+            current = next;
+        }
+        reindex();
+    }
+
+    private void improve() {
+        int maxRounds = 50 * size;
+        for (int round = 0; round < maxRounds; round++) {
+            Move best = IntStream.range(0, size).parallel()
+                    .mapToObj(this::bestMoveFrom)
+                    .filter(Objects::nonNull)
+                    .min(Comparator.comparingDouble(Move::delta))
+                    .orElse(null);
+            if (best == null) {
+                return;
+            }
+            apply(best);
+        }
+    }
+
+    private Move bestMoveFrom(int node) {
+        Move best = null;
+        int at = position[node];
+        int successor = tour[next(at)];
+        int predecessor = tour[previous(at)];
+
+        for (int candidate : neighbours[node]) {
+            double added = distances.get(node, candidate);
+            int atCandidate = position[candidate];
+
+            // 2-opt joining node to candidate in place of node -> successor
+            if (added < distances.get(node, successor) && candidate != successor) {
+                int candidateSuccessor = tour[next(atCandidate)];
+                double delta = added + distances.get(successor, candidateSuccessor)
+                        - distances.get(node, successor) - distances.get(candidate, candidateSuccessor);
+                if (delta < -EPSILON && (best == null || delta < best.delta())) {
+                    best = at < atCandidate
+                            ? Move.reverse(at + 1, atCandidate, delta)
+                            : Move.reverse(atCandidate + 1, at, delta);
+                }
+            }
+
+            // 2-opt joining node to candidate in place of predecessor -> node
+            if (added < distances.get(predecessor, node) && candidate != predecessor) {
+                int candidatePredecessor = tour[previous(atCandidate)];
+                double delta = added + distances.get(predecessor, candidatePredecessor)
+                        - distances.get(predecessor, node) - distances.get(candidatePredecessor, candidate);
+                if (delta < -EPSILON && (best == null || delta < best.delta())) {
+                    // Reverse whichever of the two equivalent sections does not contain the depot
+                    int from = Math.min(at, atCandidate);
+                    int to = Math.max(at, atCandidate);
+                    best = from == 0 ? Move.reverse(to, size - 1, delta) : Move.reverse(from, to - 1, delta);
+                }
+            }
+        }
+
+        if (at == 0) {
+            return best;
+        }
+        for (int length = 1; length <= MAX_SEGMENT && at + length - 1 < size; length++) {
+            Move move = bestRelocation(at, length);
+            if (move != null && (best == null || move.delta() < best.delta())) {
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    // or-opt: move tour[start..start+length-1] next to one of its first stop's neighbours
+    private Move bestRelocation(int start, int length) {
+        int end = start + length - 1;
+        int first = tour[start];
+        int last = tour[end];
+        int before = tour[start - 1];
+        int after = tour[next(end)];
+        double removed = distances.get(before, first) + distances.get(last, after) - distances.get(before, after);
+
+        Move best = null;
+        for (int candidate : neighbours[first]) {
+            int atCandidate = position[candidate];
+            if (atCandidate >= start && atCandidate <= end) {
+                continue;
+            }
+            // Insert between candidate and its successor, or between its predecessor and candidate
+            for (int side = 0; side < 2; side++) {
+                int left = side == 0 ? candidate : tour[previous(atCandidate)];
+                int right = side == 0 ? tour[next(atCandidate)] : candidate;
+                int atLeft = position[left];
+                if ((atLeft >= start - 1 && atLeft <= end) || left == last) {
+                    continue;
+                }
+                double base = distances.get(left, right);
+                double forward = distances.get(left, first) + distances.get(last, right) - base;
+                double reversed = distances.get(left, last) + distances.get(first, right) - base;
+                double delta = Math.min(forward, reversed) - removed;
+                if (delta < -EPSILON && (best == null || delta < best.delta())) {
+                    best = Move.relocate(start, length, left, reversed < forward, delta);
+                }
+            }
+        }
+        return best;
+    }
+
+    private void apply(Move move) {
+        if (move.relocation()) {
+            int[] segment = Arrays.copyOfRange(tour, move.from(), move.from() + move.length());
+            if (move.reversed()) {
+                reverse(segment, 0, segment.length - 1);
+            }
+            int[] moved = new int[size];
+            int k = 0;
+            for (int p = 0; p < size; p++) {
+                if (p >= move.from() && p < move.from() + move.length()) {
+                    continue;
+                }
+                moved[k++] = tour[p];
+                if (tour[p] == move.after()) {
+                    for (int node : segment) {
+                        moved[k++] = node;
+                    }
+                }
+            }
+            tour = moved;
+        } else {
+            reverse(tour, move.from(), move.to());
+        }
+        reindex();
+    }
+
+    private int[][] nearestNeighbours() {
+        int count = Math.min(NEIGHBOURS, size - 1);
+        int[][] result = new int[size][];
+        IntStream.range(0, size).parallel().forEach(node -> result[node] = IntStream.range(0, size)
+                .filter(other -> other != node)
+                .boxed()
+                .sorted(Comparator.comparingDouble(other -> distances.get(node, other)))
+                .limit(count)
+                .mapToInt(Integer::intValue)
+                .toArray());
+        return result;
+    }
+
+    private void reindex() {
+        for (int p = 0; p < size; p++) {
+            position[tour[p]] = p;
+        }
+    }
+
+    private int next(int at) {
+        return at + 1 == size ? 0 : at + 1;
+    }
+
+    private int previous(int at) {
+        return at == 0 ? size - 1 : at - 1;
+    }
+
+    private static void reverse(int[] values, int from, int to) {
+        while (from < to) {
+            int swap = values[from];
+            values[from++] = values[to];
+            values[to--] = swap;
+        }
+    }
+
+    private static int root(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private record Saving(int i, int j, double value) {
+    }
+
+    // Either reverse tour[from..to], or move tour[from..from+length-1] to just after node `after`
+    private record Move(boolean relocation, int from, int to, int length, int after, boolean reversed, double delta) {
+
+        static Move reverse(int from, int to, double delta) {
+            return new Move(false, from, to, 0, -1, false, delta);
+        }
+
+        static Move relocate(int from, int length, int after, boolean reversed, double delta) {
+            return new Move(true, from, -1, length, after, reversed, delta);
+        }
+    }
+}
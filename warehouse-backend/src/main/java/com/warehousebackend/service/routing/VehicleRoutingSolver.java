@@ -0,0 +1,438 @@
+package com.warehousebackend.service.routing;
+
+/**
+ * @author MyDuyen
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Splits stops across a fleet of vehicles, one closed route each from the depot, so that no
+ * vehicle carries more than its weight or volume capacity and the total distance stays short.
+ *
+ * Construction is Clarke-Wright savings over each stop's nearest neighbours, with routes capped
+ * at the largest vehicle. Routes are handed out best-fit, heaviest first; stops on routes no
+ * vehicle can take are inserted wherever they still fit, and the rest are reported unassigned.
+ * Improvement then runs in rounds until nothing helps or the time budget is spent: every stop's
+ * best relocation to, or swap with, a nearby stop on another route is found in parallel, and the
+ * improving moves are applied best first, at most one per route per round so they cannot
+ * interfere. Routes are re-sequenced by {@link RouteOptimizer} before and after the search.
+ */
+public final class VehicleRoutingSolver {
+
+    private static final int NEIGHBOURS = 30;
+    private static final double EPSILON = 1e-9;
+
+    private final DistanceMatrix distances;
+    private final int size;
+    private final double[] weights;
+    private final double[] volumes;
+    private final List<Capacity> capacities;
+    private final int[][] neighbours;
+
+    // routes[v] lists the stops of vehicle v in visiting order, without the depot
+    private final int[][] routes;
+    private final double[] routeWeight;
+    private final double[] routeVolume;
+    // Vehicle of each stop, -1 while unassigned, and its index in that route
+    private final int[] routeOf;
+    private final int[] position;
+
+    private VehicleRoutingSolver(DistanceMatrix distances, double[] weights, double[] volumes,
+                                 List<Capacity> capacities) {
+        this.distances = distances;
+        this.size = distances.size();
+        this.weights = weights;
+        this.volumes = volumes;
+        this.capacities = capacities;
+        this.neighbours = nearestNeighbours();
+        this.routes = new int[capacities.size()][0];
+        this.routeWeight = new double[capacities.size()];
+        this.routeVolume = new double[capacities.size()];
+        this.routeOf = new int[size];
+        this.position = new int[size];
+        Arrays.fill(routeOf, -1);
+    }
+
+    /**
+     * Routes for nodes {@code 1..size-1} of the matrix; node 0 is the depot and carries no load.
+     * The budget bounds the local search; construction and the final re-sequencing run regardless.
+     */
+    public static Solution solve(DistanceMatrix distances, double[] weights, double[] volumes,
+                                 List<Capacity> vehicles, long timeBudgetMillis) {
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000;
+        VehicleRoutingSolver solver = new VehicleRoutingSolver(distances, weights, volumes, vehicles);
+        if (!vehicles.isEmpty()) {
+            solver.assign(solver.construct());
+            solver.insertUnassigned();
+            solver.resequence();
+            solver.improve(deadline);
+            solver.resequence();
+        }
+        return solver.solution();
+    }
+
+    private List<int[]> construct() {
+        double maxWeight = capacities.stream().mapToDouble(Capacity::weight).max().orElse(0);
+        double maxVolume = capacities.stream().mapToDouble(Capacity::volume).max().orElse(0);
+
+        List<Saving> savings = new ArrayList<>();
+        for (int i = 1; i < size; i++) {
+            for (int j : neighbours[i]) {
+                double value = distances.get(0, i) + distances.get(0, j) - distances.get(i, j);
+                // A pair can come up from both ends; the second is skipped as already joined
+                if (value > 0) {
+                    savings.add(new Saving(i, j, value));
+                }
+            }
+        }
+        savings.sort(Comparator.comparingDouble(Saving::value).reversed());
+
+        // Same path joining as RouteOptimizer, with the load of each path kept at its root
+        int[][] links = new int[size][2];
+        for (int[] link : links) {
+            Arrays.fill(link, -1);
+        }
+        int[] parent = IntStream.range(0, size).toArray();
+        double[] pathWeight = weights.clone();
+        double[] pathVolume = volumes.clone();
+        for (Saving saving : savings) {
+            int i = saving.i();
+            int j = saving.j();
+            int rootI = root(parent, i);
+            int rootJ = root(parent, j);
+            if (links[i][1] != -1 || links[j][1] != -1 || rootI == rootJ
+                    || pathWeight[rootI] + pathWeight[rootJ] > maxWeight
+                    || pathVolume[rootI] + pathVolume[rootJ] > maxVolume) {
+                continue;
+            }
+            links[i][links[i][0] == -1 ? 0 : 1] = j;
+            links[j][links[j][0] == -1 ? 0 : 1] = i;
+            parent[rootI] = rootJ;
+            pathWeight[rootJ] += pathWeight[rootI];
+            pathVolume[rootJ] += pathVolume[rootI];
+        }
+
+        List<int[]> paths = new ArrayList<>();
+        boolean[] visited = new boolean[size];
+        for (int start = 1; start < size; start++) {
+            if (visited[start] || links[start][1] != -1) {
+                continue;
+            }
+            List<Integer> path = new ArrayList<>();
+            int previous = -1;
+            int current = start;
+            while (current != -1) {
+                visited[current] = true;
+                path.add(current);
+                int next = links[current][0] != previous ? links[current][0] : links[current][1];
+                previous = current;
+                current = next;
+            }
+            paths.add(path.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return paths;
+    }
+
+    // Heaviest route first, each to the smallest free vehicle that can carry it
+    private void assign(List<int[]> paths) {
+        paths.sort(Comparator.comparingDouble((int[] path) -> load(path, weights))
+                .thenComparingDouble(path -> load(path, volumes)).reversed());
+        Integer[] bySize = IntStream.range(0, capacities.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer v) -> capacities.get(v).weight())
+                        .thenComparingDouble(v -> capacities.get(v).volume()))
+                .toArray(Integer[]::new);
+        boolean[] used = new boolean[capacities.size()];
+        for (int[] path : paths) {
+            double weight = load(path, weights);
+            double volume = load(path, volumes);
+            for (int vehicle : bySize) {
+                Capacity capacity = capacities.get(vehicle);
+                if (!used[vehicle] && weight <= capacity.weight() && volume <= capacity.volume()) {
+                    used[vehicle] = true;
+                    setRoute(vehicle, path);
+                    break;
+                }
+            }
+        }
+    }
+
+    // Cheapest feasible insertion of each unassigned stop, heaviest first
+    private void insertUnassigned() {
+        int[] pending = IntStream.range(1, size).filter(node -> routeOf[node] < 0).boxed()
+                .sorted(Comparator.comparingDouble((Integer node) -> weights[node]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int node : pending) {
+            int bestVehicle = -1;
+            int bestAt = -1;
+            double bestCost = Double.POSITIVE_INFINITY;
+            for (int vehicle = 0; vehicle < routes.length; vehicle++) {
+                if (!fits(vehicle, weights[node], volumes[node])) {
+                    continue;
+                }
+                int[] route = routes[vehicle];
+                for (int at = 0; at <= route.length; at++) {
+                    int left = at == 0 ? 0 : route[at - 1];
+                    int right = at == route.length ? 0 : route[at];
+                    double cost = distances.get(left, node) + distances.get(node, right) - distances.get(left, right);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestVehicle = vehicle;
+                        bestAt = at;
+                    }
+                }
+            }
+            if (bestVehicle >= 0) {
+                int[] route = routes[bestVehicle];
+                int[] grown = new int[route.length + 1];
+                System.arraycopy(route, 0, grown, 0, bestAt);
+                grown[bestAt] = node;
+                System.arraycopy(route, bestAt, grown, bestAt + 1, route.length - bestAt);
+                setRoute(bestVehicle, grown);
+            }
+        }
+    }
+
+    private void improve(long deadline) {
+        boolean[] touched = new boolean[routes.length];
+        while (System.nanoTime() < deadline) {
+            List<Move> moves = IntStream.range(1, size).parallel()
+                    .mapToObj(this::bestMoveFrom)
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparingDouble(Move::delta))
+                    .toList();
+            if (moves.isEmpty()) {
+                break;
+            }
+            Arrays.fill(touched, false);
+            for (Move move : moves) {
+                int from = routeOf[move.node()];
+                int to = move.target();
+                if (touched[from] || touched[to]) {
+                    continue;
+                }
+                touched[from] = true;
+                touched[to] = true;
+                apply(move);
+            }
+        }
+        insertUnassigned();
+    }
+
+    private Move bestMoveFrom(int node) {
+        int from = routeOf[node];
+        if (from < 0) {
+            return null;
+        }
+        int predecessor = previous(node);
+        int successor = next(node);
+        double removed = distances.get(predecessor, node) + distances.get(node, successor)
+                - distances.get(predecessor, successor);
+
+        Move best = null;
+        for (int candidate : neighbours[node]) {
+            int to = routeOf[candidate];
+            if (to < 0 || to == from) {
+                continue;
+            }
+            int candidatePredecessor = previous(candidate);
+            int candidateSuccessor = next(candidate);
+
+            // Relocate node next to candidate, on either side
+            if (fits(to, weights[node], volumes[node])) {
+                for (int side = 0; side < 2; side++) {
+                    int left = side == 0 ? candidatePredecessor : candidate;
+                    int right = side == 0 ? candidate : candidateSuccessor;
+                    double delta = distances.get(left, node) + distances.get(node, right)
+                            - distances.get(left, right) - removed;
+                    if (delta < -EPSILON && (best == null || delta < best.delta())) {
+                        best = Move.relocate(node, to, left, delta);
+                    }
+                }
+            }
+
+            // Swap node and candidate between their routes
+            double weightShift = weights[candidate] - weights[node];
+            double volumeShift = volumes[candidate] - volumes[node];
+            if (fits(from, weightShift, volumeShift) && fits(to, -weightShift, -volumeShift)) {
+                double delta = distances.get(predecessor, candidate) + distances.get(candidate, successor)
+                        - distances.get(predecessor, node) - distances.get(node, successor)
+                        + distances.get(candidatePredecessor, node) + distances.get(node, candidateSuccessor)
+                        - distances.get(candidatePredecessor, candidate) - distances.get(candidate, candidateSuccessor);
+                if (delta < -EPSILON && (best == null || delta < best.delta())) {
+                    best = Move.swap(node, candidate, to, delta);
+                }
+            }
+        }
+        return best;
+    }
+
+    private void apply(Move move) {
+        int node = move.node();
+        int from = routeOf[node];
+        if (move.swap()) {
+            int other = move.other();
+            routes[from][position[node]] = other;
+            routes[move.target()][position[other]] = node;
+            setRoute(from, routes[from]);
+            setRoute(move.target(), routes[move.target()]);
+            return;
+        }
+        int[] source = routes[from];
+        int[] shrunk = new int[source.length - 1];
+        System.arraycopy(source, 0, shrunk, 0, position[node]);
+        System.arraycopy(source, position[node] + 1, shrunk, position[node], source.length - position[node] - 1);
+        setRoute(from, shrunk);
+
+        int[] target = routes[move.target()];
+        int at = move.after() == 0 ? 0 : position[move.after()] + 1;
+        int[] grown = new int[target.length + 1];
+        System.arraycopy(target, 0, grown, 0, at);
+        grown[at] = node;
+        System.arraycopy(target, at, grown, at + 1, target.length - at);
+        setRoute(move.target(), grown);
+    }
+
+    private void resequence() {
+        IntStream.range(0, routes.length).parallel()
+                .filter(vehicle -> routes[vehicle].length > 3)
+                .forEach(vehicle -> {
+                    int[] route = routes[vehicle];
+                    int[] order = RouteOptimizer.optimise(distances.subset(route));
+                    int[] resequenced = new int[route.length];
+                    for (int k = 0; k < order.length; k++) {
+                        resequenced[k] = route[order[k] - 1];
+                    }
+                    if (RouteOptimizer.tourLength(distances, resequenced) < RouteOptimizer.tourLength(distances, route)) {
+                        setRoute(vehicle, resequenced);
+                    }
+                });
+    }
+
+    private Solution solution() {
+        int[][] result = new int[routes.length][];
+        double total = 0;
+        for (int vehicle = 0; vehicle < routes.length; vehicle++) {
+            result[vehicle] = routes[vehicle].clone();
+            if (result[vehicle].length > 0) {
+                total += RouteOptimizer.tourLength(distances, result[vehicle]);
+            }
+        }
+        int[] unassigned = IntStream.range(1, size).filter(node -> routeOf[node] < 0).toArray();
+        return new Solution(result, unassigned, total);
+    }
+
+    // Only touches the stops of this route, so routes can be set from parallel workers
+    private void setRoute(int vehicle, int[] route) {
+        routes[vehicle] = route;
+        double weight = 0;
+        double volume = 0;
+        for (int k = 0; k < route.length; k++) {
+            routeOf[route[k]] = vehicle;
+            position[route[k]] = k;
+            weight += weights[route[k]];
+            volume += volumes[route[k]];
+        }
+        routeWeight[vehicle] = weight;
+        routeVolume[vehicle] = volume;
+    }
+
+    private boolean fits(int vehicle, double extraWeight, double extraVolume) {
+        Capacity capacity = capacities.get(vehicle);
+        return routeWeight[vehicle] + extraWeight <= capacity.weight()
+                && routeVolume[vehicle] + extraVolume <= capacity.volume();
+    }
+
+    private int previous(int node) {
+        int at = position[node];
+        return at == 0 ? 0 : routes[routeOf[node]][at - 1];
+    }
+
+    private int next(int node) {
+        int[] route = routes[routeOf[node]];
+        int at = position[node];
+        return at == route.length - 1 ? 0 : route[at + 1];
+    }
+
+    // Nearest stops by bounded insertion, which avoids sorting every row of a large matrix
+    private int[][] nearestNeighbours() {
+        int count = Math.min(NEIGHBOURS, size - 2);
+        int[][] result = new int[size][];
+        IntStream.range(1, size).parallel().forEach(node -> {
+            int[] nearest = new int[Math.max(count, 0)];
+            double[] nearestDistance = new double[nearest.length];
+            int found = 0;
+            for (int other = 1; other < size; other++) {
+                if (other == node) {
+                    continue;
+                }
+                double distance = distances.get(node, other);
+                if (found == nearest.length && (found == 0 || distance >= nearestDistance[found - 1])) {
+                    continue;
+                }
+                int at = found < nearest.length ? found++ : found - 1;
+                while (at > 0 && nearestDistance[at - 1] > distance) {
+                    nearest[at] = nearest[at - 1];
+                    nearestDistance[at] = nearestDistance[at - 1];
+                    at--;
+                }
+                nearest[at] = other;
+                nearestDistance[at] = distance;
+            }
+            result[node] = nearest;
+        });
+        result[0] = new int[0];
+        return result;
+    }
+
+    private static double load(int[] path, double[] values) {
+        double total = 0;
+        for (int node : path) {
+            total += values[node];
+        }
+        return total;
+    }
+
+    private static int root(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    /**
+     * What one vehicle can carry; use {@link Double#POSITIVE_INFINITY} for a dimension it is not
+     * limited in.
+     */
+    public record Capacity(double weight, double volume) {
+    }
+
+    /**
+     * {@code routes[v]} is the visiting order for vehicle {@code v} in the order given, empty when
+     * it is not needed. Unassigned stops fit no vehicle.
+     */
+    public record Solution(int[][] routes, int[] unassigned, double totalDistance) {
+    }
+
+    private record Saving(int i, int j, double value) {
+    }
+
+    // Either move node to just after `after` (0 for the start) on route target, or swap it with other
+    private record Move(boolean swap, int node, int other, int target, int after, double delta) {
+
+        static Move relocate(int node, int target, int after, double delta) {
+            return new Move(false, node, -1, target, after, delta);
+        }
+
+        static Move swap(int node, int other, int target, double delta) {
+            return new Move(true, node, other, target, -1, delta);
+        }
+    }
+}
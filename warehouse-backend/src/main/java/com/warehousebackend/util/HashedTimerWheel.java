@@ -0,0 +1,121 @@
+package com.warehousebackend.util;
+
+/**
+ * @author MyDuyen
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel: deadlines are hashed by tick into a fixed ring of slots, each slot a doubly
+ * linked list, so scheduling and cancelling are O(1) and advancing one tick only visits the
+ * timers in that slot. Timers more than one turn away carry a round count that is decremented on
+ * each pass.
+ *
+ * Time is supplied by the caller, which keeps it deterministic in tests. Timers fire on the first
+ * {@link #advance} at or after their deadline, rounded up to the tick. One timer per key;
+ * scheduling a key again moves it.
+ */
+public class HashedTimerWheel<K> {
+
+    private final long tickMillis;
+    private final Node<K>[] wheel;
+    private final int mask;
+    private final Map<K, Node<K>> timers = new HashMap<>();
+
+    // Last tick processed, counted from epoch millis / tickMillis
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.wheel = new Node[wheelSize];
+        this.mask = wheelSize - 1;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // Round up, so a timer never fires before its deadline; anything already due fires next tick
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        Node<K> node = new Node<>(key, (tick - currentTick - 1) / wheel.length);
+        int slot = (int) (tick & mask);
+        node.next = wheel[slot];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        wheel[slot] = node;
+        node.slot = slot;
+        timers.put(key, node);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Node<K> node = timers.remove(key);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Process every tick up to {@code nowMillis}, handing each expired key to {@code expired} with
+     * the lock held; the callback must not call back into the wheel.
+     */
+    public synchronized int advance(long nowMillis, Consumer<K> expired) {
+        long targetTick = nowMillis / tickMillis;
+        int fired = 0;
+        while (currentTick < targetTick) {
+            currentTick++;
+            Node<K> node = wheel[(int) (currentTick & mask)];
+            while (node != null) {
+                Node<K> next = node.next;
+                if (node.rounds <= 0) {
+                    unlink(node);
+                    timers.remove(node.key);
+                    expired.accept(node.key);
+                    fired++;
+                } else {
+                    node.rounds--;
+                }
+                node = next;
+            }
+        }
+        return fired;
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    private void unlink(Node<K> node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            wheel[node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static final class Node<K> {
+        private final K key;
+        private long rounds;
+        private int slot;
+        private Node<K> prev;
+        private Node<K> next;
+
+        private Node(K key, long rounds) {
+            this.key = key;
+            this.rounds = rounds;
+        }
+    }
+}
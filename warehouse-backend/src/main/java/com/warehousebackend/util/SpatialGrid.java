@@ -0,0 +1,175 @@
+package com.warehousebackend.util;
+
+/**
+ * @author MyDuyen
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Uniform lat/lng grid over moving points, for radius and bounding-box queries.
+ *
+ * Each key has one current entry, filed under the cell that contains it, and queries skip entries
+ * that are no longer their key's current one. Reads take no locks and are weakly consistent: a
+ * point that moves while a query runs is reported at most once, at either position, or missed by
+ * that query. Writes for the same key are serialised by the key's bin in the entries map. Cells
+ * are kept once created, which is bounded by the area covered.
+ */
+public class SpatialGrid<K, V> {
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final double cellDegrees;
+    private final Map<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Map<K, Entry<K, V>>> cells = new ConcurrentHashMap<>();
+
+    public SpatialGrid(double cellDegrees) {
+        if (cellDegrees <= 0) {
+            throw new IllegalArgumentException("cellDegrees must be positive");
+        }
+        this.cellDegrees = cellDegrees;
+    }
+
+    public void put(K key, double latitude, double longitude, V value) {
+        long cell = cellOf(latitude, longitude);
+        entries.compute(key, (k, previous) -> {
+            Entry<K, V> entry = new Entry<>(k, latitude, longitude, cell, value);
+            cells.computeIfAbsent(cell, c -> new ConcurrentHashMap<>()).put(k, entry);
+            if (previous != null && previous.cell() != cell) {
+                cells.get(previous.cell()).remove(k, previous);
+            }
+            return entry;
+        });
+    }
+
+    /**
+     * File a key at a position unless it is already filed.
+     */
+    public void putIfAbsent(K key, double latitude, double longitude, V value) {
+        long cell = cellOf(latitude, longitude);
+        entries.computeIfAbsent(key, k -> {
+            Entry<K, V> entry = new Entry<>(k, latitude, longitude, cell, value);
+            cells.computeIfAbsent(cell, c -> new ConcurrentHashMap<>()).put(k, entry);
+            return entry;
+        });
+    }
+
+    /**
+     * Replace the value filed for a key, keeping its position. Returns false when the key is not filed.
+     */
+    public boolean update(K key, UnaryOperator<V> update) {
+        return entries.computeIfPresent(key, (k, previous) -> {
+            Entry<K, V> entry = new Entry<>(k, previous.latitude(), previous.longitude(), previous.cell(),
+                    update.apply(previous.value()));
+            cells.get(previous.cell()).put(k, entry);
+            return entry;
+        }) != null;
+    }
+
+    public void remove(K key) {
+        entries.computeIfPresent(key, (k, previous) -> {
+            cells.get(previous.cell()).remove(k, previous);
+            return null;
+        });
+    }
+
+    public V get(K key) {
+        Entry<K, V> entry = entries.get(key);
+        return entry != null ? entry.value() : null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Everything within {@code radiusKm} great-circle distance, nearest first.
+     */
+    public List<Hit<V>> withinRadius(double latitude, double longitude, double radiusKm) {
+        double latitudeSpan = radiusKm / KM_PER_DEGREE;
+        double cosine = Math.cos(Math.toRadians(Math.min(89, Math.abs(latitude) + latitudeSpan)));
+        double longitudeSpan = radiusKm / (KM_PER_DEGREE * cosine);
+
+        List<Hit<V>> hits = new ArrayList<>();
+        Set<K> seen = new HashSet<>();
+        scan(latitude - latitudeSpan, longitude - longitudeSpan, latitude + latitudeSpan, longitude + longitudeSpan,
+                entry -> {
+                    double km = GeoUtils.haversineKm(latitude, longitude, entry.latitude(), entry.longitude());
+                    if (km <= radiusKm && seen.add(entry.key())) {
+                        hits.add(new Hit<>(entry.value(), km));
+                    }
+                });
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return hits;
+    }
+
+    public List<V> withinBox(double south, double west, double north, double east) {
+        List<V> result = new ArrayList<>();
+        Set<K> seen = new HashSet<>();
+        scan(south, west, north, east, entry -> {
+            if (entry.latitude() >= south && entry.latitude() <= north
+                    && entry.longitude() >= west && entry.longitude() <= east && seen.add(entry.key())) {
+                result.add(entry.value());
+            }
+        });
+        return result;
+    }
+
+    // Visits every current entry in the cells the box touches; callers do the exact test
+    private void scan(double south, double west, double north, double east, Consumer<Entry<K, V>> visitor) {
+        long firstRow = (long) Math.floor(south / cellDegrees);
+        long lastRow = (long) Math.floor(north / cellDegrees);
+        long firstColumn = (long) Math.floor(west / cellDegrees);
+        long lastColumn = (long) Math.floor(east / cellDegrees);
+
+        // A box wider than the populated area is cheaper to answer cell by cell
+        if ((lastRow - firstRow + 1) * (lastColumn - firstColumn + 1) > cells.size()) {
+            cells.forEach((cell, members) -> {
+                long row = cell >> 32;
+                long column = (int) (long) cell;
+                if (row >= firstRow && row <= lastRow && column >= firstColumn && column <= lastColumn) {
+                    visitCurrent(members, visitor);
+                }
+            });
+            return;
+        }
+        for (long row = firstRow; row <= lastRow; row++) {
+            for (long column = firstColumn; column <= lastColumn; column++) {
+                Map<K, Entry<K, V>> members = cells.get(key(row, column));
+                if (members != null) {
+                    visitCurrent(members, visitor);
+                }
+            }
+        }
+    }
+
+    private void visitCurrent(Map<K, Entry<K, V>> members, Consumer<Entry<K, V>> visitor) {
+        for (Entry<K, V> entry : members.values()) {
+            if (entries.get(entry.key()) == entry) {
+                visitor.accept(entry);
+            }
+        }
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return key((long) Math.floor(latitude / cellDegrees), (long) Math.floor(longitude / cellDegrees));
+    }
+
+    private static long key(long row, long column) {
+        return (row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    public record Hit<V>(V item, double distanceKm) {
+    }
+
+    private record Entry<K, V>(K key, double latitude, double longitude, long cell, V value) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.warehousebackend.util;
+
+/**
+ * @author MyDuyen
+ */
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last version of keys removed from an in-memory view, so a change committed before the removal
+ * but applied after it can be recognised and dropped instead of bringing the key back.
+ *
+ * Such late changes arrive within moments of their commit, so a tombstone only has to outlive
+ * that window; {@link #purge} forgets the ones older than the time to live. Callers serialise
+ * writes for a key themselves, typically under the key's bin in the view's own map.
+ */
+public class Tombstones<K> {
+
+    private final long ttlNanos;
+    private final Map<K, Tombstone> removed = new ConcurrentHashMap<>();
+
+    public Tombstones(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public void bury(K key, long version) {
+        removed.put(key, new Tombstone(version, System.nanoTime()));
+    }
+
+    public void forget(K key) {
+        removed.remove(key);
+    }
+
+    /**
+     * Whether a change at {@code version} is no newer than the removal of its key.
+     */
+    public boolean buries(K key, long version) {
+        Tombstone tombstone = removed.get(key);
+        return tombstone != null && version <= tombstone.version();
+    }
+
+    public void purge() {
+        long now = System.nanoTime();
+        removed.values().removeIf(tombstone -> now - tombstone.removedAt() > ttlNanos);
+    }
+
+    public int size() {
+        return removed.size();
+    }
+
+    private record Tombstone(long version, long removedAt) {
+    }
+}
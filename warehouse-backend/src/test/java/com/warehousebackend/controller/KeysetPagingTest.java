@@ -0,0 +1,115 @@
+package com.warehousebackend.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.warehousebackend.dto.common.CursorPageResponse;
+import com.warehousebackend.dto.inventory.StockDTO;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import com.warehousebackend.service.InventoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset listings for inventory, the ledger and products: two pages joined through the returned
+ * cursor match one page of twice the size, and malformed cursors or sizes are rejected with 400.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class KeysetPagingTest {
+
+    private static final String[] ENDPOINTS = {"/api/inventory/scroll", "/api/inventory/transactions", "/api/products/scroll"};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @BeforeEach
+    void createRows() {
+        // Enough inventory rows, ledger rows and products for two full pages on every endpoint
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Keyset warehouse")
+                .capacity(1000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+        for (int i = 0; i < 4; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Keyset product")
+                    .sku("KEY-" + UUID.randomUUID().toString().substring(0, 8))
+                    .price(BigDecimal.TEN)
+                    .status("ACTIVE")
+                    .build());
+            StockDTO dto = new StockDTO();
+            dto.setProductId(product.getId());
+            dto.setWarehouseId(warehouse.getId());
+            dto.setQuantity(5);
+            inventoryService.stockIn(dto);
+        }
+    }
+
+    @Test
+    void cursorContinuesWherePreviousPageEnded() throws Exception {
+        for (String endpoint : ENDPOINTS) {
+            String first = page(endpoint + "?size=2");
+            assertTrue(JsonPath.<Boolean>read(first, "$.hasNext"), endpoint);
+            String second = page(endpoint + "?size=2&after=" + JsonPath.<String>read(first, "$.nextCursor"));
+
+            List<Number> joined = new ArrayList<>(JsonPath.<List<Number>>read(first, "$.content[*].id"));
+            joined.addAll(JsonPath.<List<Number>>read(second, "$.content[*].id"));
+            assertEquals(JsonPath.<List<Number>>read(page(endpoint + "?size=4"), "$.content[*].id"), joined, endpoint);
+        }
+    }
+
+    @Test
+    void malformedRequestsAreRejected() throws Exception {
+        String notANumber = CursorPageResponse.encodeCursor("not-a-number");
+        for (String endpoint : ENDPOINTS) {
+            mockMvc.perform(get(endpoint).param("size", "0")).andExpect(status().isBadRequest());
+            mockMvc.perform(get(endpoint).param("size", "201")).andExpect(status().isBadRequest());
+            mockMvc.perform(get(endpoint).param("after", "not*base64")).andExpect(status().isBadRequest());
+            mockMvc.perform(get(endpoint).param("after", notANumber)).andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void ledgerCursorNeedsDateAndId() throws Exception {
+        mockMvc.perform(get("/api/inventory/transactions")
+                        .param("after", CursorPageResponse.encodeCursor(42L)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/inventory/transactions")
+                        .param("after", CursorPageResponse.encodeCursor("yesterday", 42L)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String page(String uri) throws Exception {
+        return mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
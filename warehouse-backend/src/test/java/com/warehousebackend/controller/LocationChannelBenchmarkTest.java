@@ -0,0 +1,179 @@
+package com.warehousebackend.controller;
+
+import com.warehousebackend.entity.*;
+import com.warehousebackend.repository.OrderRepository;
+import com.warehousebackend.repository.ShipmentRepository;
+import com.warehousebackend.repository.UserRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import com.warehousebackend.security.JwtTokenProvider;
+import com.warehousebackend.service.ActiveShipmentView;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.JacksonJsonMessageConverter;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cost of one driver ping over {@code PATCH /api/shipments/{id}/location} against
+ * {@code SEND /app/shipments/{id}/location} on an already authenticated STOMP session.
+ * HTTP pings are sent one after another and timed individually; STOMP pings are fire-and-forget,
+ * so they are timed from the first send until the ingestion service has accepted all of them.
+ * CPU is the whole server process, divided by the number of pings.
+ *
+ * Only runs when asked for, e.g. {@code -Dlocation.benchmark.pings=20000}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "location.benchmark.pings", matches = "\\d+")
+class LocationChannelBenchmarkTest {
+
+    private static final String PING = "{\"latitude\":21.03,\"longitude\":105.85,\"speed\":42.0}";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private ActiveShipmentView activeShipmentView;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long shipmentId;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User driver = userRepository.save(User.builder()
+                .username("bench-driver-" + suffix)
+                .password("unused")
+                .email("bench-driver-" + suffix + "@example.com")
+                .role(Role.DRIVER)
+                .enabled(true)
+                .accountNonLocked(true)
+                .build());
+        token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(driver, null, driver.getAuthorities()));
+
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Location benchmark warehouse")
+                .capacity(1000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+        Order order = orderRepository.save(Order.builder()
+                .orderNumber("LOC-" + suffix)
+                .warehouse(warehouse)
+                .status(OrderStatus.PENDING)
+                .totalAmount(BigDecimal.ZERO)
+                .build());
+        Shipment shipment = shipmentRepository.save(Shipment.builder()
+                .trackingNumber("LOC-" + suffix)
+                .order(order)
+                .driver(driver)
+                .status(ShipmentStatus.IN_TRANSIT)
+                .build());
+        shipmentId = shipment.getId();
+        activeShipmentView.update(shipment);
+    }
+
+    @Test
+    void stompPingsCostLessThanHttpPings() throws Exception {
+        int pings = Integer.parseInt(System.getProperty("location.benchmark.pings"));
+
+        HttpClient http = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/shipments/" + shipmentId + "/location"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(PING))
+                .build();
+        long[] latencies = new long[pings];
+        long httpCpu = cpuNanos();
+        long httpStarted = System.nanoTime();
+        for (int i = 0; i < pings; i++) {
+            long started = System.nanoTime();
+            assertEquals(202, http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+            latencies[i] = System.nanoTime() - started;
+        }
+        long httpWall = System.nanoTime() - httpStarted;
+        httpCpu = cpuNanos() - httpCpu;
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new JacksonJsonMessageConverter());
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        StompSession session = stompClient.connectAsync("ws://localhost:" + port + "/ws/websocket",
+                new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+        Map<String, Object> payload = Map.of("latitude", 21.03, "longitude", 105.85, "speed", 42.0);
+        String destination = "/app/shipments/" + shipmentId + "/location";
+
+        double acceptedBefore = accepted();
+        long stompCpu = cpuNanos();
+        long stompStarted = System.nanoTime();
+        for (int i = 0; i < pings; i++) {
+            session.send(destination, payload);
+        }
+        while (accepted() - acceptedBefore < pings) {
+            assertTrue(System.nanoTime() - stompStarted < TimeUnit.MINUTES.toNanos(5), "STOMP pings were not all accepted");
+            Thread.onSpinWait();
+        }
+        long stompWall = System.nanoTime() - stompStarted;
+        stompCpu = cpuNanos() - stompCpu;
+        session.disconnect();
+
+        Arrays.sort(latencies);
+        System.out.printf("Driver pings over %d sends%n", pings);
+        System.out.printf("  HTTP PATCH: %d us/ping wall, %d us/ping CPU, latency p50 %d us, p99 %d us%n",
+                httpWall / pings / 1_000, httpCpu / pings / 1_000,
+                latencies[pings / 2] / 1_000, latencies[(int) (pings * 0.99)] / 1_000);
+        System.out.printf("  STOMP SEND: %d us/ping wall, %d us/ping CPU%n",
+                stompWall / pings / 1_000, stompCpu / pings / 1_000);
+
+        assertTrue(stompCpu < httpCpu, "STOMP pings should use less CPU than HTTP pings");
+    }
+
+    private double accepted() {
+        return meterRegistry.get("shipment.pings").tag("result", "accepted").counter().count();
+    }
+
+    private static long cpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+}
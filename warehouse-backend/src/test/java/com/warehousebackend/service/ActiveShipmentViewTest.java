@@ -0,0 +1,181 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.shipment.ShipmentResponse;
+import com.warehousebackend.entity.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActiveShipmentViewTest {
+
+    private static final int TRUCKS = 5_000;
+
+    // Updates outside a transaction apply immediately, so no repository is needed
+    private final ActiveShipmentView view = new ActiveShipmentView(null, 1.3);
+
+    @Test
+    void shipmentsLeaveTheViewWhenNoLongerActive() {
+        Shipment shipment = shipment(1L, ShipmentStatus.PENDING);
+        view.update(shipment);
+        assertEquals(1, view.count());
+
+        shipment.setStatus(ShipmentStatus.IN_TRANSIT);
+        shipment.setCurrentLatitude(21.03);
+        shipment.setVersion(1L);
+        view.update(shipment);
+        ShipmentResponse entry = view.getActiveShipments().get(0);
+        assertEquals("IN_TRANSIT", entry.getStatus());
+        assertEquals(21.03, entry.getCurrentLatitude());
+        assertEquals("51C-00001", entry.getVehicleLicensePlate());
+
+        shipment.setStatus(ShipmentStatus.DELIVERED);
+        shipment.setVersion(2L);
+        view.update(shipment);
+        assertEquals(0, view.count());
+    }
+
+    @Test
+    void snapshotsOlderThanTheEntryAreDropped() {
+        Shipment older = shipment(1L, ShipmentStatus.PENDING);
+        older.setCurrentLatitude(21.0);
+        older.setCurrentLongitude(105.8);
+        Shipment newer = shipment(1L, ShipmentStatus.OUT_FOR_DELIVERY);
+        newer.setVersion(3L);
+        view.update(newer);
+
+        view.update(older);
+        assertEquals(ShipmentStatus.OUT_FOR_DELIVERY, view.statusOf(1L));
+        assertEquals(List.of(), view.positionsIn(20, 105, 22, 107));
+
+        // Delivered at version 4; the older snapshot must not put it back, nor its position in the index
+        newer.setStatus(ShipmentStatus.DELIVERED);
+        newer.setVersion(4L);
+        view.update(newer);
+        view.update(older);
+        assertEquals(0, view.count());
+        assertEquals(List.of(), view.positionsIn(20, 105, 22, 107));
+        assertNull(view.track(1L, List.of(new ActiveShipmentView.Fix(21.0, 105.8, null, LocalDateTime.now()))));
+    }
+
+    @Test
+    void delayIsComputedAtReadTime() {
+        Shipment shipment = shipment(1L, ShipmentStatus.IN_TRANSIT);
+        shipment.setEstimatedDeliveryTime(LocalDateTime.now().minusMinutes(30));
+        view.update(shipment);
+
+        ShipmentResponse entry = view.getActiveShipments().get(0);
+        assertTrue(entry.getIsDelayed());
+        assertTrue(entry.getDelayMinutes() >= 29);
+    }
+
+    @Test
+    void aLateEtaAloneIsNotADelay() {
+        Shipment shipment = shipment(1L, ShipmentStatus.IN_TRANSIT);
+        shipment.setPredictedArrivalTime(LocalDateTime.now().plusHours(5));
+        view.update(shipment);
+
+        // Same rule as DelayedShipmentDetector: only a passed delivery time counts
+        ShipmentResponse entry = view.getActiveShipments().get(0);
+        assertFalse(entry.getIsDelayed());
+        assertEquals(0L, entry.getDelayMinutes());
+        assertFalse(ShipmentResponse.from(shipment).getIsDelayed());
+    }
+
+    @Test
+    void pingsAccumulateDistanceAndPredictArrival() {
+        Shipment shipment = shipment(1L, ShipmentStatus.IN_TRANSIT);
+        shipment.setCurrentLatitude(21.0);
+        shipment.setCurrentLongitude(105.8);
+        // About 11.1 km due north, due in two hours
+        shipment.getOrder().setShippingLatitude(21.1);
+        shipment.getOrder().setShippingLongitude(105.8);
+        view.update(shipment);
+
+        LocalDateTime start = LocalDateTime.now();
+        List<ActiveShipmentView.Fix> fixes = new ArrayList<>();
+        for (int minute = 1; minute <= 6; minute++) {
+            // 0.01 degrees of latitude a minute is about 67 km/h
+            fixes.add(new ActiveShipmentView.Fix(21.0 + minute * 0.01, 105.8, null, start.plusMinutes(minute)));
+        }
+        ActiveShipmentView.Track track = view.track(1L, fixes);
+        view.moveTo(1L, 21.06, 105.8, null, track);
+        ActiveShipmentView.Progress progress = track.progress();
+
+        assertEquals(6.67, progress.distanceTraveled(), 0.05);
+        assertEquals(4.45 * 1.3, progress.remainingDistance(), 0.05);
+        long minutesLeft = java.time.Duration.between(start.plusMinutes(6), progress.predictedArrivalTime()).toMinutes();
+        assertTrue(minutesLeft >= 4 && minutesLeft <= 6, minutesLeft + " min");
+
+        ShipmentResponse entry = view.getActiveShipments().get(0);
+        assertEquals(progress.predictedArrivalTime(), entry.getPredictedArrivalTime());
+        assertFalse(entry.getIsDelayed());
+    }
+
+    @Test
+    void jitterAndBadFixesDoNotAddDistance() {
+        Shipment shipment = shipment(1L, ShipmentStatus.IN_TRANSIT);
+        shipment.setCurrentLatitude(21.0);
+        shipment.setCurrentLongitude(105.8);
+        view.update(shipment);
+
+        LocalDateTime start = LocalDateTime.now();
+        ActiveShipmentView.Progress progress = view.track(1L, List.of(
+                new ActiveShipmentView.Fix(21.00001, 105.8, 0.0, start),
+                new ActiveShipmentView.Fix(21.0, 105.80001, 0.0, start.plusSeconds(5)),
+                new ActiveShipmentView.Fix(22.0, 105.8, null, start.plusSeconds(10)))).progress();
+
+        assertEquals(0.0, progress.distanceTraveled(), 1e-9);
+        assertNull(progress.predictedArrivalTime());
+    }
+
+    @Test
+    void aTrackNotMovedToLeavesTheModelAlone() {
+        Shipment shipment = shipment(1L, ShipmentStatus.IN_TRANSIT);
+        shipment.setCurrentLatitude(21.0);
+        shipment.setCurrentLongitude(105.8);
+        view.update(shipment);
+
+        LocalDateTime start = LocalDateTime.now();
+        List<ActiveShipmentView.Fix> fixes = List.of(new ActiveShipmentView.Fix(21.01, 105.8, null, start));
+        // As if the write carrying the first track had failed: the same fix counts once, not twice
+        view.track(1L, fixes);
+        ActiveShipmentView.Track track = view.track(1L, fixes);
+        assertEquals(1.11, track.progress().distanceTraveled(), 0.01);
+
+        view.moveTo(1L, 21.01, 105.8, null, track);
+        ActiveShipmentView.Progress next = view.track(1L, List.of(
+                new ActiveShipmentView.Fix(21.02, 105.8, null, start.plusMinutes(1)))).progress();
+        assertEquals(2.22, next.distanceTraveled(), 0.01);
+    }
+
+    @Test
+    void fiveThousandTrucksAreListed() {
+        for (long id = 1; id <= TRUCKS; id++) {
+            view.update(shipment(id, ShipmentStatus.IN_TRANSIT));
+        }
+
+        List<ShipmentResponse> shipments = view.getActiveShipments();
+        assertEquals(TRUCKS, shipments.size());
+        assertEquals(TRUCKS, shipments.stream().map(ShipmentResponse::getId).distinct().count());
+    }
+
+    private static Shipment shipment(long id, ShipmentStatus status) {
+        Order order = Order.builder().id(id).orderNumber("ORD-" + id).build();
+        Vehicle vehicle = Vehicle.builder().id(id).licensePlate(String.format("51C-%05d", id)).build();
+        User driver = User.builder().id(id).fullName("Driver " + id).build();
+        return Shipment.builder()
+                .id(id)
+                .trackingNumber("TRK-" + id)
+                .order(order)
+                .vehicle(vehicle)
+                .driver(driver)
+                .status(status)
+                .estimatedDeliveryTime(LocalDateTime.now().plusHours(2))
+                .version(0L)
+                .build();
+    }
+}
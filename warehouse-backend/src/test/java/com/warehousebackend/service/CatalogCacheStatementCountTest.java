@@ -0,0 +1,148 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.order.OrderDTO;
+import com.warehousebackend.dto.order.OrderItemDTO;
+import com.warehousebackend.dto.order.OrderResponse;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import com.warehousebackend.support.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Catalog reads served from the second-level and query cache. Each repository call runs in its own
+ * persistence context, so only the shared cache can keep the repeated reads off the database.
+ */
+@SpringBootTest
+@Import(StatementCounter.class)
+class CatalogCacheStatementCountTest {
+
+    private static final int READS = 20;
+    private static final Pattern REFERENCE_TABLES = Pattern.compile("(from|join)\\s+(products|warehouses)\\b");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Test
+    void repeatedCatalogReadsHitTheCache() {
+        Product product = productRepository.save(Product.builder()
+                .name("Cached product")
+                .sku("L2-" + UUID.randomUUID().toString().substring(0, 8))
+                .price(BigDecimal.TEN)
+                .status("ACTIVE")
+                .build());
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Cached warehouse")
+                .capacity(1000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+
+        // Warm the entity and query regions
+        productRepository.findById(product.getId());
+        productRepository.findBySku(product.getSku());
+        warehouseRepository.findByStatus("ACTIVE");
+
+        statementCounter.reset();
+        for (int i = 0; i < READS; i++) {
+            assertTrue(productRepository.findById(product.getId()).isPresent());
+            assertTrue(productRepository.findBySku(product.getSku()).isPresent());
+            assertTrue(warehouseRepository.findByStatus("ACTIVE").stream()
+                    .anyMatch(w -> w.getId().equals(warehouse.getId())));
+        }
+        assertEquals(0, statementCounter.count("select"));
+    }
+
+    @Test
+    void updateInvalidatesCachedQueries() {
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Invalidated warehouse")
+                .capacity(1000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+        warehouseRepository.findByStatus("ACTIVE");
+
+        warehouse.setStatus("INACTIVE");
+        warehouseRepository.save(warehouse);
+
+        assertTrue(warehouseRepository.findByStatus("ACTIVE").stream()
+                .noneMatch(w -> w.getId().equals(warehouse.getId())));
+    }
+
+    @Test
+    void orderCreationReadsCatalogFromCache() {
+        Product product = productRepository.save(Product.builder()
+                .name("Cached order product")
+                .sku("L2-" + UUID.randomUUID().toString().substring(0, 8))
+                .price(BigDecimal.TEN)
+                .status("ACTIVE")
+                .build());
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Cached order warehouse")
+                .capacity(1000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+        inventoryRepository.save(Inventory.builder()
+                .product(product)
+                .warehouse(warehouse)
+                .quantity(100)
+                .reservedQuantity(0)
+                .minThreshold(0)
+                .maxThreshold(1000)
+                .sharded(false)
+                .build());
+
+        // First order warms the reference cache
+        orderService.createOrder(order(product, warehouse));
+
+        statementCounter.reset();
+        OrderResponse response = orderService.createOrder(order(product, warehouse));
+
+        List<String> referenceSelects = statementCounter.getStatements().stream()
+                .filter(sql -> REFERENCE_TABLES.matcher(sql).find())
+                .toList();
+        assertEquals(List.of(), referenceSelects);
+        assertEquals("Cached order warehouse", response.getWarehouseName());
+        assertEquals("Cached order product", response.getItems().get(0).getProductName());
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(response.getSubtotal()));
+    }
+
+    private OrderDTO order(Product product, Warehouse warehouse) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(product.getId());
+        item.setQuantity(2);
+        OrderDTO dto = new OrderDTO();
+        dto.setWarehouseId(warehouse.getId());
+        dto.setCustomerName("Cache customer");
+        dto.setItems(List.of(item));
+        return dto;
+    }
+}
@@ -0,0 +1,67 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.shipment.DelayedShipmentEvent;
+import com.warehousebackend.entity.Shipment;
+import com.warehousebackend.entity.ShipmentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelayedShipmentDetectorTest {
+
+    private final List<Message<?>> outbound = new ArrayList<>();
+    // Updates outside a transaction apply immediately, so no repository is needed
+    private final DelayedShipmentDetector detector = new DelayedShipmentDetector(null,
+            new SimpMessagingTemplate((message, timeout) -> outbound.add(message)), new SimpleMeterRegistry(), 1000);
+
+    @Test
+    void overdueShipmentsAreAnnouncedOnce() {
+        Shipment shipment = shipment(ShipmentStatus.IN_TRANSIT, LocalDateTime.now().minusMinutes(10), 0);
+        detector.update(shipment);
+        shipment.setVersion(1L);
+        detector.update(shipment);
+
+        assertEquals(1, detector.delayedCount());
+        assertEquals(1, outbound.size());
+        assertEquals("TRK-1", ((DelayedShipmentEvent) outbound.get(0).getPayload()).trackingNumber());
+    }
+
+    @Test
+    void anOlderChangeDoesNotReviveADeliveredShipment() {
+        Shipment older = shipment(ShipmentStatus.IN_TRANSIT, LocalDateTime.now().minusMinutes(10), 1);
+        detector.update(shipment(ShipmentStatus.DELIVERED, LocalDateTime.now().minusMinutes(10), 2));
+
+        detector.update(older);
+        detector.tick();
+
+        assertEquals(0, detector.delayedCount());
+        assertEquals(List.of(), detector.getDelayedShipments());
+        assertTrue(outbound.isEmpty());
+    }
+
+    @Test
+    void anOlderDeadlineDoesNotReplaceANewerOne() {
+        detector.update(shipment(ShipmentStatus.IN_TRANSIT, LocalDateTime.now().plusHours(2), 3));
+        detector.update(shipment(ShipmentStatus.IN_TRANSIT, LocalDateTime.now().minusMinutes(10), 2));
+
+        assertEquals(0, detector.delayedCount());
+        assertTrue(outbound.isEmpty());
+    }
+
+    private static Shipment shipment(ShipmentStatus status, LocalDateTime estimatedDeliveryTime, long version) {
+        return Shipment.builder()
+                .id(1L)
+                .trackingNumber("TRK-1")
+                .status(status)
+                .estimatedDeliveryTime(estimatedDeliveryTime)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.service.routing.DistanceFunction;
+import com.warehousebackend.service.routing.DistanceMatrix;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache behaviour against a counting distance function: what is computed, what is reused, and
+ * that cached answers match computing afresh.
+ */
+class DistanceMatrixServiceTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final DistanceFunction haversine = DistanceFunction.haversine(1.3);
+    private final DistanceFunction counting = (fromLatitude, fromLongitude, toLatitude, toLongitude) -> {
+        calls.incrementAndGet();
+        return haversine.km(fromLatitude, fromLongitude, toLatitude, toLongitude);
+    };
+
+    @Test
+    void repeatedMatrixIsServedFromTheCache() {
+        DistanceMatrixService service = service(200_000, 2_000_000);
+        Warehouse depot = warehouse(1L, 21.03, 105.80);
+        double[][] points = points(50, 1);
+
+        DistanceMatrix first = service.matrix(depot, points[0], points[1]);
+        assertEquals(50 + 50 * 49 / 2, calls.get());
+
+        calls.set(0);
+        DistanceMatrix second = service.matrix(depot, points[0], points[1]);
+        assertEquals(0, calls.get());
+        for (int i = 0; i < first.size(); i++) {
+            for (int j = 0; j < first.size(); j++) {
+                assertEquals(first.get(i, j), second.get(i, j));
+                assertEquals(first.get(i, j), first.get(j, i));
+            }
+        }
+    }
+
+    @Test
+    void addressesInTheSameCellShareAPoint() {
+        DistanceMatrixService service = service(200_000, 2_000_000);
+        Warehouse depot = warehouse(1L, 21.03, 105.80);
+
+        // About 10 m either side of a cell centre on the 50 m grid
+        double cell = 50 / 111_320.0;
+        double latitude = Math.round(21.01 / cell) * cell;
+        double longitude = Math.round(105.85 / cell) * cell;
+        DistanceMatrix matrix = service.matrix(depot, new double[]{latitude - 0.00005, latitude + 0.00005},
+                new double[]{longitude + 0.00005, longitude - 0.00005});
+
+        assertEquals(1, service.pointCount());
+        assertEquals(0, matrix.get(1, 2));
+        assertEquals(matrix.get(0, 1), matrix.get(0, 2));
+        assertEquals(haversine.km(21.03, 105.80, latitude, longitude), matrix.get(0, 1), 1e-9);
+    }
+
+    @Test
+    void movingAWarehouseRecomputesOnlyItsRow() {
+        DistanceMatrixService service = service(200_000, 2_000_000);
+        double[][] points = points(20, 2);
+        service.matrix(warehouse(1L, 21.03, 105.80), points[0], points[1]);
+        service.fromWarehouse(warehouse(2L, 20.98, 105.75), points[0], points[1]);
+
+        calls.set(0);
+        Warehouse moved = warehouse(1L, 21.10, 105.90);
+        double[] fromMoved = service.fromWarehouse(moved, points[0], points[1]);
+        assertEquals(20, calls.get());
+        assertEquals(haversine.km(21.10, 105.90, points[0][0], points[1][0]), fromMoved[0], 0.1);
+
+        calls.set(0);
+        service.fromWarehouse(warehouse(2L, 20.98, 105.75), points[0], points[1]);
+        service.matrix(moved, points[0], points[1]);
+        assertEquals(0, calls.get());
+
+        service.evictWarehouse(1L);
+        service.fromWarehouse(moved, points[0], points[1]);
+        assertEquals(20, calls.get());
+    }
+
+    @Test
+    void passingMaxPointsStartsOver() {
+        DistanceMatrixService service = service(30, 2_000_000);
+        Warehouse depot = warehouse(1L, 21.03, 105.80);
+        double[][] first = points(20, 3);
+        double[][] second = points(20, 4);
+
+        service.matrix(depot, first[0], first[1]);
+        DistanceMatrix expected = service(200_000, 2_000_000).matrix(depot, second[0], second[1]);
+        DistanceMatrix actual = service.matrix(depot, second[0], second[1]);
+
+        assertEquals(20, service.pointCount());
+        for (int i = 0; i < actual.size(); i++) {
+            for (int j = 0; j < actual.size(); j++) {
+                assertEquals(expected.get(i, j), actual.get(i, j));
+            }
+        }
+    }
+
+    @Test
+    void fullPairTableIsDroppedAndStillAnswersCorrectly() {
+        DistanceMatrixService service = service(200_000, 100);
+        Warehouse depot = warehouse(1L, 21.03, 105.80);
+        double[][] points = points(40, 5);
+
+        DistanceMatrix first = service.matrix(depot, points[0], points[1]);
+        DistanceMatrix second = service.matrix(depot, points[0], points[1]);
+
+        for (int i = 0; i < first.size(); i++) {
+            for (int j = 0; j < first.size(); j++) {
+                assertEquals(first.get(i, j), second.get(i, j));
+            }
+        }
+    }
+
+    private DistanceMatrixService service(int maxPoints, int maxCachedPairs) {
+        return new DistanceMatrixService(counting, new SimpleMeterRegistry(), 50, maxPoints, maxCachedPairs);
+    }
+
+    private static double[][] points(int count, long seed) {
+        Random random = new Random(seed);
+        double[][] points = new double[2][count];
+        for (int i = 0; i < count; i++) {
+            points[0][i] = 20.90 + random.nextDouble() * 0.25;
+            points[1][i] = 105.70 + random.nextDouble() * 0.25;
+        }
+        return points;
+    }
+
+    private static Warehouse warehouse(Long id, double latitude, double longitude) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setId(id);
+        warehouse.setLatitude(latitude);
+        warehouse.setLongitude(longitude);
+        return warehouse;
+    }
+}
@@ -0,0 +1,84 @@
+package com.warehousebackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warehousebackend.controller.ExportController;
+import com.warehousebackend.repository.InventoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportServiceTest {
+
+    private static final List<Object[]> ROWS = List.<Object[]>of(
+            new Object[]{1L, 10L, "SKU-1", "Plain widget", 3L, "Main", 40, 5, 10, 100, "A-1", null,
+                    LocalDateTime.of(2026, 1, 2, 3, 4, 5)},
+            new Object[]{2L, 11L, "SKU-2", "Bolt, \"large\"", 3L, "Main", 7, 0, 10, 100, null, "B-9",
+                    LocalDateTime.of(2026, 1, 2, 3, 4, 6)});
+
+    // Only the export query is called; every call gets a fresh stream, as the cursor would
+    private final ExportService exportService = new ExportService(inventoryRepository(), null, null, new ObjectMapper());
+
+    @Test
+    void csvHasAHeaderAndOneLinePerRow() throws IOException {
+        String csv = export(ExportService.Format.CSV);
+
+        assertEquals(List.of(
+                "id,productId,productSku,productName,warehouseId,warehouseName,quantity,reservedQuantity," +
+                        "minThreshold,maxThreshold,location,batchNumber,lastUpdated",
+                "1,10,SKU-1,Plain widget,3,Main,40,5,10,100,A-1,,2026-01-02T03:04:05",
+                "2,11,SKU-2,\"Bolt, \"\"large\"\"\",3,Main,7,0,10,100,,B-9,2026-01-02T03:04:06"),
+                csv.lines().toList());
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerRow() throws IOException {
+        List<String> lines = export(ExportService.Format.NDJSON).lines().toList();
+
+        assertEquals(2, lines.size());
+        Map<?, ?> second = new ObjectMapper().readValue(lines.get(1), Map.class);
+        assertEquals("Bolt, \"large\"", second.get("productName"));
+        assertEquals(7, second.get("quantity"));
+        assertNull(second.get("location"));
+        assertEquals("2026-01-02T03:04:06", second.get("lastUpdated"));
+    }
+
+    @Test
+    void gzipRoundTripsToThePlainExport() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = new ExportController(exportService).exportInventory("csv", true);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        response.getBody().writeTo(compressed);
+
+        assertEquals("attachment; filename=\"inventory.csv.gz\"",
+                response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertEquals(export(ExportService.Format.CSV), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private String export(ExportService.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportInventory(out, format);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static InventoryRepository inventoryRepository() {
+        return (InventoryRepository) Proxy.newProxyInstance(ExportServiceTest.class.getClassLoader(),
+                new Class<?>[]{InventoryRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "streamForExport" -> ROWS.stream();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,99 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.config.TopicSubscriptions;
+import com.warehousebackend.dto.shipment.FleetFrame;
+import com.warehousebackend.entity.Order;
+import com.warehousebackend.entity.Shipment;
+import com.warehousebackend.entity.ShipmentStatus;
+import com.warehousebackend.entity.Vehicle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetBroadcasterTest {
+
+    private final Map<String, FleetFrame> outbound = new HashMap<>();
+    private final ActiveShipmentView view = new ActiveShipmentView(null, 1.3);
+    private final TopicSubscriptions subscriptions = new TopicSubscriptions();
+    private final FleetBroadcaster broadcaster = new FleetBroadcaster(view, subscriptions,
+            new SimpMessagingTemplate((message, timeout) -> {
+                record(message);
+                return true;
+            }));
+
+    @BeforeEach
+    void setUp() {
+        // One shipment in Hanoi, one in Ho Chi Minh City
+        view.update(shipment(1L, 21.028511, 105.804817));
+        view.update(shipment(2L, 10.762622, 106.660172));
+    }
+
+    @Test
+    void nothingIsBuiltWithoutSubscribers() {
+        broadcaster.publish();
+
+        assertTrue(outbound.isEmpty());
+    }
+
+    @Test
+    void fleetTopicGetsEveryPositionAsTuples() {
+        subscribe("/topic/fleet");
+
+        broadcaster.publish();
+
+        FleetFrame frame = outbound.get("/topic/fleet");
+        assertEquals(2, frame.positions().size());
+        Object[] hanoi = frame.positions().stream().filter(row -> row[0].equals(1L)).findFirst().orElseThrow();
+        assertArrayEquals(new Object[]{1L, "51C-1", 21.02851, 105.80482, 40.0, "IN_TRANSIT"}, hanoi);
+    }
+
+    @Test
+    void boxSubscriptionsOnlySeeTheirArea() {
+        subscribe("/topic/fleet/20.5,105.0,21.5,106.5");
+        subscribe("/topic/fleet/not-a-box");
+
+        broadcaster.publish();
+
+        assertEquals(1, outbound.size());
+        FleetFrame frame = outbound.get("/topic/fleet/20.5,105.0,21.5,106.5");
+        assertEquals(1, frame.positions().size());
+        assertEquals(1L, frame.positions().get(0)[0]);
+    }
+
+    private void record(Message<?> message) {
+        outbound.put(SimpMessageHeaderAccessor.getDestination(message.getHeaders()), (FleetFrame) message.getPayload());
+    }
+
+    private void subscribe(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("session-1");
+        accessor.setSubscriptionId("sub-" + destination);
+        accessor.setDestination(destination);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        subscriptions.onSubscribe(new SessionSubscribeEvent(this, message));
+    }
+
+    private static Shipment shipment(long id, double latitude, double longitude) {
+        return Shipment.builder()
+                .id(id)
+                .trackingNumber("TRK-" + id)
+                .order(Order.builder().id(id).orderNumber("ORD-" + id).build())
+                .vehicle(Vehicle.builder().id(id).licensePlate("51C-" + id).build())
+                .status(ShipmentStatus.IN_TRANSIT)
+                .currentLatitude(latitude)
+                .currentLongitude(longitude)
+                .currentSpeed(40.0)
+                .build();
+    }
+}
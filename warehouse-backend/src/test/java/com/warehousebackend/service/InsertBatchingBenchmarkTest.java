@@ -0,0 +1,184 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.entity.*;
+import com.warehousebackend.repository.OrderRepository;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.ShipmentRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Insert throughput for tracking pings and order items: one INSERT ... RETURNING round trip per
+ * row, which is what Hibernate does for IDENTITY ids, against persisting the entities with their
+ * pooled sequence ids and letting the flush send JDBC batches. The baseline goes through plain JDBC
+ * into identity-keyed copies of the tables, so it is if anything faster than Hibernate would be.
+ *
+ * Only runs when asked for, e.g. {@code -Dinsert.benchmark.rows=100000}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "insert.benchmark.rows", matches = "\\d+")
+class InsertBatchingBenchmarkTest {
+
+    // Rows per transaction, roughly an ingestion flush or a large order
+    private static final int CHUNK = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    private Product product;
+    private Order order;
+    private Shipment shipment;
+
+    @BeforeEach
+    void setUp() {
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Insert benchmark warehouse")
+                .capacity(1000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+        product = productRepository.save(Product.builder()
+                .name("Insert benchmark product")
+                .sku("INS-" + UUID.randomUUID().toString().substring(0, 8))
+                .price(BigDecimal.TEN)
+                .status("ACTIVE")
+                .build());
+        order = orderRepository.save(Order.builder()
+                .orderNumber("INS-" + UUID.randomUUID().toString().substring(0, 8))
+                .warehouse(warehouse)
+                .status(OrderStatus.PENDING)
+                .totalAmount(BigDecimal.ZERO)
+                .build());
+        shipment = shipmentRepository.save(Shipment.builder()
+                .trackingNumber("INS-" + UUID.randomUUID().toString().substring(0, 8))
+                .order(order)
+                .status(ShipmentStatus.IN_TRANSIT)
+                .build());
+
+        jdbcTemplate.execute("CREATE TABLE bench_tracking_identity (LIKE shipment_tracking)");
+        jdbcTemplate.execute("ALTER TABLE bench_tracking_identity ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY");
+        jdbcTemplate.execute("CREATE TABLE bench_order_items_identity (LIKE order_items)");
+        jdbcTemplate.execute("ALTER TABLE bench_order_items_identity ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_tracking_identity");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_order_items_identity");
+        jdbcTemplate.update("DELETE FROM shipment_tracking WHERE shipment_id = ?", shipment.getId());
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id = ?", order.getId());
+    }
+
+    @Test
+    void batchedSequenceInsertsOutrunIdentityInserts() {
+        int rows = Integer.parseInt(System.getProperty("insert.benchmark.rows"));
+
+        long trackingIdentity = time(rows, this::insertTrackingWithIdentity);
+        long trackingBatched = time(rows, this::persistTracking);
+        long itemsIdentity = time(rows, this::insertItemsWithIdentity);
+        long itemsBatched = time(rows, this::persistItems);
+
+        System.out.printf("Insert throughput over %d rows (%d rows per transaction)%n", rows, CHUNK);
+        System.out.printf("  tracking pings: identity %d rows/s, pooled sequence %d rows/s%n",
+                perSecond(rows, trackingIdentity), perSecond(rows, trackingBatched));
+        System.out.printf("  order items:    identity %d rows/s, pooled sequence %d rows/s%n",
+                perSecond(rows, itemsIdentity), perSecond(rows, itemsBatched));
+
+        assertEquals(rows, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM shipment_tracking WHERE shipment_id = ?", Integer.class, shipment.getId()));
+        assertEquals(rows, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM order_items WHERE order_id = ?", Integer.class, order.getId()));
+    }
+
+    private void insertTrackingWithIdentity(int count) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.queryForObject("INSERT INTO bench_tracking_identity (shipment_id, status, latitude, longitude, " +
+                            "speed, timestamp) VALUES (?, ?, ?, ?, ?, ?) RETURNING id", Long.class,
+                    shipment.getId(), ShipmentStatus.IN_TRANSIT.name(), 21.0 + i * 1e-5, 105.8, 40.0, now);
+        }
+    }
+
+    private void persistTracking(int count) {
+        Shipment reference = entityManager.getReference(Shipment.class, shipment.getId());
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(ShipmentTracking.builder()
+                    .shipment(reference)
+                    .status(ShipmentStatus.IN_TRANSIT)
+                    .latitude(21.0 + i * 1e-5)
+                    .longitude(105.8)
+                    .speed(40.0)
+                    .build());
+        }
+    }
+
+    private void insertItemsWithIdentity(int count) {
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.queryForObject("INSERT INTO bench_order_items_identity (order_id, product_id, quantity, price, " +
+                            "discount, subtotal) VALUES (?, ?, ?, ?, ?, ?) RETURNING id", Long.class,
+                    order.getId(), product.getId(), 1, BigDecimal.TEN, BigDecimal.ZERO, BigDecimal.TEN);
+        }
+    }
+
+    private void persistItems(int count) {
+        Order orderReference = entityManager.getReference(Order.class, order.getId());
+        Product productReference = entityManager.getReference(Product.class, product.getId());
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(OrderItem.builder()
+                    .order(orderReference)
+                    .product(productReference)
+                    .quantity(1)
+                    .price(BigDecimal.TEN)
+                    .discount(BigDecimal.ZERO)
+                    .build());
+        }
+    }
+
+    private long time(int rows, IntConsumer insert) {
+        long started = System.nanoTime();
+        for (int done = 0; done < rows; done += CHUNK) {
+            int count = Math.min(CHUNK, rows - done);
+            transactionTemplate.executeWithoutResult(status -> insert.accept(count));
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static long perSecond(int rows, long nanos) {
+        return rows * 1_000_000_000L / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,161 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.inventory.BulkStockDTO;
+import com.warehousebackend.dto.inventory.BulkTransferDTO;
+import com.warehousebackend.dto.inventory.InventoryResponse;
+import com.warehousebackend.dto.inventory.StockDTO;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.exception.BusinessException;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.InventoryTransactionRepository;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Whole-manifest stock-in, stock-out and transfer: missing rows are created, repeated lines land
+ * on one row with a ledger entry each, and a single oversold line rolls back the whole request.
+ */
+@SpringBootTest
+class InventoryBulkTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryTransactionRepository transactionRepository;
+
+    @Test
+    void stockInBulkCreatesMissingRowsAndMergesRepeatedLines() {
+        Warehouse warehouse = createWarehouse("Bulk warehouse");
+        Product first = createProduct();
+        Product second = createProduct();
+
+        List<InventoryResponse> response = inventoryService.stockInBulk(bulk(
+                line(first, warehouse, 10),
+                line(second, warehouse, 4),
+                line(first, warehouse, 5)));
+
+        assertEquals(2, response.size());
+        Inventory firstInventory = inventoryRepository.findByProductAndWarehouse(first, warehouse).orElseThrow();
+        Inventory secondInventory = inventoryRepository.findByProductAndWarehouse(second, warehouse).orElseThrow();
+        assertEquals(15, firstInventory.getQuantity());
+        assertEquals(4, secondInventory.getQuantity());
+        assertEquals(2, transactionRepository.findByInventory(firstInventory).size());
+        assertEquals(1, transactionRepository.findByInventory(secondInventory).size());
+    }
+
+    @Test
+    void oversoldLineRollsBackTheWholeStockOut() {
+        Warehouse warehouse = createWarehouse("Bulk warehouse");
+        Product first = createProduct();
+        Product second = createProduct();
+        inventoryService.stockInBulk(bulk(line(first, warehouse, 10), line(second, warehouse, 10)));
+
+        // The repeated lines are checked against the running quantity: 6 + 6 oversells 10
+        assertThrows(BusinessException.class, () -> inventoryService.stockOutBulk(bulk(
+                line(second, warehouse, 2),
+                line(first, warehouse, 6),
+                line(first, warehouse, 6))));
+
+        Inventory firstInventory = inventoryRepository.findByProductAndWarehouse(first, warehouse).orElseThrow();
+        Inventory secondInventory = inventoryRepository.findByProductAndWarehouse(second, warehouse).orElseThrow();
+        assertEquals(10, firstInventory.getQuantity());
+        assertEquals(10, secondInventory.getQuantity());
+        assertEquals(1, transactionRepository.findByInventory(firstInventory).size());
+        assertEquals(1, transactionRepository.findByInventory(secondInventory).size());
+
+        inventoryService.stockOutBulk(bulk(line(first, warehouse, 6), line(first, warehouse, 4)));
+        firstInventory = inventoryRepository.findByProductAndWarehouse(first, warehouse).orElseThrow();
+        assertEquals(0, firstInventory.getQuantity());
+        assertEquals(3, transactionRepository.findByInventory(firstInventory).size());
+    }
+
+    @Test
+    void transferBulkCreatesDestinationRowsAndRollsBackOnOversell() {
+        Warehouse from = createWarehouse("Bulk source");
+        Warehouse to = createWarehouse("Bulk destination");
+        Product first = createProduct();
+        Product second = createProduct();
+        inventoryService.stockInBulk(bulk(line(first, from, 10), line(second, from, 10)));
+
+        assertThrows(BusinessException.class, () -> inventoryService.transferStockBulk(transfer(from, to,
+                new BulkTransferDTO.TransferLine(first.getId(), 3),
+                new BulkTransferDTO.TransferLine(second.getId(), 11))));
+        assertEquals(10, inventoryRepository.findByProductAndWarehouse(first, from).orElseThrow().getQuantity());
+        assertTrue(inventoryRepository.findByProductAndWarehouse(first, to).isEmpty());
+
+        inventoryService.transferStockBulk(transfer(from, to,
+                new BulkTransferDTO.TransferLine(first.getId(), 3),
+                new BulkTransferDTO.TransferLine(first.getId(), 2),
+                new BulkTransferDTO.TransferLine(second.getId(), 10)));
+
+        Inventory firstTo = inventoryRepository.findByProductAndWarehouse(first, to).orElseThrow();
+        assertEquals(5, inventoryRepository.findByProductAndWarehouse(first, from).orElseThrow().getQuantity());
+        assertEquals(5, firstTo.getQuantity());
+        assertEquals(10, inventoryRepository.findByProductAndWarehouse(second, to).orElseThrow().getQuantity());
+        // Transfer lines are merged per product: one ledger row on each side
+        assertEquals(1, transactionRepository.findByInventory(firstTo).size());
+    }
+
+    private static BulkStockDTO bulk(StockDTO... lines) {
+        BulkStockDTO dto = new BulkStockDTO();
+        dto.setItems(List.of(lines));
+        return dto;
+    }
+
+    private static BulkTransferDTO transfer(Warehouse from, Warehouse to, BulkTransferDTO.TransferLine... lines) {
+        BulkTransferDTO dto = new BulkTransferDTO();
+        dto.setFromWarehouseId(from.getId());
+        dto.setToWarehouseId(to.getId());
+        dto.setItems(List.of(lines));
+        return dto;
+    }
+
+    private static StockDTO line(Product product, Warehouse warehouse, int quantity) {
+        StockDTO dto = new StockDTO();
+        dto.setProductId(product.getId());
+        dto.setWarehouseId(warehouse.getId());
+        dto.setQuantity(quantity);
+        return dto;
+    }
+
+    private Warehouse createWarehouse(String name) {
+        return warehouseRepository.save(Warehouse.builder()
+                .name(name)
+                .capacity(100_000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+    }
+
+    private Product createProduct() {
+        return productRepository.save(Product.builder()
+                .name("Bulk product")
+                .sku("BULK-" + UUID.randomUUID().toString().substring(0, 8))
+                .price(BigDecimal.TEN)
+                .status("ACTIVE")
+                .build());
+    }
+}
@@ -0,0 +1,74 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.inventory.StockDTO;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import com.warehousebackend.support.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+class InventoryServiceStatementCountTest {
+
+    private static final Pattern REFERENCE_TABLES = Pattern.compile("(from|join)\\s+(products|warehouses)\\b");
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Test
+    void warmReferenceCacheKeepsStockWritesOffProductAndWarehouseTables() {
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Reference cache warehouse")
+                .capacity(1000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+        Product product = productRepository.save(Product.builder()
+                .name("Reference cache product")
+                .sku("REF-" + UUID.randomUUID().toString().substring(0, 8))
+                .price(BigDecimal.TEN)
+                .status("ACTIVE")
+                .build());
+
+        // First write warms the cache
+        inventoryService.stockIn(stock(product, warehouse, 50));
+
+        statementCounter.reset();
+        inventoryService.stockIn(stock(product, warehouse, 10));
+        inventoryService.stockOut(stock(product, warehouse, 5));
+
+        List<String> referenceSelects = statementCounter.getStatements().stream()
+                .filter(sql -> REFERENCE_TABLES.matcher(sql).find())
+                .toList();
+        assertEquals(List.of(), referenceSelects);
+    }
+
+    private StockDTO stock(Product product, Warehouse warehouse, int quantity) {
+        StockDTO dto = new StockDTO();
+        dto.setProductId(product.getId());
+        dto.setWarehouseId(warehouse.getId());
+        dto.setQuantity(quantity);
+        return dto;
+    }
+}
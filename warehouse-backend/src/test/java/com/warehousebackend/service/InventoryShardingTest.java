@@ -0,0 +1,114 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.inventory.BulkStockDTO;
+import com.warehousebackend.dto.inventory.BulkTransferDTO;
+import com.warehousebackend.dto.inventory.StockDTO;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Enabling sharding parks all free stock in escrow shards, so the parent row alone shows nothing
+ * available. Bulk stock-outs and transfers must pull the escrow back before deciding to reject.
+ */
+@SpringBootTest
+class InventoryShardingTest {
+
+    private static final int STOCK = 100;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Test
+    void bulkStockOutReclaimsEscrow() {
+        Warehouse warehouse = createWarehouse("Sharded warehouse");
+        Product product = createProduct();
+        Inventory inventory = createShardedInventory(product, warehouse);
+
+        StockDTO line = new StockDTO();
+        line.setProductId(product.getId());
+        line.setWarehouseId(warehouse.getId());
+        line.setQuantity(30);
+        BulkStockDTO dto = new BulkStockDTO();
+        dto.setItems(List.of(line));
+        inventoryService.stockOutBulk(dto);
+
+        Inventory after = inventoryRepository.findById(inventory.getId()).orElseThrow();
+        assertEquals(STOCK - 30, after.getQuantity());
+        assertEquals(STOCK - 30, after.getAvailableQuantity());
+    }
+
+    @Test
+    void transferReclaimsEscrow() {
+        Warehouse from = createWarehouse("Sharded source");
+        Warehouse to = createWarehouse("Sharded destination");
+        Product product = createProduct();
+        Inventory inventory = createShardedInventory(product, from);
+
+        BulkTransferDTO dto = new BulkTransferDTO();
+        dto.setFromWarehouseId(from.getId());
+        dto.setToWarehouseId(to.getId());
+        dto.setItems(List.of(new BulkTransferDTO.TransferLine(product.getId(), 20)));
+        inventoryService.transferStockBulk(dto);
+
+        assertEquals(STOCK - 20, inventoryRepository.findById(inventory.getId()).orElseThrow().getQuantity());
+        assertEquals(20, inventoryRepository.findByProductAndWarehouse(product, to).orElseThrow().getQuantity());
+    }
+
+    private Inventory createShardedInventory(Product product, Warehouse warehouse) {
+        Inventory inventory = inventoryRepository.save(Inventory.builder()
+                .product(product)
+                .warehouse(warehouse)
+                .quantity(STOCK)
+                .reservedQuantity(0)
+                .minThreshold(0)
+                .maxThreshold(1_000)
+                .sharded(false)
+                .build());
+        stockReservationService.enableSharding(inventory.getId(), 4);
+        assertEquals(0, inventoryRepository.findById(inventory.getId()).orElseThrow().getAvailableQuantity());
+        return inventory;
+    }
+
+    private Warehouse createWarehouse(String name) {
+        return warehouseRepository.save(Warehouse.builder()
+                .name(name)
+                .capacity(100_000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+    }
+
+    private Product createProduct() {
+        return productRepository.save(Product.builder()
+                .name("Sharded product")
+                .sku("SHARD-" + UUID.randomUUID().toString().substring(0, 8))
+                .price(BigDecimal.TEN)
+                .status("ACTIVE")
+                .build());
+    }
+}
@@ -0,0 +1,131 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.inventory.StockAsOfResponse;
+import com.warehousebackend.dto.inventory.StockDTO;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.InventoryTransaction;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.InventoryTransactionRepository;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Point-in-time stock from a snapshot plus ledger replay. The snapshot cutoff is taken at the exact
+ * date of a ledger row, so that row must be counted by the snapshot and skipped by the replay.
+ */
+@SpringBootTest
+class InventorySnapshotServiceTest {
+
+    @Autowired
+    private InventorySnapshotService snapshotService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryTransactionRepository transactionRepository;
+
+    @Test
+    void snapshotPlusReplay() throws Exception {
+        Warehouse warehouse = createWarehouse();
+        Product early = createProduct("Snapshot product");
+        Product late = createProduct("Post-snapshot product");
+
+        inventoryService.stockIn(stock(early, warehouse, 10));
+        Inventory earlyInventory = inventoryRepository.findByProductAndWarehouse(early, warehouse).orElseThrow();
+        LocalDateTime firstEntry = ledgerDates(earlyInventory).get(0);
+
+        Thread.sleep(5);
+        inventoryService.stockIn(stock(early, warehouse, 5));
+        LocalDateTime secondEntry = ledgerDates(earlyInventory).get(1);
+
+        // No snapshot precedes either date yet: the whole ledger is replayed
+        StockAsOfResponse beforeSnapshot = only(snapshotService.getStockAsOf(warehouse.getId(), firstEntry, early.getId()));
+        assertNull(beforeSnapshot.getSnapshotDate());
+        assertEquals(10, beforeSnapshot.getQuantity());
+
+        snapshotService.takeSnapshot(firstEntry);
+        Thread.sleep(5);
+        inventoryService.stockIn(stock(late, warehouse, 7));
+        inventoryService.stockOut(stock(early, warehouse, 3));
+
+        // The row dated exactly at the cutoff is in the snapshot and not replayed again
+        StockAsOfResponse atCutoff = only(snapshotService.getStockAsOf(warehouse.getId(), firstEntry, early.getId()));
+        assertEquals(firstEntry, atCutoff.getSnapshotDate());
+        assertEquals(10, atCutoff.getQuantity());
+
+        StockAsOfResponse afterCutoff = only(snapshotService.getStockAsOf(warehouse.getId(), secondEntry, early.getId()));
+        assertEquals(firstEntry, afterCutoff.getSnapshotDate());
+        assertEquals(15, afterCutoff.getQuantity());
+
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(12, only(snapshotService.getStockAsOf(warehouse.getId(), now, early.getId())).getQuantity());
+
+        // A row created after the snapshot has no snapshot quantity, only its own ledger
+        StockAsOfResponse created = only(snapshotService.getStockAsOf(warehouse.getId(), now, late.getId()));
+        assertEquals(firstEntry, created.getSnapshotDate());
+        assertEquals(7, created.getQuantity());
+        assertTrue(snapshotService.getStockAsOf(warehouse.getId(), secondEntry, late.getId()).isEmpty());
+    }
+
+    private List<LocalDateTime> ledgerDates(Inventory inventory) {
+        return transactionRepository.findByInventory(inventory).stream()
+                .map(InventoryTransaction::getTransactionDate)
+                .sorted()
+                .toList();
+    }
+
+    private static StockAsOfResponse only(List<StockAsOfResponse> rows) {
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+
+    private StockDTO stock(Product product, Warehouse warehouse, int quantity) {
+        StockDTO dto = new StockDTO();
+        dto.setProductId(product.getId());
+        dto.setWarehouseId(warehouse.getId());
+        dto.setQuantity(quantity);
+        return dto;
+    }
+
+    private Warehouse createWarehouse() {
+        return warehouseRepository.save(Warehouse.builder()
+                .name("Snapshot warehouse")
+                .capacity(1000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+    }
+
+    private Product createProduct(String name) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .sku("SNAP-" + UUID.randomUUID().toString().substring(0, 8))
+                .price(BigDecimal.TEN)
+                .status("ACTIVE")
+                .build());
+    }
+}
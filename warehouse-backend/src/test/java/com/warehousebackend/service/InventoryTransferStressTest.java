@@ -0,0 +1,134 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.inventory.BulkTransferDTO;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Crossing multi-line transfers (A to B and B to A, lines in random order) from many threads.
+ * Canonical lock ordering must let every transfer complete without a single deadlock, and the
+ * stock of every product across both warehouses must be conserved.
+ */
+@SpringBootTest
+class InventoryTransferStressTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final int PRODUCTS = 40;
+    private static final int STOCK = 10_000;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Test
+    void crossingTransfersNeverDeadlock() throws Exception {
+        Warehouse a = createWarehouse("Stress warehouse A");
+        Warehouse b = createWarehouse("Stress warehouse B");
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = createProduct();
+            createInventory(product, a);
+            createInventory(product, b);
+            products.add(product);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger deadlocks = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            boolean forward = t % 2 == 0;
+            futures.add(executor.submit(() -> {
+                start.await();
+                Random random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    List<BulkTransferDTO.TransferLine> lines = new ArrayList<>();
+                    for (Product product : products) {
+                        lines.add(new BulkTransferDTO.TransferLine(product.getId(), 1 + random.nextInt(5)));
+                    }
+                    Collections.shuffle(lines, random);
+
+                    BulkTransferDTO dto = new BulkTransferDTO();
+                    dto.setFromWarehouseId(forward ? a.getId() : b.getId());
+                    dto.setToWarehouseId(forward ? b.getId() : a.getId());
+                    dto.setItems(lines);
+                    try {
+                        inventoryService.transferStockBulk(dto);
+                    } catch (PessimisticLockingFailureException e) {
+                        deadlocks.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(300, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(0, deadlocks.get());
+        for (Product product : products) {
+            int total = inventoryRepository.findByProduct(product).stream()
+                    .mapToInt(Inventory::getQuantity)
+                    .sum();
+            assertEquals(2 * STOCK, total);
+        }
+    }
+
+    private Warehouse createWarehouse(String name) {
+        return warehouseRepository.save(Warehouse.builder()
+                .name(name)
+                .capacity(1_000_000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+    }
+
+    private Product createProduct() {
+        return productRepository.save(Product.builder()
+                .name("Stress product")
+                .sku("STRESS-" + UUID.randomUUID().toString().substring(0, 8))
+                .price(BigDecimal.TEN)
+                .status("ACTIVE")
+                .build());
+    }
+
+    private void createInventory(Product product, Warehouse warehouse) {
+        inventoryRepository.save(Inventory.builder()
+                .product(product)
+                .warehouse(warehouse)
+                .quantity(STOCK)
+                .reservedQuantity(0)
+                .minThreshold(0)
+                .maxThreshold(1_000_000)
+                .sharded(false)
+                .build());
+    }
+}
@@ -0,0 +1,116 @@
+package com.warehousebackend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Range-report latency on a plain ledger table against the monthly partitioned layout. Both tables
+ * get the same synthetic rows spread over two years; the printed medians compare a one-month
+ * movement report for one inventory row and a one-month totals report.
+ *
+ * Seeding is slow, so this only runs when asked for, e.g. {@code -Dledger.benchmark.rows=50000000}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "ledger.benchmark.rows", matches = "\\d+")
+class LedgerRangeReportBenchmarkTest {
+
+    private static final int MONTHS = 24;
+    private static final int INVENTORIES = 10_000;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void dropTables() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_ledger_plain");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_ledger_partitioned");
+    }
+
+    @Test
+    void partitionedLedgerAnswersRangeReportsFaster() {
+        long rows = Long.parseLong(System.getProperty("ledger.benchmark.rows"));
+        YearMonth first = YearMonth.now().minusMonths(MONTHS - 1);
+
+        createPlain();
+        createPartitioned(first);
+        seed("bench_ledger_plain", rows, first);
+        seed("bench_ledger_partitioned", rows, first);
+
+        YearMonth month = first.plusMonths(MONTHS / 2);
+        Timestamp start = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp end = Timestamp.valueOf(month.atEndOfMonth().atTime(23, 59, 59));
+
+        String movement = "SELECT type, SUM(quantity) FROM %s WHERE inventory_id = 42 " +
+                "AND transaction_date BETWEEN ? AND ? GROUP BY type";
+        String totals = "SELECT type, COUNT(*), SUM(quantity) FROM %s WHERE transaction_date BETWEEN ? AND ? GROUP BY type";
+
+        System.out.printf("Ledger range reports over %d rows (median of %d runs)%n", rows, RUNS);
+        System.out.printf("  movement: plain %d ms, partitioned %d ms%n",
+                median(movement, "bench_ledger_plain", start, end),
+                median(movement, "bench_ledger_partitioned", start, end));
+        System.out.printf("  totals:   plain %d ms, partitioned %d ms%n",
+                median(totals, "bench_ledger_plain", start, end),
+                median(totals, "bench_ledger_partitioned", start, end));
+
+        String count = "SELECT COUNT(*) FROM %s WHERE transaction_date BETWEEN ? AND ?";
+        assertEquals(
+                jdbcTemplate.queryForObject(count.formatted("bench_ledger_plain"), Long.class, start, end),
+                jdbcTemplate.queryForObject(count.formatted("bench_ledger_partitioned"), Long.class, start, end));
+    }
+
+    private void createPlain() {
+        // Same shape and indexes as the ledger before partitioning
+        jdbcTemplate.execute("CREATE TABLE bench_ledger_plain (id BIGSERIAL PRIMARY KEY, inventory_id BIGINT NOT NULL, " +
+                "type VARCHAR(20) NOT NULL, quantity INTEGER NOT NULL, transaction_date TIMESTAMP(6) NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX ON bench_ledger_plain (transaction_date)");
+        jdbcTemplate.execute("CREATE INDEX ON bench_ledger_plain (inventory_id, type)");
+    }
+
+    private void createPartitioned(YearMonth first) {
+        jdbcTemplate.execute("CREATE TABLE bench_ledger_partitioned (id BIGSERIAL, inventory_id BIGINT NOT NULL, " +
+                "type VARCHAR(20) NOT NULL, quantity INTEGER NOT NULL, transaction_date TIMESTAMP(6) NOT NULL, " +
+                "PRIMARY KEY (id, transaction_date)) PARTITION BY RANGE (transaction_date)");
+        for (int i = 0; i < MONTHS; i++) {
+            YearMonth month = first.plusMonths(i);
+            jdbcTemplate.execute("CREATE TABLE bench_ledger_partitioned_%d PARTITION OF bench_ledger_partitioned FOR VALUES FROM ('%s') TO ('%s')"
+                    .formatted(i, month.atDay(1), month.plusMonths(1).atDay(1)));
+        }
+        jdbcTemplate.execute("CREATE INDEX ON bench_ledger_partitioned USING brin (transaction_date) WITH (pages_per_range = 32)");
+        jdbcTemplate.execute("CREATE INDEX ON bench_ledger_partitioned (inventory_id, transaction_date)");
+    }
+
+    private void seed(String table, long rows, YearMonth first) {
+        // Rows arrive in date order, as they do in production
+        LocalDateTime origin = first.atDay(1).atStartOfDay();
+        long seconds = (long) MONTHS * 28 * 24 * 3600;
+        jdbcTemplate.update(("INSERT INTO %s (inventory_id, type, quantity, transaction_date) " +
+                "SELECT 1 + (g * 7919) %% %d, CASE WHEN g %% 3 = 0 THEN 'STOCK_OUT' ELSE 'STOCK_IN' END, " +
+                "1 + g %% 50, ?::timestamp + (g * %d / %d) * interval '1 second' " +
+                "FROM generate_series(0::bigint, %d) g").formatted(table, INVENTORIES, seconds, rows, rows - 1),
+                Timestamp.valueOf(origin));
+        jdbcTemplate.execute("ANALYZE " + table);
+    }
+
+    private long median(String sql, String table, Timestamp start, Timestamp end) {
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long started = System.nanoTime();
+            jdbcTemplate.queryForList(sql.formatted(table), start, end);
+            millis[i] = (System.nanoTime() - started) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        return millis[RUNS / 2];
+    }
+}
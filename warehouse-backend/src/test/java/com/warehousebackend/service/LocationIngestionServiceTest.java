@@ -0,0 +1,272 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.config.TopicSubscriptions;
+import com.warehousebackend.dto.shipment.LocationPingDTO;
+import com.warehousebackend.dto.shipment.LocationUpdateDTO;
+import com.warehousebackend.dto.shipment.ShipmentPositionDelta;
+import com.warehousebackend.dto.shipment.ShipmentResponse;
+import com.warehousebackend.entity.Order;
+import com.warehousebackend.entity.Shipment;
+import com.warehousebackend.entity.ShipmentStatus;
+import com.warehousebackend.entity.ShipmentTracking;
+import com.warehousebackend.entity.Vehicle;
+import com.warehousebackend.exception.ResourceNotFoundException;
+import com.warehousebackend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationIngestionServiceTest {
+
+    private static final int CAPACITY = 3;
+
+    private final ActiveShipmentView view = new ActiveShipmentView(null, 1.3);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Message<?>> outbound = new ArrayList<>();
+    private final TopicSubscriptions subscriptions = new TopicSubscriptions();
+    private final ShipmentBroadcaster broadcaster = new ShipmentBroadcaster(
+            new SimpMessagingTemplate((message, timeout) -> outbound.add(message)), subscriptions, meterRegistry);
+    // Updates outside a transaction apply immediately, so no repositories are needed
+    private final VehicleLocator vehicleLocator = new VehicleLocator(null, null);
+
+    // Stand-ins for the database: rows the batch update matched, and the tracking rows persisted
+    private final Set<Long> rows = Set.of(1L);
+    private final List<Map<Integer, Object>> batch = new ArrayList<>();
+    private final List<ShipmentTracking> tracking = new ArrayList<>();
+    private int commits;
+
+    private final LocationIngestionService service = new LocationIngestionService(view, new RecordingJdbcTemplate(),
+            new TransactionTemplate(new CountingTransactionManager()), broadcaster, vehicleLocator, meterRegistry,
+            CAPACITY, 2);
+
+    @BeforeEach
+    void setUp() {
+        view.update(shipment(1L));
+        vehicleLocator.update(Vehicle.builder().id(1L).licensePlate("51C-00001").status("IN_USE").build());
+        ReflectionTestUtils.setField(service, "entityManager", entityManager());
+    }
+
+    @Test
+    void pingsForUnknownShipmentsAreRefused() {
+        assertThrows(ResourceNotFoundException.class, () -> service.submit(2L, update(21.0, 105.8)));
+    }
+
+    @Test
+    void fullQueueRejectsInsteadOfBlocking() {
+        for (int i = 0; i < CAPACITY; i++) {
+            service.submit(1L, update(21.0 + i, 105.8));
+        }
+
+        ServiceBusyException e = assertThrows(ServiceBusyException.class, () -> service.submit(1L, update(22.0, 105.8)));
+        assertEquals(1, e.getRetryAfterSeconds());
+        assertEquals(CAPACITY, meterRegistry.get("shipment.pings.queued").gauge().value());
+        assertEquals(1, meterRegistry.get("shipment.pings").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void bulkSubmitReportsWhatWasLeftOver() {
+        List<LocationPingDTO> pings = new ArrayList<>();
+        pings.add(ping(2L, 21.0, 105.8));
+        pings.add(ping(1L, null, 105.8));
+        for (int i = 0; i < CAPACITY + 2; i++) {
+            pings.add(ping(1L, 21.0 + i, 105.8));
+        }
+
+        LocationIngestionService.IngestResult result = service.submitAll(pings);
+
+        assertEquals(CAPACITY, result.accepted());
+        assertEquals(2, result.ignored());
+        assertEquals(2, result.rejected());
+    }
+
+    @Test
+    void flushWritesTheLatestPingPerShipmentAndAppliesItAfterCommit() {
+        view.update(shipment(3L));
+        subscribe("/topic/shipments/*");
+        service.submit(1L, update(21.00, 105.80));
+        service.submit(1L, update(21.01, 105.80));
+        service.submit(3L, update(21.50, 105.90));
+
+        // Shipment 3 was delivered after its ping was queued, so its update matches no row
+        service.flush();
+        broadcaster.flush();
+
+        assertEquals(1, commits);
+        assertEquals(2, batch.size());
+        assertEquals(21.01, batch.get(0).get(1));
+        assertEquals(1L, batch.get(0).get(8));
+        assertEquals(3L, batch.get(1).get(8));
+        assertEquals(1, meterRegistry.get("shipment.pings").tag("result", "coalesced").counter().count());
+        assertEquals(1, meterRegistry.get("shipment.pings").tag("result", "written").counter().count());
+
+        assertEquals(1, tracking.size());
+        assertEquals(1L, tracking.get(0).getShipment().getId());
+        assertEquals(21.01, tracking.get(0).getLatitude());
+
+        ShipmentResponse moved = view.getActiveShipments().stream().filter(s -> s.getId() == 1L).findFirst().orElseThrow();
+        assertEquals(21.01, moved.getCurrentLatitude());
+        assertEquals(1.11, moved.getDistanceTraveled(), 0.01);
+        assertEquals(List.of(1L), view.positionsWithin(21.5, 105.9, 100).stream()
+                .map(hit -> hit.item().shipmentId()).toList());
+        assertEquals(1, outbound.size());
+        assertEquals(21.01, ((ShipmentPositionDelta) outbound.get(0).getPayload()).lat());
+        assertEquals(1, vehicleLocator.vehiclesWithin(21.01, 105.80, 0.1, null).size());
+    }
+
+    @Test
+    void aFailedWriteLeavesTheViewWhereItWas() {
+        // The caller gets the shipment as it stood when the ping was queued
+        ShipmentResponse accepted = service.submit(1L, update(21.00, 105.80));
+        assertEquals("TRK-1", accepted.getTrackingNumber());
+        assertNull(accepted.getCurrentLatitude());
+        ReflectionTestUtils.setField(service, "entityManager", null);
+
+        service.flush();
+
+        assertEquals(0, commits);
+        assertNull(view.get(1L).getCurrentLatitude());
+        assertTrue(vehicleLocator.vehiclesWithin(21.00, 105.80, 0.1, null).isEmpty());
+
+        // The dropped ping is not in the motion model either: the next ping starts from no position
+        ReflectionTestUtils.setField(service, "entityManager", entityManager());
+        service.submit(1L, update(21.01, 105.80));
+        service.flush();
+
+        assertEquals(1, commits);
+        assertEquals(0.0, (Double) batch.get(batch.size() - 1).get(4), 1e-9);
+        assertEquals(21.01, view.get(1L).getCurrentLatitude());
+        assertEquals(0.0, view.get(1L).getDistanceTraveled(), 1e-9);
+    }
+
+    private static Shipment shipment(long id) {
+        return Shipment.builder()
+                .id(id)
+                .trackingNumber("TRK-" + id)
+                .order(Order.builder().id(id).orderNumber("ORD-" + id).build())
+                .vehicle(Vehicle.builder().id(id).licensePlate(String.format("51C-%05d", id)).build())
+                .status(ShipmentStatus.IN_TRANSIT)
+                .version(0L)
+                .build();
+    }
+
+    private EntityManager entityManager() {
+        Session session = (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> null);
+        return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EntityManager.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "unwrap" -> session;
+                    case "getReference" -> Shipment.builder().id((Long) args[1]).build();
+                    case "persist" -> {
+                        assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+                        tracking.add((ShipmentTracking) args[0]);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private void subscribe(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("session-1");
+        accessor.setSubscriptionId("sub-" + destination);
+        accessor.setDestination(destination);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        subscriptions.onSubscribe(new SessionSubscribeEvent(this, message));
+    }
+
+    private static LocationUpdateDTO update(Double latitude, Double longitude) {
+        LocationUpdateDTO dto = new LocationUpdateDTO();
+        dto.setLatitude(latitude);
+        dto.setLongitude(longitude);
+        return dto;
+    }
+
+    private static LocationPingDTO ping(Long shipmentId, Double latitude, Double longitude) {
+        LocationPingDTO dto = new LocationPingDTO();
+        dto.setShipmentId(shipmentId);
+        dto.setLatitude(latitude);
+        dto.setLongitude(longitude);
+        return dto;
+    }
+
+    // Runs the statement setter against a recording PreparedStatement; inside a transaction the
+    // view must not have moved yet
+    private class RecordingJdbcTemplate extends JdbcTemplate {
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+            assertNull(view.getActiveShipments().get(0).getCurrentLatitude());
+            List<Integer> counts = new ArrayList<>();
+            for (T arg : batchArgs) {
+                Map<Integer, Object> values = new HashMap<>();
+                PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                            values.put((Integer) args[0], method.getName().equals("setNull") ? null : args[1]);
+                            return null;
+                        });
+                try {
+                    pss.setValues(ps, arg);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+                batch.add(values);
+                counts.add(rows.contains((Long) values.get(8)) ? 1 : 0);
+            }
+            int[][] result = new int[(counts.size() + batchSize - 1) / batchSize][];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = counts.subList(i * batchSize, Math.min(counts.size(), (i + 1) * batchSize))
+                        .stream().mapToInt(Integer::intValue).toArray();
+            }
+            return result;
+        }
+    }
+
+    private class CountingTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
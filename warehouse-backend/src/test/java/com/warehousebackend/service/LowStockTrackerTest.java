@@ -0,0 +1,120 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.inventory.InventoryResponse;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LowStockTrackerTest {
+
+    private static final Product PRODUCT = Product.builder().id(1L).name("Widget").sku("W-1").build();
+    private static final Warehouse WAREHOUSE = Warehouse.builder().id(1L).name("Main").build();
+
+    private final List<Message<?>> outbound = new ArrayList<>();
+    // Updates outside a transaction apply immediately, so only the reference lookups need a repository
+    private final LowStockTracker tracker = new LowStockTracker(null,
+            new SimpMessagingTemplate((message, timeout) -> outbound.add(message)),
+            new ReferenceDataCache(repository(ProductRepository.class, PRODUCT),
+                    repository(WarehouseRepository.class, WAREHOUSE), new SimpleMeterRegistry()));
+
+    @Test
+    void crossingTheThresholdIsPushedBothWays() {
+        tracker.update(inventory(5, 1));
+        tracker.update(inventory(20, 2));
+
+        assertEquals(0, tracker.count());
+        assertEquals(2, outbound.size());
+        assertTrue(((InventoryResponse) outbound.get(0).getPayload()).getIsLowStock());
+        assertFalse(((InventoryResponse) outbound.get(1).getPayload()).getIsLowStock());
+    }
+
+    @Test
+    void stayingOnTheSameSideIsNotPushed() {
+        tracker.update(inventory(5, 1));
+        tracker.update(inventory(3, 2));
+        tracker.update(inventory(30, 3));
+        tracker.update(inventory(40, 4));
+
+        assertEquals(2, outbound.size());
+    }
+
+    @Test
+    void anOlderVersionDoesNotReplaceANewerOne() {
+        tracker.update(inventory(5, 2));
+        tracker.update(inventory(3, 3));
+        tracker.update(inventory(20, 1));
+
+        assertEquals(1, tracker.count());
+        assertEquals(3, tracker.getLowStockItems().get(0).getQuantity());
+        assertEquals(1, outbound.size());
+    }
+
+    @Test
+    void aRolledBackChangeLeavesNoAlert() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tracker.update(inventory(5, 1));
+            assertEquals(0, tracker.count());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(0, tracker.count());
+        assertTrue(outbound.isEmpty());
+    }
+
+    @Test
+    void aCommittedChangeIsAppliedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tracker.update(inventory(5, 1));
+            assertEquals(0, tracker.count());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, tracker.count());
+        assertEquals(1, outbound.size());
+    }
+
+    private static Inventory inventory(int quantity, long version) {
+        return Inventory.builder()
+                .id(1L)
+                .product(PRODUCT)
+                .warehouse(WAREHOUSE)
+                .quantity(quantity)
+                .reservedQuantity(0)
+                .minThreshold(10)
+                .maxThreshold(100)
+                .sharded(false)
+                .version(version)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, Object entity) {
+        return (T) Proxy.newProxyInstance(LowStockTrackerTest.class.getClassLoader(),
+                new Class<?>[]{type}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.of(entity);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
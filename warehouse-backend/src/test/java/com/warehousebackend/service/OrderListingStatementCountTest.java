@@ -0,0 +1,148 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.common.CursorPageResponse;
+import com.warehousebackend.dto.order.OrderDTO;
+import com.warehousebackend.dto.order.OrderItemDTO;
+import com.warehousebackend.dto.order.OrderResponse;
+import com.warehousebackend.entity.*;
+import com.warehousebackend.exception.BusinessException;
+import com.warehousebackend.repository.*;
+import com.warehousebackend.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+class OrderListingStatementCountTest {
+
+    private static final int ORDERS = 60;
+    private static final int LINES = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long newestOrderId;
+
+    @BeforeEach
+    void setUp() {
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Listing warehouse")
+                .capacity(100_000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+
+        List<OrderItemDTO> items = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Listing product " + i)
+                    .sku("LIST-" + UUID.randomUUID().toString().substring(0, 8))
+                    .price(BigDecimal.TEN)
+                    .status("ACTIVE")
+                    .build());
+            inventoryRepository.save(Inventory.builder()
+                    .product(product)
+                    .warehouse(warehouse)
+                    .quantity(10_000)
+                    .reservedQuantity(0)
+                    .minThreshold(0)
+                    .maxThreshold(100_000)
+                    .sharded(false)
+                    .build());
+
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(product.getId());
+            item.setQuantity(i + 1);
+            items.add(item);
+        }
+
+        for (int i = 0; i < ORDERS; i++) {
+            OrderDTO dto = new OrderDTO();
+            dto.setWarehouseId(warehouse.getId());
+            dto.setCustomerName("Listing customer " + i);
+            dto.setItems(items);
+            newestOrderId = orderService.createOrder(dto).getId();
+        }
+
+        shipmentRepository.save(Shipment.builder()
+                .trackingNumber("LIST-" + UUID.randomUUID().toString().substring(0, 8))
+                .order(orderRepository.getReferenceById(newestOrderId))
+                .status(ShipmentStatus.PENDING)
+                .build());
+    }
+
+    @Test
+    void listingStatementCountDoesNotGrowWithPageSize() {
+        assertEquals(3, statementsFor(5));
+        assertEquals(3, statementsFor(50));
+    }
+
+    @Test
+    void scrollingTakesTwoStatementsPerPage() {
+        statementCounter.reset();
+        CursorPageResponse<OrderResponse> page = orderService.getOrderPage(null, null, 50);
+        assertEquals(50, page.getSize());
+        // Page query and one query for all lines on the page; a slice needs no count
+        assertEquals(2, statementCounter.count());
+    }
+
+    @Test
+    void scrollRejectsPageSizesOutOfRange() {
+        assertThrows(BusinessException.class, () -> orderService.getOrderPage(null, null, 0));
+        assertThrows(BusinessException.class, () -> orderService.getOrderPage(null, null, CursorPageResponse.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void listingKeepsTheEntityResponseShape() {
+        // The entity path needs an open session for its lazy associations
+        OrderResponse expected = transactionTemplate.execute(status -> orderService.getOrderById(newestOrderId));
+
+        Page<OrderResponse> page = orderService.getOrders(null, PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "id")));
+
+        assertEquals(expected, page.getContent().get(0));
+    }
+
+    private int statementsFor(int size) {
+        statementCounter.reset();
+        Page<OrderResponse> page = orderService.getOrders(null, PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt")));
+        assertEquals(size, page.getNumberOfElements());
+        // Page query, count query, and one query for all lines on the page
+        return statementCounter.count();
+    }
+}
@@ -0,0 +1,109 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.order.OrderDTO;
+import com.warehousebackend.dto.order.OrderItemDTO;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.exception.BusinessException;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class OrderServiceConcurrencyTest {
+
+    private static final int STOCK = 100;
+    private static final int PARALLEL_ORDERS = 200;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Test
+    void parallelOrdersNeverOversell() throws Exception {
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Concurrency test warehouse")
+                .capacity(1000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+        Product product = productRepository.save(Product.builder()
+                .name("Concurrency test product")
+                .sku("TEST-" + UUID.randomUUID().toString().substring(0, 8))
+                .price(BigDecimal.TEN)
+                .status("ACTIVE")
+                .build());
+        Inventory inventory = inventoryRepository.save(Inventory.builder()
+                .product(product)
+                .warehouse(warehouse)
+                .quantity(STOCK)
+                .reservedQuantity(0)
+                .minThreshold(0)
+                .maxThreshold(1000)
+                .build());
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < PARALLEL_ORDERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.createOrder(singleItemOrder(warehouse.getId(), product.getId()));
+                    succeeded.incrementAndGet();
+                } catch (BusinessException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Inventory result = inventoryRepository.findById(inventory.getId()).orElseThrow();
+        assertEquals(STOCK, succeeded.get());
+        assertEquals(PARALLEL_ORDERS - STOCK, rejected.get());
+        assertEquals(STOCK, result.getReservedQuantity());
+        assertEquals(0, result.getAvailableQuantity());
+    }
+
+    private OrderDTO singleItemOrder(Long warehouseId, Long productId) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(1);
+
+        OrderDTO dto = new OrderDTO();
+        dto.setWarehouseId(warehouseId);
+        dto.setCustomerName("Concurrency test");
+        dto.setItems(List.of(item));
+        return dto;
+    }
+}
@@ -0,0 +1,106 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.order.OrderDTO;
+import com.warehousebackend.dto.order.OrderItemDTO;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import com.warehousebackend.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+class OrderServiceStatementCountTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private Warehouse warehouse;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Statement count warehouse")
+                .capacity(1000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+
+        for (int i = 0; i < 40; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Statement count product " + i)
+                    .sku("STMT-" + UUID.randomUUID().toString().substring(0, 8))
+                    .price(BigDecimal.TEN)
+                    .status("ACTIVE")
+                    .build());
+            inventoryRepository.save(Inventory.builder()
+                    .product(product)
+                    .warehouse(warehouse)
+                    .quantity(100)
+                    .reservedQuantity(0)
+                    .minThreshold(0)
+                    .maxThreshold(1000)
+                    .sharded(false)
+                    .build());
+            products.add(product);
+        }
+    }
+
+    @Test
+    void orderCreationStatementCountDoesNotGrowWithLineCount() {
+        int small = statementsFor(5);
+        int large = statementsFor(40);
+
+        assertEquals(small, large, "order creation must not issue per-line queries");
+    }
+
+    private int statementsFor(int lines) {
+        List<OrderItemDTO> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(products.get(i).getId());
+            item.setQuantity(1);
+            items.add(item);
+        }
+
+        OrderDTO dto = new OrderDTO();
+        dto.setWarehouseId(warehouse.getId());
+        dto.setCustomerName("Statement count test");
+        dto.setItems(items);
+
+        statementCounter.reset();
+        orderService.createOrder(dto);
+
+        // Pooled sequence ids let all lines go out as one batched insert
+        assertEquals(1, statementCounter.count("insert into order_items"));
+        // Sequence calls depend on how much of the previous id block is left, not on the line count
+        return statementCounter.count() - statementCounter.count("select nextval");
+    }
+}
@@ -0,0 +1,77 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.config.TopicSubscriptions;
+import com.warehousebackend.dto.shipment.ShipmentPositionDelta;
+import com.warehousebackend.entity.ShipmentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShipmentBroadcasterTest {
+
+    private final List<Message<?>> outbound = new ArrayList<>();
+    private final TopicSubscriptions subscriptions = new TopicSubscriptions();
+    private final ShipmentBroadcaster broadcaster = new ShipmentBroadcaster(
+            new SimpMessagingTemplate((message, timeout) -> outbound.add(message)), subscriptions, new SimpleMeterRegistry());
+
+    @Test
+    void nothingIsSentWithoutSubscribers() {
+        broadcaster.publish(1L, 21.0, 105.8, 40.0, ShipmentStatus.IN_TRANSIT);
+        broadcaster.flush();
+
+        assertTrue(outbound.isEmpty());
+    }
+
+    @Test
+    void updatesWithinAnIntervalAreConflatedIntoOneFrame() {
+        subscribe("/topic/shipments/1");
+
+        broadcaster.publish(1L, 21.0, 105.8, 40.0, ShipmentStatus.IN_TRANSIT);
+        broadcaster.publish(1L, 21.1, 105.9, 42.0, null);
+        broadcaster.publish(1L, 21.2, 106.0, 44.0, null);
+        broadcaster.flush();
+
+        assertEquals(1, outbound.size());
+        ShipmentPositionDelta frame = (ShipmentPositionDelta) outbound.get(0).getPayload();
+        assertEquals(21.2, frame.lat());
+        assertEquals(44.0, frame.speed());
+        assertEquals("IN_TRANSIT", frame.status());
+    }
+
+    @Test
+    void laterFramesCarryOnlyWhatChanged() {
+        subscribe("/topic/shipments/*");
+
+        broadcaster.publish(1L, 21.0, 105.8, 40.0, ShipmentStatus.IN_TRANSIT);
+        broadcaster.flush();
+        broadcaster.publish(1L, 21.1, 105.9, 40.0, ShipmentStatus.IN_TRANSIT);
+        broadcaster.flush();
+        broadcaster.publish(1L, 21.1, 105.9, 40.0, ShipmentStatus.IN_TRANSIT);
+        broadcaster.flush();
+
+        assertEquals(2, outbound.size());
+        ShipmentPositionDelta frame = (ShipmentPositionDelta) outbound.get(1).getPayload();
+        assertEquals(21.1, frame.lat());
+        assertNull(frame.speed());
+        assertNull(frame.status());
+    }
+
+    private void subscribe(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("session-1");
+        accessor.setSubscriptionId("sub-" + destination);
+        accessor.setDestination(destination);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        subscriptions.onSubscribe(new SessionSubscribeEvent(this, message));
+    }
+}
@@ -0,0 +1,122 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.dto.inventory.InventoryResponse;
+import com.warehousebackend.entity.Inventory;
+import com.warehousebackend.entity.Product;
+import com.warehousebackend.entity.Warehouse;
+import com.warehousebackend.repository.InventoryRepository;
+import com.warehousebackend.repository.ProductRepository;
+import com.warehousebackend.repository.WarehouseRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Single-row against sharded reservations with concurrent writers. Both modes must reserve
+ * exactly the available stock; the elapsed time of each run is printed for comparison.
+ *
+ * Runs only when asked for, e.g. {@code -Dreservation.benchmark.writers=64}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "reservation.benchmark.writers", matches = "\\d+")
+class StockReservationBenchmarkTest {
+
+    private static final int STOCK = 5_000;
+    private static final int ATTEMPTS = 6_400;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private final int writers = Integer.parseInt(System.getProperty("reservation.benchmark.writers", "64"));
+
+    @Test
+    void singleRowAndShardedReservationsNeverOversell() throws Exception {
+        Inventory singleRow = createInventory();
+        Inventory sharded = createInventory();
+        stockReservationService.enableSharding(sharded.getId(), 16);
+
+        long singleRowMillis = run(singleRow);
+        long shardedMillis = run(sharded);
+
+        System.out.printf("Reservations at %d writers: single row %d ms, sharded %d ms%n",
+                writers, singleRowMillis, shardedMillis);
+
+        InventoryResponse shardedResult = stockReservationService.disableSharding(sharded.getId());
+        assertEquals(STOCK, shardedResult.getReservedQuantity());
+        assertEquals(0, shardedResult.getAvailableQuantity());
+        assertEquals(STOCK, inventoryRepository.findById(singleRow.getId()).orElseThrow().getReservedQuantity());
+    }
+
+    private long run(Inventory inventory) throws Exception {
+        Long productId = inventory.getProduct().getId();
+        Long warehouseId = inventory.getWarehouse().getId();
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < ATTEMPTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                if (stockReservationService.reserve(productId, warehouseId, 1)) {
+                    reserved.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - began);
+        executor.shutdown();
+
+        assertEquals(STOCK, reserved.get());
+        return elapsed;
+    }
+
+    private Inventory createInventory() {
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .name("Benchmark warehouse")
+                .capacity(100_000)
+                .currentUsage(0)
+                .status("ACTIVE")
+                .build());
+        Product product = productRepository.save(Product.builder()
+                .name("Benchmark product")
+                .sku("BENCH-" + UUID.randomUUID().toString().substring(0, 8))
+                .price(BigDecimal.TEN)
+                .status("ACTIVE")
+                .build());
+        return inventoryRepository.save(Inventory.builder()
+                .product(product)
+                .warehouse(warehouse)
+                .quantity(STOCK)
+                .reservedQuantity(0)
+                .minThreshold(0)
+                .maxThreshold(100_000)
+                .sharded(false)
+                .build());
+    }
+}
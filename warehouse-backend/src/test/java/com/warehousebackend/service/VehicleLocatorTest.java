@@ -0,0 +1,69 @@
+package com.warehousebackend.service;
+
+import com.warehousebackend.entity.Vehicle;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VehicleLocatorTest {
+
+    // Updates outside a transaction apply immediately, so no repositories are needed
+    private final VehicleLocator locator = new VehicleLocator(null, null);
+
+    @Test
+    void anOlderPositionDoesNotUndoANewerOne() {
+        locator.update(vehicle("IN_USE"));
+        LocalDateTime now = LocalDateTime.now();
+
+        locator.moveTo(1L, 21.10, 105.90, now);
+        // The startup replay of a shipment row written before that ping
+        locator.moveTo(1L, 21.00, 105.80, now.minusMinutes(1));
+
+        assertTrue(locator.vehiclesWithin(21.00, 105.80, 1, null).isEmpty());
+        VehicleLocator.Position position = locator.vehiclesWithin(21.10, 105.90, 1, null).get(0).item();
+        assertEquals(now, position.reportedAt());
+    }
+
+    @Test
+    void statusChangesKeepThePositionAndLaterMovesKeepTheStatus() {
+        locator.update(vehicle("IN_USE"));
+        locator.moveTo(1L, 21.10, 105.90, LocalDateTime.now());
+
+        locator.update(vehicle("AVAILABLE"));
+        assertEquals(List.of("AVAILABLE"), statusesNear(21.10, 105.90));
+
+        locator.moveTo(1L, 21.11, 105.90, LocalDateTime.now());
+        assertEquals(List.of("AVAILABLE"), statusesNear(21.11, 105.90));
+        assertEquals(1, locator.vehiclesIn(20, 105, 22, 107, "AVAILABLE").size());
+    }
+
+    @Test
+    void vehiclesWithoutAPositionAreFoundOnceTheyMove() {
+        Vehicle vehicle = vehicle("AVAILABLE");
+        vehicle.setCurrentLatitude(null);
+        vehicle.setCurrentLongitude(null);
+        locator.update(vehicle);
+        assertTrue(locator.vehiclesIn(-90, -180, 90, 180, null).isEmpty());
+
+        locator.moveTo(1L, 21.0, 105.8, LocalDateTime.now());
+        locator.moveTo(2L, 21.0, 105.8, LocalDateTime.now());
+        assertEquals(1, locator.vehiclesIn(-90, -180, 90, 180, null).size());
+    }
+
+    private List<String> statusesNear(double latitude, double longitude) {
+        return locator.vehiclesWithin(latitude, longitude, 0.1, null).stream().map(hit -> hit.item().status()).toList();
+    }
+
+    private static Vehicle vehicle(String status) {
+        return Vehicle.builder()
+                .id(1L)
+                .licensePlate("51C-00001")
+                .status(status)
+                .currentLatitude(21.0)
+                .currentLongitude(105.8)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.warehousebackend.service.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Correctness on small inputs, plus the planning-time benchmark on synthetic city data: stops
+ * scattered around a few district centres of a 30 km wide city, the depot on the edge.
+ */
+class RouteOptimizerTest {
+
+    private static final double ROAD_FACTOR = 1.3;
+
+    @Test
+    void tinyRoutesVisitEveryStop() {
+        for (int stops = 0; stops <= 5; stops++) {
+            int[] order = RouteOptimizer.optimise(city(stops, 1));
+            assertArrayEquals(IntStream.rangeClosed(1, stops).toArray(), Arrays.stream(order).sorted().toArray());
+        }
+    }
+
+    @Test
+    void smallRoutesMatchTheOptimum() {
+        for (long seed = 1; seed <= 20; seed++) {
+            DistanceMatrix distances = city(8, seed);
+            double planned = RouteOptimizer.tourLength(distances, RouteOptimizer.optimise(distances));
+            assertEquals(bruteForce(distances), planned, bruteForce(distances) * 0.02, "seed " + seed);
+        }
+    }
+
+    @Test
+    void fiveHundredStopsArePlannedInUnderTwoSeconds() {
+        // Warm up the JIT on a different city
+        RouteOptimizer.optimise(city(500, 99));
+
+        int stops = 500;
+        DistanceMatrix distances = city(stops, 7);
+        long started = System.nanoTime();
+        int[] order = RouteOptimizer.optimise(distances);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        assertArrayEquals(IntStream.rangeClosed(1, stops).toArray(), Arrays.stream(order).sorted().toArray());
+        double planned = RouteOptimizer.tourLength(distances, order);
+        double nearest = RouteOptimizer.tourLength(distances, nearestNeighbour(distances));
+        System.out.printf("%d stops: planned %.1f km in %d ms on %d cores, nearest neighbour %.1f km%n",
+                stops, planned, millis, Runtime.getRuntime().availableProcessors(), nearest);
+
+        assertTrue(planned < nearest * 0.95, "planned " + planned + " km, nearest neighbour " + nearest + " km");
+        assertTrue(millis < 2_000, millis + " ms");
+    }
+
+    private static DistanceMatrix city(int stops, long seed) {
+        Random random = new Random(seed);
+        double[][] districts = new double[6][];
+        for (int d = 0; d < districts.length; d++) {
+            districts[d] = new double[]{20.90 + random.nextDouble() * 0.25, 105.70 + random.nextDouble() * 0.25};
+        }
+        double[] latitudes = new double[stops + 1];
+        double[] longitudes = new double[stops + 1];
+        latitudes[0] = 20.95;
+        longitudes[0] = 105.72;
+        for (int i = 1; i <= stops; i++) {
+            double[] district = districts[random.nextInt(districts.length)];
+            latitudes[i] = district[0] + random.nextGaussian() * 0.02;
+            longitudes[i] = district[1] + random.nextGaussian() * 0.02;
+        }
+        return DistanceMatrix.haversine(latitudes, longitudes, ROAD_FACTOR);
+    }
+
+    private static int[] nearestNeighbour(DistanceMatrix distances) {
+        int stops = distances.size() - 1;
+        boolean[] visited = new boolean[stops + 1];
+        int[] order = new int[stops];
+        int current = 0;
+        for (int k = 0; k < stops; k++) {
+            int best = -1;
+            for (int candidate = 1; candidate <= stops; candidate++) {
+                if (!visited[candidate] && (best == -1 || distances.get(current, candidate) < distances.get(current, best))) {
+                    best = candidate;
+                }
+            }
+            visited[best] = true;
+            order[k] = best;
+            current = best;
+        }
+        return order;
+    }
+
+    private static double bruteForce(DistanceMatrix distances) {
+        int[] order = IntStream.range(1, distances.size()).toArray();
+        double best = Double.MAX_VALUE;
+        do {
+            best = Math.min(best, RouteOptimizer.tourLength(distances, order));
+        } while (nextPermutation(order));
+        return best;
+    }
+
+    private static boolean nextPermutation(int[] values) {
+        int i = values.length - 2;
+        while (i >= 0 && values[i] >= values[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        int j = values.length - 1;
+        while (values[j] <= values[i]) {
+            j--;
+        }
+        int swap = values[i];
+        values[i] = values[j];
+        values[j] = swap;
+        for (int a = i + 1, b = values.length - 1; a < b; a++, b--) {
+            swap = values[a];
+            values[a] = values[b];
+            values[b] = swap;
+        }
+        return true;
+    }
+}
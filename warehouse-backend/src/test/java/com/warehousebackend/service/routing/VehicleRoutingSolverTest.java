@@ -0,0 +1,141 @@
+package com.warehousebackend.service.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Capacity and coverage invariants, plus the dispatch-sized run: 2,000 orders of 5-80 kg over the
+ * same kind of synthetic city as {@link RouteOptimizerTest}, 100 vans and trucks.
+ */
+class VehicleRoutingSolverTest {
+
+    private static final double ROAD_FACTOR = 1.3;
+
+    @Test
+    void everyStopFitsOnOneVehicleWithinCapacity() {
+        Random random = new Random(3);
+        DistanceMatrix distances = city(120, 3);
+        double[] weights = loads(120, random, 5, 80);
+        double[] volumes = loads(120, random, 0.01, 0.3);
+        List<VehicleRoutingSolver.Capacity> vehicles = List.of(
+                new VehicleRoutingSolver.Capacity(1_000, 5),
+                new VehicleRoutingSolver.Capacity(1_500, 8),
+                new VehicleRoutingSolver.Capacity(3_000, Double.POSITIVE_INFINITY),
+                new VehicleRoutingSolver.Capacity(2_000, 10));
+
+        VehicleRoutingSolver.Solution solution = VehicleRoutingSolver.solve(distances, weights, volumes, vehicles, 500);
+
+        assertEquals(0, solution.unassigned().length);
+        assertCovers(solution, 120);
+        assertWithinCapacity(solution, weights, volumes, vehicles);
+    }
+
+    @Test
+    void stopsThatFitNowhereAreLeftUnassigned() {
+        DistanceMatrix distances = city(10, 5);
+        double[] weights = new double[11];
+        double[] volumes = new double[11];
+        Arrays.fill(weights, 1, 11, 100);
+        weights[4] = 900;
+        List<VehicleRoutingSolver.Capacity> vehicles = List.of(
+                new VehicleRoutingSolver.Capacity(500, 1),
+                new VehicleRoutingSolver.Capacity(500, 1));
+
+        VehicleRoutingSolver.Solution solution = VehicleRoutingSolver.solve(distances, weights, volumes, vehicles, 100);
+
+        // The 900 kg order is heavier than either van; the nine others fill them exactly
+        assertArrayEquals(new int[]{4}, solution.unassigned());
+        assertCovers(solution, 10);
+        assertWithinCapacity(solution, weights, volumes, vehicles);
+    }
+
+    @Test
+    void noVehiclesLeavesEverythingUnassigned() {
+        VehicleRoutingSolver.Solution solution = VehicleRoutingSolver.solve(city(5, 1), new double[6], new double[6],
+                List.of(), 100);
+        assertArrayEquals(IntStream.rangeClosed(1, 5).toArray(), solution.unassigned());
+        assertEquals(0, solution.totalDistance());
+    }
+
+    @Test
+    void twoThousandOrdersOnAHundredVehiclesWithinTheBudget() {
+        int stops = 2_000;
+        long budgetMillis = 3_000;
+        Random random = new Random(11);
+        DistanceMatrix distances = city(stops, 11);
+        double[] weights = loads(stops, random, 5, 80);
+        double[] volumes = loads(stops, random, 0.01, 0.4);
+        List<VehicleRoutingSolver.Capacity> vehicles = new ArrayList<>();
+        for (int v = 0; v < 100; v++) {
+            vehicles.add(v % 4 == 0
+                    ? new VehicleRoutingSolver.Capacity(2_500, 12)
+                    : new VehicleRoutingSolver.Capacity(1_000, 6));
+        }
+
+        VehicleRoutingSolver.Solution constructed = VehicleRoutingSolver.solve(distances, weights, volumes, vehicles, 0);
+        long started = System.nanoTime();
+        VehicleRoutingSolver.Solution solution = VehicleRoutingSolver.solve(distances, weights, volumes, vehicles,
+                budgetMillis);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        System.out.printf("%d stops on %d vehicles: %.1f km in %d ms on %d cores (%.1f km without search), %d unassigned%n",
+                stops, vehicles.size(), solution.totalDistance(), millis, Runtime.getRuntime().availableProcessors(),
+                constructed.totalDistance(), solution.unassigned().length);
+
+        assertEquals(0, solution.unassigned().length);
+        assertCovers(solution, stops);
+        assertWithinCapacity(solution, weights, volumes, vehicles);
+        assertTrue(solution.totalDistance() <= constructed.totalDistance());
+        assertTrue(millis < budgetMillis + 3_000, millis + " ms");
+    }
+
+    private static void assertCovers(VehicleRoutingSolver.Solution solution, int stops) {
+        int[] visited = IntStream.concat(Arrays.stream(solution.routes()).flatMapToInt(Arrays::stream),
+                Arrays.stream(solution.unassigned())).sorted().toArray();
+        assertArrayEquals(IntStream.rangeClosed(1, stops).toArray(), visited);
+    }
+
+    private static void assertWithinCapacity(VehicleRoutingSolver.Solution solution, double[] weights,
+                                             double[] volumes, List<VehicleRoutingSolver.Capacity> vehicles) {
+        for (int v = 0; v < vehicles.size(); v++) {
+            int[] route = solution.routes()[v];
+            assertTrue(Arrays.stream(route).mapToDouble(node -> weights[node]).sum() <= vehicles.get(v).weight(),
+                    "weight on vehicle " + v);
+            assertTrue(Arrays.stream(route).mapToDouble(node -> volumes[node]).sum() <= vehicles.get(v).volume(),
+                    "volume on vehicle " + v);
+        }
+    }
+
+    private static double[] loads(int stops, Random random, double min, double max) {
+        double[] loads = new double[stops + 1];
+        for (int i = 1; i <= stops; i++) {
+            loads[i] = min + random.nextDouble() * (max - min);
+        }
+        return loads;
+    }
+
+    private static DistanceMatrix city(int stops, long seed) {
+        Random random = new Random(seed);
+        double[][] districts = new double[6][];
+        for (int d = 0; d < districts.length; d++) {
+            districts[d] = new double[]{20.90 + random.nextDouble() * 0.25, 105.70 + random.nextDouble() * 0.25};
+        }
+        double[] latitudes = new double[stops + 1];
+        double[] longitudes = new double[stops + 1];
+        latitudes[0] = 20.95;
+        longitudes[0] = 105.72;
+        for (int i = 1; i <= stops; i++) {
+            double[] district = districts[random.nextInt(districts.length)];
+            latitudes[i] = district[0] + random.nextGaussian() * 0.02;
+            longitudes[i] = district[1] + random.nextGaussian() * 0.02;
+        }
+        return DistanceMatrix.haversine(latitudes, longitudes, ROAD_FACTOR);
+    }
+}
@@ -0,0 +1,73 @@
+package com.warehousebackend.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Wraps the application DataSource and records the SQL of every statement prepared through it,
+ * whether it comes from Hibernate or from JdbcTemplate. A JDBC batch counts as one statement.
+ * Import it into a Spring test with {@code @Import(StatementCounter.class)}.
+ */
+public class StatementCounter implements BeanPostProcessor {
+
+    private final List<String> statements = new ArrayList<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(dataSource, method, args);
+                        return result instanceof Connection connection ? wrap(connection) : result;
+                    });
+        }
+        return bean;
+    }
+
+    public synchronized void reset() {
+        statements.clear();
+    }
+
+    public synchronized int count() {
+        return statements.size();
+    }
+
+    public synchronized int count(String sqlPrefix) {
+        String prefix = sqlPrefix.toLowerCase(Locale.ROOT);
+        return (int) statements.stream().filter(sql -> sql.startsWith(prefix)).count();
+    }
+
+    public synchronized List<String> getStatements() {
+        return List.copyOf(statements);
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ((method.getName().equals("prepareStatement") || method.getName().equals("prepareCall"))
+                            && args != null && args[0] instanceof String sql) {
+                        record(sql);
+                    }
+                    return invoke(connection, method, args);
+                });
+    }
+
+    private synchronized void record(String sql) {
+        statements.add(sql.strip().toLowerCase(Locale.ROOT));
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.warehousebackend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimerWheelTest {
+
+    private static final long TICK = 1_000;
+    private static final long START = 1_700_000_000_000L;
+
+    private final HashedTimerWheel<Long> wheel = new HashedTimerWheel<>(TICK, 64, START);
+    private final List<Long> fired = new ArrayList<>();
+
+    @Test
+    void timersFireOnTheTickOfTheirDeadline() {
+        wheel.schedule(1L, START + 2_500);
+        wheel.schedule(2L, START + 3_000);
+
+        wheel.advance(START + 2_999, fired::add);
+        assertEquals(List.of(), fired);
+
+        wheel.advance(START + 3_000, fired::add);
+        assertEquals(Set.of(1L, 2L), new HashSet<>(fired));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timersSeveralTurnsAwayWaitForTheirRound() {
+        // The wheel turns every 64 s
+        wheel.schedule(1L, START + 200_000);
+
+        wheel.advance(START + 199_000, fired::add);
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(START + 200_000, fired::add);
+        assertEquals(List.of(1L), fired);
+    }
+
+    @Test
+    void overdueTimersFireOnTheNextTick() {
+        wheel.schedule(1L, START - 60_000);
+
+        wheel.advance(START + 1_000, fired::add);
+        assertEquals(List.of(1L), fired);
+    }
+
+    @Test
+    void rescheduledAndCancelledTimersDoNotFire() {
+        wheel.schedule(1L, START + 5_000);
+        wheel.schedule(2L, START + 5_000);
+        wheel.schedule(1L, START + 10_000);
+        assertTrue(wheel.cancel(2L));
+
+        wheel.advance(START + 9_000, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(START + 10_000, fired::add);
+        assertEquals(List.of(1L), fired);
+    }
+
+    @Test
+    void everyTimerFiresOnceAcrossManyTurns() {
+        HashedTimerWheel<Long> large = new HashedTimerWheel<>(TICK, 256, START);
+        Random random = new Random(7);
+        for (long id = 0; id < 5_000; id++) {
+            large.schedule(id, START + (long) (random.nextDouble() * 3600 * TICK));
+        }
+
+        Set<Long> seen = new HashSet<>();
+        for (int t = 1; t <= 3600; t++) {
+            large.advance(START + t * TICK, id -> assertTrue(seen.add(id), "fired twice: " + id));
+        }
+        assertEquals(5_000, seen.size());
+        assertEquals(0, large.size());
+    }
+
+    // Timing only; run with -Dtimer.benchmark.shipments=50000
+    @Test
+    @EnabledIfSystemProperty(named = "timer.benchmark.shipments", matches = "\\d+")
+    void tickingThroughManyTimersStaysUnderAMillisecond() {
+        int shipments = Integer.getInteger("timer.benchmark.shipments");
+        int ticks = 4 * 3600;
+        HashedTimerWheel<Long> large = new HashedTimerWheel<>(TICK, 4096, START);
+        Random random = new Random(42);
+        for (long id = 0; id < shipments; id++) {
+            large.schedule(id, START + (long) (random.nextDouble() * ticks * TICK));
+        }
+
+        long[] nanos = new long[ticks];
+        int[] count = new int[1];
+        for (int t = 1; t <= ticks; t++) {
+            long started = System.nanoTime();
+            large.advance(START + t * TICK, id -> count[0]++);
+            nanos[t - 1] = System.nanoTime() - started;
+        }
+
+        assertEquals(shipments, count[0]);
+        Arrays.sort(nanos);
+        long p99 = nanos[(int) (ticks * 0.99)];
+        assertTrue(p99 < 1_000_000, "p99 tick " + p99 / 1_000 + " us");
+    }
+}
@@ -0,0 +1,197 @@
+package com.warehousebackend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialGridTest {
+
+    private static final int OBJECTS = 10_000;
+
+    private final SpatialGrid<Integer, Integer> grid = new SpatialGrid<>(0.01);
+
+    @Test
+    void radiusQueryMatchesBruteForce() {
+        double[][] points = scatter(OBJECTS, 1);
+        Random random = new Random(2);
+        for (int query = 0; query < 200; query++) {
+            double latitude = 20.90 + random.nextDouble() * 0.3;
+            double longitude = 105.70 + random.nextDouble() * 0.3;
+            double radiusKm = 0.2 + random.nextDouble() * 5;
+
+            List<SpatialGrid.Hit<Integer>> hits = grid.withinRadius(latitude, longitude, radiusKm);
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < OBJECTS; i++) {
+                if (GeoUtils.haversineKm(latitude, longitude, points[0][i], points[1][i]) <= radiusKm) {
+                    expected.add(i);
+                }
+            }
+            assertEquals(expected, ids(hits));
+            for (int i = 1; i < hits.size(); i++) {
+                assertTrue(hits.get(i - 1).distanceKm() <= hits.get(i).distanceKm());
+            }
+        }
+    }
+
+    @Test
+    void boxQueryMatchesBruteForce() {
+        double[][] points = scatter(OBJECTS, 3);
+        Random random = new Random(4);
+        for (int query = 0; query < 200; query++) {
+            double south = 20.85 + random.nextDouble() * 0.3;
+            double west = 105.65 + random.nextDouble() * 0.3;
+            double north = south + random.nextDouble() * 0.1;
+            double east = west + random.nextDouble() * 0.1;
+
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < OBJECTS; i++) {
+                if (points[0][i] >= south && points[0][i] <= north && points[1][i] >= west && points[1][i] <= east) {
+                    expected.add(i);
+                }
+            }
+            assertEquals(expected, new HashSet<>(grid.withinBox(south, west, north, east)));
+        }
+    }
+
+    @Test
+    void boxLargerThanThePopulatedAreaFindsEverything() {
+        scatter(500, 5);
+        assertEquals(500, grid.withinBox(-90, -180, 90, 180).size());
+    }
+
+    @Test
+    void movedAndRemovedPointsAreFoundOnlyWhereTheyAre() {
+        grid.put(1, 21.00, 105.80, 1);
+        grid.put(1, 21.20, 106.00, 1);
+
+        assertEquals(List.of(), grid.withinRadius(21.00, 105.80, 1));
+        assertEquals(Set.of(1), ids(grid.withinRadius(21.20, 106.00, 1)));
+
+        assertTrue(grid.update(1, value -> 7));
+        assertEquals(List.of(7), grid.withinBox(21.1, 105.9, 21.3, 106.1));
+
+        grid.putIfAbsent(1, 21.00, 105.80, 9);
+        assertEquals(7, grid.get(1));
+
+        grid.remove(1);
+        assertEquals(0, grid.size());
+        assertEquals(List.of(), grid.withinBox(21.1, 105.9, 21.3, 106.1));
+        assertFalse(grid.update(1, value -> 8));
+    }
+
+    @Test
+    void queriesStayExactForPointsNotMovingWhileOthersAre() throws InterruptedException {
+        double[][] points = scatter(OBJECTS, 6);
+        Random random = new Random(7);
+        try (MovingPoints ignored = moveEvenPoints(points)) {
+            for (int query = 0; query < 2_000; query++) {
+                double latitude = 20.90 + random.nextDouble() * 0.3;
+                double longitude = 105.70 + random.nextDouble() * 0.3;
+                Set<Integer> seen = new HashSet<>();
+                for (SpatialGrid.Hit<Integer> hit : grid.withinRadius(latitude, longitude, 1)) {
+                    assertTrue(seen.add(hit.item()), "reported twice");
+                }
+                for (int i = 1; query % 20 == 0 && i < OBJECTS; i += 2) {
+                    if (GeoUtils.haversineKm(latitude, longitude, points[0][i], points[1][i]) <= 1) {
+                        assertTrue(seen.contains(i), "missed a stationary point");
+                    }
+                }
+            }
+        }
+        assertEquals(OBJECTS, grid.size());
+    }
+
+    // Timing only; run with -Dspatial.benchmark.queries=20000
+    @Test
+    @EnabledIfSystemProperty(named = "spatial.benchmark.queries", matches = "\\d+")
+    void queriesStayFastWhilePointsMove() throws InterruptedException {
+        int queries = Integer.getInteger("spatial.benchmark.queries");
+        double[][] points = scatter(OBJECTS, 6);
+        Random random = new Random(7);
+        double micros;
+        try (MovingPoints ignored = moveEvenPoints(points)) {
+            for (int warmup = 0; warmup < queries; warmup++) {
+                grid.withinRadius(20.90 + random.nextDouble() * 0.3, 105.70 + random.nextDouble() * 0.3, 1);
+            }
+            long startedAt = System.nanoTime();
+            for (int query = 0; query < queries; query++) {
+                grid.withinRadius(20.90 + random.nextDouble() * 0.3, 105.70 + random.nextDouble() * 0.3, 1);
+            }
+            micros = (System.nanoTime() - startedAt) / 1_000.0 / queries;
+        }
+        assertTrue(micros < 1_000, "1 km radius over " + OBJECTS + " moving points took " + micros + " us");
+    }
+
+    // Even ids keep moving, about 20k updates a second across two writers, each owning one residue
+    // mod 4; odd ids stand still. Closing stops the writers and waits for them.
+    private MovingPoints moveEvenPoints(double[][] points) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch started = new CountDownLatch(2);
+        List<Thread> writers = new ArrayList<>();
+        MovingPoints moving = new MovingPoints(running, writers);
+        try {
+            for (int w = 0; w < 2; w++) {
+                int first = w;
+                Thread writer = new Thread(() -> {
+                    Random random = new Random(first);
+                    started.countDown();
+                    while (running.get()) {
+                        for (int i = 0; i < 100; i++) {
+                            int id = 2 * (first + 2 * random.nextInt(OBJECTS / 4));
+                            grid.put(id, points[0][id] + random.nextGaussian() * 0.01,
+                                    points[1][id] + random.nextGaussian() * 0.01, id);
+                        }
+                        LockSupport.parkNanos(10_000_000);
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+            started.await();
+        } catch (InterruptedException | RuntimeException e) {
+            moving.close();
+            throw e;
+        }
+        return moving;
+    }
+
+    private record MovingPoints(AtomicBoolean running, List<Thread> writers) implements AutoCloseable {
+        @Override
+        public void close() throws InterruptedException {
+            running.set(false);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+    }
+
+    // Uniform over a 30 x 30 km area around Hanoi; keys and values are the point's index
+    private double[][] scatter(int count, long seed) {
+        Random random = new Random(seed);
+        double[][] points = new double[2][count];
+        for (int i = 0; i < count; i++) {
+            points[0][i] = 20.90 + random.nextDouble() * 0.3;
+            points[1][i] = 105.70 + random.nextDouble() * 0.3;
+            grid.put(i, points[0][i], points[1][i], i);
+        }
+        return points;
+    }
+
+    private static Set<Integer> ids(List<SpatialGrid.Hit<Integer>> hits) {
+        Set<Integer> ids = new HashSet<>();
+        for (SpatialGrid.Hit<Integer> hit : hits) {
+            ids.add(hit.item());
+        }
+        return ids;
+    }
+}